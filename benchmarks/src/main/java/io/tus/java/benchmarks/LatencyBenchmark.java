@@ -0,0 +1,92 @@
+package io.tus.java.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.tus.java.client.TusClient;
+import io.tus.java.client.TusURLMemoryStore;
+import io.tus.java.client.TusUpload;
+import io.tus.java.client.TusUploader;
+
+/**
+ * Measures the end-to-end latency of creating and completing a small upload, with and without
+ * the creation-with-upload extension, and of resuming an existing upload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class LatencyBenchmark {
+    @Param({"1024", "262144"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean creationWithUpload;
+
+    private LocalTusServer server;
+    private TusClient client;
+    private byte[] content;
+    private TusUpload resumable;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = new LocalTusServer();
+        client = new TusClient();
+        client.setUploadCreationURL(server.getCreationURL());
+        client.enableResuming(new TusURLMemoryStore());
+        if(creationWithUpload) {
+            client.enableCreationWithUpload(size);
+        }
+
+        content = new byte[size];
+
+        resumable = newUpload();
+        resumable.setFingerprint("benchmark");
+        client.createUpload(resumable).finish();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public long createAndUpload() throws Exception {
+        TusUploader uploader = client.createUpload(newUpload());
+        while(uploader.uploadChunk() > -1) {
+        }
+        uploader.finish();
+        return uploader.getOffset();
+    }
+
+    @Benchmark
+    public long resume() throws Exception {
+        resumable.setInputStream(new ByteArrayInputStream(content));
+        TusUploader uploader = client.resumeUpload(resumable);
+        uploader.finish();
+        return uploader.getOffset();
+    }
+
+    private TusUpload newUpload() {
+        TusUpload upload = new TusUpload();
+        upload.setSize(content.length);
+        upload.setInputStream(new ByteArrayInputStream(content));
+        return upload;
+    }
+}
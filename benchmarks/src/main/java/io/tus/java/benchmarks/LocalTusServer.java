@@ -0,0 +1,102 @@
+package io.tus.java.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A minimal in-process tus server implementing the core protocol and the creation extension.
+ * Uploaded data is counted and discarded, so the benchmarks measure the client and the loopback
+ * connection only.
+ */
+public class LocalTusServer {
+    private HttpServer server;
+    private ExecutorService executor;
+    private Map<String, Long> offsets = new ConcurrentHashMap<String, Long>();
+    private AtomicLong nextId = new AtomicLong();
+
+    public LocalTusServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/files", new Handler());
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public URL getCreationURL() throws IOException {
+        return new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/files");
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private class Handler implements HttpHandler {
+        // Shared by all requests since the data is thrown away anyway, so the server does not
+        // add to the allocation rate measured in the same JVM.
+        private byte[] discard = new byte[64 * 1024];
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                String method = exchange.getRequestMethod();
+                String override = exchange.getRequestHeaders().getFirst("X-HTTP-Method-Override");
+                if(override != null) {
+                    method = override;
+                }
+
+                exchange.getResponseHeaders().set("Tus-Resumable", "1.0.0");
+                String path = exchange.getRequestURI().getPath();
+                if(method.equals("POST") && path.equals("/files")) {
+                    String id = Long.toString(nextId.incrementAndGet());
+                    long received = consume(exchange.getRequestBody());
+                    offsets.put(id, received);
+                    exchange.getResponseHeaders().set("Location", getCreationURL() + "/" + id);
+                    if(received > 0) {
+                        exchange.getResponseHeaders().set("Upload-Offset", Long.toString(received));
+                    }
+                    exchange.sendResponseHeaders(201, -1);
+                    return;
+                }
+
+                String id = path.substring(path.lastIndexOf('/') + 1);
+                Long offset = offsets.get(id);
+                if(offset == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                } else if(method.equals("HEAD")) {
+                    exchange.getResponseHeaders().set("Upload-Offset", Long.toString(offset));
+                    exchange.sendResponseHeaders(200, -1);
+                } else if(method.equals("PATCH")) {
+                    long newOffset = offset + consume(exchange.getRequestBody());
+                    offsets.put(id, newOffset);
+                    exchange.getResponseHeaders().set("Upload-Offset", Long.toString(newOffset));
+                    exchange.sendResponseHeaders(204, -1);
+                } else {
+                    exchange.sendResponseHeaders(405, -1);
+                }
+            } finally {
+                exchange.close();
+            }
+        }
+
+        private long consume(InputStream input) throws IOException {
+            long total = 0;
+            int read;
+            while((read = input.read(discard)) != -1) {
+                total += read;
+            }
+            return total;
+        }
+    }
+}
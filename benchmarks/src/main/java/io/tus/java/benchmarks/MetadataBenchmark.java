@@ -0,0 +1,68 @@
+package io.tus.java.benchmarks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.tus.java.client.TusUpload;
+
+/**
+ * Measures {@link TusUpload#getEncodedMetadata()}, including the Base64 encoding of the values,
+ * for different numbers of entries and value lengths. Since the encoded value is cached, the
+ * metadata is set again before every encoding, which also validates its keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MetadataBenchmark {
+    @Param({"1", "8", "32"})
+    public int entries;
+
+    @Param({"16", "256", "4096"})
+    public int valueLength;
+
+    private Map<String, String> metadata;
+    private TusUpload upload;
+
+    @Setup
+    public void setUp() {
+        StringBuilder value = new StringBuilder(valueLength);
+        for(int i = 0; i < valueLength; i++) {
+            value.append((char) ('a' + i % 26));
+        }
+
+        metadata = new LinkedHashMap<String, String>();
+        for(int i = 0; i < entries; i++) {
+            metadata.put("key" + i, value.toString());
+        }
+
+        upload = new TusUpload();
+        upload.setMetadata(metadata);
+    }
+
+    @Benchmark
+    public String encodeMetadata() {
+        upload.setMetadata(metadata);
+        return upload.getEncodedMetadata();
+    }
+
+    @Benchmark
+    public String cachedMetadata() {
+        return upload.getEncodedMetadata();
+    }
+}
@@ -0,0 +1,74 @@
+package io.tus.java.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.tus.java.client.TusClient;
+import io.tus.java.client.TusUpload;
+import io.tus.java.client.TusUploader;
+
+/**
+ * Measures the time needed for uploading a file of {@link #UPLOAD_SIZE} bytes using
+ * {@link TusUploader#uploadChunk()} with different chunk sizes. The throughput in bytes per
+ * second is the upload size divided by the reported time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class UploadChunkBenchmark {
+    public final static int UPLOAD_SIZE = 16 * 1024 * 1024;
+
+    @Param({"16384", "65536", "262144", "1048576", "4194304"})
+    public int chunkSize;
+
+    private LocalTusServer server;
+    private TusClient client;
+    private byte[] content;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = new LocalTusServer();
+        client = new TusClient();
+        client.setUploadCreationURL(server.getCreationURL());
+
+        content = new byte[UPLOAD_SIZE];
+        new Random(42).nextBytes(content);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public long upload() throws Exception {
+        TusUpload upload = new TusUpload();
+        upload.setSize(content.length);
+        upload.setInputStream(new ByteArrayInputStream(content));
+
+        TusUploader uploader = client.createUpload(upload);
+        uploader.setChunkSize(chunkSize);
+        while(uploader.uploadChunk() > -1) {
+        }
+        uploader.finish();
+        return uploader.getOffset();
+    }
+}
@@ -0,0 +1,91 @@
+package io.tus.java.client;
+
+/**
+ * This class calculates chunk sizes from the measured throughput of previous chunks. The chunk
+ * size is chosen so that uploading a chunk, including flushing it, takes about the target
+ * duration. Fast connections will therefore use large chunks, which require fewer writes and
+ * flushes, while slow connections use small chunks, so progress is reported and cancellation is
+ * checked regularly.
+ * <br>
+ * The throughput is smoothed using an exponentially weighted moving average and the chunk size
+ * will at most double or halve between two chunks, so single outliers do not cause large jumps.
+ */
+class AdaptiveChunkSize {
+    /**
+     * Weight of the latest measurement in the moving average.
+     */
+    private final static double SMOOTHING = 0.3;
+
+    private int minSize;
+    private int maxSize;
+    private long targetNanos;
+
+    private double bytesPerNano;
+    private int size;
+
+    /**
+     * @param minSize Lower limit for the chunk size in bytes
+     * @param maxSize Upper limit for the chunk size in bytes
+     * @param targetMillis Duration a single chunk should take to upload
+     * @param initialSize Chunk size used until the first measurement has been made
+     */
+    AdaptiveChunkSize(int minSize, int maxSize, long targetMillis, int initialSize) {
+        if(minSize <= 0 || maxSize < minSize) {
+            throw new IllegalArgumentException("invalid chunk size limits: " + minSize + " to " + maxSize);
+        }
+        if(targetMillis <= 0) {
+            throw new IllegalArgumentException("target duration must be positive");
+        }
+
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        targetNanos = targetMillis * 1000000L;
+        size = clamp(initialSize);
+    }
+
+    int getMinSize() {
+        return minSize;
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * Record the duration of an uploaded chunk and calculate the size for the next one.
+     *
+     * Chunks which are shorter than the current size, e.g. at the end of a bounded request, are
+     * measured as well since the throughput is normalised by the bytes actually sent.
+     *
+     * @param bytes Number of bytes uploaded in the chunk
+     * @param nanos Time taken for writing and flushing the chunk
+     * @return The size of the next chunk.
+     */
+    int update(long bytes, long nanos) {
+        // Empty chunks or those taking no measurable time do not tell anything about the
+        // throughput.
+        if(bytes <= 0 || nanos <= 0) {
+            return size;
+        }
+
+        double measured = (double) bytes / nanos;
+        if(bytesPerNano == 0) {
+            bytesPerNano = measured;
+        } else {
+            bytesPerNano = SMOOTHING * measured + (1 - SMOOTHING) * bytesPerNano;
+        }
+
+        double ideal = bytesPerNano * targetNanos;
+        double limited = Math.max(size / 2.0, Math.min(size * 2.0, ideal));
+        size = clamp((long) limited);
+        return size;
+    }
+
+    private int clamp(long value) {
+        return (int) Math.max(minSize, Math.min(maxSize, value));
+    }
+}
@@ -0,0 +1,309 @@
+package io.tus.java.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.zip.Checksum;
+
+/**
+ * This stream returns the data read from a stream or source compressed using a
+ * {@link TusCompressionCodec}. The data is read in blocks which are compressed on the given
+ * executor, so up to the given depth of blocks are compressed in parallel while the stream is
+ * read. Without an executor, every block is compressed on the reading thread.
+ * <br>
+ * The boundaries of all blocks returned so far are recorded, so an offset in the compressed
+ * stream can be mapped to the number of uncompressed bytes it contains.
+ */
+class CompressingInputStream extends InputStream {
+    /**
+     * A block which has been submitted for compression.
+     */
+    private static class Block {
+        final FutureTask<byte[]> task;
+        final int length;
+
+        Block(FutureTask<byte[]> task, int length) {
+            this.task = task;
+            this.length = length;
+        }
+    }
+
+    private final InputStream input;
+    private final TusSeekableSource source;
+    private final TusCompressionCodec codec;
+    private final TusBufferPool bufferPool;
+    private final int blockSize;
+    private final Executor executor;
+    private final int depth;
+    private final Checksum checksum;
+    private final Deque<Block> pending = new ArrayDeque<Block>();
+
+    private boolean started;
+    private boolean ended;
+    private boolean closed;
+    private byte[] nextBlock;
+    private int nextLength;
+    private long uncompressedLength;
+
+    private byte[] current;
+    private int position;
+
+    // Compressed and uncompressed offsets at the end of every block returned so far.
+    private long[] compressedEnds = new long[16];
+    private long[] uncompressedEnds = new long[16];
+    private int blockCount;
+    private long compressedLength;
+
+    /**
+     * Create a new stream which reads from the source if it is set or from the stream otherwise.
+     */
+    CompressingInputStream(InputStream input, TusSeekableSource source, TusCompressionCodec codec, TusBufferPool bufferPool, int blockSize, Executor executor, int depth) {
+        this.input = input;
+        this.source = source;
+        this.codec = codec;
+        this.bufferPool = bufferPool;
+        this.blockSize = blockSize;
+        this.executor = executor;
+        this.depth = executor == null ? 1 : depth;
+        checksum = codec.newChecksum();
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if(len == 0) {
+            return 0;
+        }
+        if(!fill()) {
+            return -1;
+        }
+
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    /**
+     * Skip bytes without copying them. The skipped blocks still have to be compressed.
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while(skipped < n && fill()) {
+            int k = (int) Math.min(n - skipped, current.length - position);
+            position += k;
+            skipped += k;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return current == null ? 0 : current.length - position;
+    }
+
+    /**
+     * Make sure the current array has remaining bytes.
+     *
+     * @return False if the end of the compressed stream has been reached.
+     */
+    private boolean fill() throws IOException {
+        if(closed) {
+            throw new IOException("stream has been closed");
+        }
+        while(current == null || position == current.length) {
+            byte[] next = advance();
+            if(next == null) {
+                return false;
+            }
+            current = next;
+            position = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Get the next part of the compressed stream: the header, a block or the trailer.
+     *
+     * @return The part or <code>null</code> at the end of the stream.
+     */
+    private byte[] advance() throws IOException {
+        if(!started) {
+            started = true;
+            nextBlock = bufferPool.acquire(blockSize);
+            nextLength = readFully(nextBlock);
+            byte[] header = codec.header();
+            record(0, header.length);
+            return header;
+        }
+
+        submitBlocks();
+        Block block = pending.poll();
+        if(block != null) {
+            byte[] compressed = await(block.task);
+            record(block.length, compressed.length);
+            return compressed;
+        }
+
+        if(!ended) {
+            ended = true;
+            byte[] trailer = codec.trailer(checksum, uncompressedLength);
+            record(0, trailer.length);
+            return trailer;
+        }
+        return null;
+    }
+
+    /**
+     * Read and submit blocks until the given depth of blocks is pending. The block following
+     * the submitted one is always read first to find out whether it is the last one.
+     */
+    private void submitBlocks() throws IOException {
+        while(nextBlock != null && pending.size() < depth) {
+            final byte[] data = nextBlock;
+            final int length = nextLength;
+            if(checksum != null) {
+                checksum.update(data, 0, length);
+            }
+            uncompressedLength += length;
+
+            byte[] following = bufferPool.acquire(blockSize);
+            int followingLength = readFully(following);
+            final boolean last = followingLength == 0;
+            if(last) {
+                bufferPool.release(following);
+                nextBlock = null;
+            } else {
+                nextBlock = following;
+                nextLength = followingLength;
+            }
+
+            FutureTask<byte[]> task = new FutureTask<byte[]>(new Callable<byte[]>() {
+                @Override
+                public byte[] call() {
+                    try {
+                        return codec.compressBlock(data, 0, length, last);
+                    } finally {
+                        bufferPool.release(data);
+                    }
+                }
+            });
+            pending.add(new Block(task, length));
+            if(executor == null) {
+                task.run();
+            } else {
+                executor.execute(task);
+            }
+        }
+    }
+
+    private byte[] await(FutureTask<byte[]> task) throws IOException {
+        try {
+            return task.get();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for compressed block");
+        } catch(ExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("compressing block failed", cause);
+        }
+    }
+
+    private int readFully(byte[] buffer) throws IOException {
+        int length = 0;
+        while(length < blockSize) {
+            int read = source != null ? source.read(buffer, length, blockSize - length) : input.read(buffer, length, blockSize - length);
+            if(read == -1) {
+                break;
+            }
+            length += read;
+        }
+        return length;
+    }
+
+    private synchronized void record(int uncompressed, int compressed) {
+        if(blockCount == compressedEnds.length) {
+            compressedEnds = Arrays.copyOf(compressedEnds, blockCount * 2);
+            uncompressedEnds = Arrays.copyOf(uncompressedEnds, blockCount * 2);
+        }
+        long uncompressedEnd = blockCount == 0 ? 0 : uncompressedEnds[blockCount - 1];
+        compressedLength += compressed;
+        compressedEnds[blockCount] = compressedLength;
+        uncompressedEnds[blockCount] = uncompressedEnd + uncompressed;
+        blockCount++;
+    }
+
+    /**
+     * Get the number of uncompressed bytes contained entirely in the given number of
+     * compressed bytes. This method can be called from any thread.
+     *
+     * @param compressedOffset Offset in the compressed stream
+     * @return The number of uncompressed bytes of all blocks ending at or before the offset.
+     */
+    synchronized long uncompressedOffset(long compressedOffset) {
+        int index = Arrays.binarySearch(compressedEnds, 0, blockCount, compressedOffset);
+        if(index < 0) {
+            // The offset lies within the block at the insertion point.
+            index = -index - 2;
+        } else {
+            // Blocks compressed to empty arrays share their end, so take the last of them.
+            while(index + 1 < blockCount && compressedEnds[index + 1] == compressedOffset) {
+                index++;
+            }
+        }
+        return index < 0 ? 0 : uncompressedEnds[index];
+    }
+
+    /**
+     * Get the number of uncompressed bytes which have been read so far.
+     */
+    synchronized long getUncompressedLength() {
+        return blockCount == 0 ? 0 : uncompressedEnds[blockCount - 1];
+    }
+
+    /**
+     * Get the number of compressed bytes which have been produced so far.
+     */
+    synchronized long getCompressedLength() {
+        return compressedLength;
+    }
+
+    /**
+     * Close the stream and the underlying stream or source. Blocks which are still being
+     * compressed return their buffers once they are done.
+     */
+    @Override
+    public void close() throws IOException {
+        if(closed) {
+            return;
+        }
+        closed = true;
+        pending.clear();
+        if(nextBlock != null) {
+            bufferPool.release(nextBlock);
+            nextBlock = null;
+        }
+
+        if(source != null) {
+            source.close();
+        } else if(input != null) {
+            input.close();
+        }
+    }
+}
@@ -5,7 +5,24 @@ package io.tus.java.client;
  * missing/invalid headers.
  */
 public class ProtocolException extends Exception {
+    private int statusCode = -1;
+
     public ProtocolException(String message) {
         super(message);
     }
+
+    public ProtocolException(String message, int statusCode) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Get the status code of the response which caused this exception.
+     *
+     * @return The unexpected status code or -1 if the exception was caused by missing or invalid
+     * headers.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
 }
@@ -0,0 +1,177 @@
+package io.tus.java.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * This class reads chunks on a background thread into buffers borrowed from a
+ * {@link TusBufferPool}, so the next chunks are read while the current one is written to the
+ * network. At most the queue depth of chunks is read ahead.
+ */
+class ReadAheadReader implements Runnable {
+    /**
+     * A chunk which has been read ahead. The end of the data is signaled by a chunk without a
+     * buffer and a failure by a chunk with an exception.
+     */
+    static class Chunk {
+        final byte[] buffer;
+        final int length;
+        final IOException failure;
+
+        Chunk(byte[] buffer, int length, IOException failure) {
+            this.buffer = buffer;
+            this.length = length;
+            this.failure = failure;
+        }
+    }
+
+    private final InputStream input;
+    private final TusSeekableSource source;
+    private final TusBufferPool bufferPool;
+    private final BlockingQueue<Chunk> queue;
+    private volatile int chunkSize;
+    private volatile boolean closed;
+    private Thread thread;
+    private boolean ended;
+
+    /**
+     * Create a new reader which reads from the source if it is set or from the stream otherwise.
+     */
+    ReadAheadReader(InputStream input, TusSeekableSource source, TusBufferPool bufferPool, int depth, int chunkSize) {
+        this.input = input;
+        this.source = source;
+        this.bufferPool = bufferPool;
+        this.chunkSize = chunkSize;
+        queue = new ArrayBlockingQueue<Chunk>(depth);
+    }
+
+    void start() {
+        thread = new Thread(this, "tus-read-ahead");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Set the size of the chunks read afterwards. Chunks which have already been read keep
+     * their size.
+     */
+    void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Wait for the next chunk. The chunk's buffer must be returned to the pool by the caller.
+     *
+     * @return The chunk or <code>null</code> if the end of the data has been reached.
+     * @throws IOException Thrown if reading has failed or the thread has been interrupted.
+     */
+    Chunk take() throws IOException {
+        if(ended) {
+            return null;
+        }
+
+        Chunk chunk;
+        try {
+            chunk = queue.take();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for data to be read");
+        }
+
+        if(chunk.failure != null) {
+            ended = true;
+            throw chunk.failure;
+        }
+        if(chunk.buffer == null) {
+            ended = true;
+            return null;
+        }
+        return chunk;
+    }
+
+    /**
+     * Stop reading and return the buffers of all chunks which have not been taken. This does not
+     * close the underlying stream or source.
+     */
+    void close() {
+        closed = true;
+        if(thread != null) {
+            thread.interrupt();
+        }
+        drain();
+    }
+
+    private void drain() {
+        Chunk chunk;
+        while((chunk = queue.poll()) != null) {
+            if(chunk.buffer != null) {
+                bufferPool.release(chunk.buffer);
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while(!closed) {
+                int size = chunkSize;
+                byte[] buffer = bufferPool.acquire(size);
+                Chunk chunk;
+                try {
+                    int length = readFully(buffer, size);
+                    chunk = length > 0 ? new Chunk(buffer, length, null) : new Chunk(null, 0, null);
+                } catch(IOException e) {
+                    chunk = new Chunk(null, 0, e);
+                }
+                if(chunk.buffer == null) {
+                    bufferPool.release(buffer);
+                }
+
+                if(!put(chunk) || chunk.buffer == null) {
+                    return;
+                }
+            }
+        } finally {
+            if(closed) {
+                // Chunks may have been added after the queue has been drained by close().
+                drain();
+            }
+        }
+    }
+
+    /**
+     * Wait until the chunk can be added to the queue.
+     *
+     * @return False if the reader has been closed while waiting.
+     */
+    private boolean put(Chunk chunk) {
+        try {
+            queue.put(chunk);
+            return true;
+        } catch(InterruptedException e) {
+            if(chunk.buffer != null) {
+                bufferPool.release(chunk.buffer);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Read until the buffer contains the given number of bytes or the end of the data has been
+     * reached, so slow storage returning short reads still produces full chunks.
+     */
+    private int readFully(byte[] buffer, int size) throws IOException {
+        int length = 0;
+        while(length < size) {
+            int read = source != null ? source.read(buffer, length, size - length) : input.read(buffer, length, size - length);
+            if(read == -1) {
+                break;
+            }
+            length += read;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,61 @@
+package io.tus.java.client;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * This stream writes to the underlying stream in slices, each of which must be permitted by the
+ * rate limiters of an uploader and its client first. Without limiters, data is written at once.
+ */
+class ThrottledOutputStream extends FilterOutputStream {
+    /**
+     * Maximum number of bytes written after a single permission. Small slices allow uploads
+     * sharing a limiter to take turns.
+     */
+    final static int SLICE_SIZE = 16 * 1024;
+
+    private TusRateLimiter uploadLimiter;
+    private TusRateLimiter clientLimiter;
+
+    ThrottledOutputStream(OutputStream output, TusRateLimiter uploadLimiter, TusRateLimiter clientLimiter) {
+        super(output);
+        this.uploadLimiter = uploadLimiter;
+        this.clientLimiter = clientLimiter;
+    }
+
+    void setUploadLimiter(TusRateLimiter uploadLimiter) {
+        this.uploadLimiter = uploadLimiter;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        acquire(1);
+        out.write(b);
+    }
+
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException {
+        if(uploadLimiter == null && clientLimiter == null) {
+            out.write(buffer, offset, length);
+            return;
+        }
+
+        while(length > 0) {
+            int slice = Math.min(length, SLICE_SIZE);
+            acquire(slice);
+            out.write(buffer, offset, slice);
+            offset += slice;
+            length -= slice;
+        }
+    }
+
+    private void acquire(int bytes) throws IOException {
+        if(uploadLimiter != null) {
+            uploadLimiter.acquire(bytes);
+        }
+        if(clientLimiter != null) {
+            clientLimiter.acquire(bytes);
+        }
+    }
+}
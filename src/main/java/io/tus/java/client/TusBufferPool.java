@@ -0,0 +1,262 @@
+package io.tus.java.client;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class keeps buffers for reading chunks, so they can be shared by all uploaders instead of
+ * every uploader allocating its own. Buffers are grouped into size classes which are powers of
+ * two between the minimum and maximum size. A request is served by the smallest class which is
+ * large enough, so the returned buffer may be larger than requested. Requests larger than the
+ * maximum size are allocated separately and not kept after being released.
+ * <br>
+ * Released buffers are kept until the retained bytes reach the configured limit, after which
+ * further released buffers are left to the garbage collector. Heap arrays and direct buffers
+ * (used by {@link TusNioEngine}) are kept separately but count towards the same limit.
+ * <br>
+ * By default, all clients share the pool returned by {@link #getDefault()}. Use
+ * {@link TusClient#setBufferPool(TusBufferPool)} to use another one.
+ */
+public class TusBufferPool {
+    private static final TusBufferPool DEFAULT = new TusBufferPool(16 * 1024, 32 * 1024 * 1024, 64 * 1024 * 1024);
+
+    private final int minSize;
+    private final int maxSize;
+    private final long maxRetainedBytes;
+    private final ConcurrentLinkedQueue<byte[]>[] arrays;
+    private final ConcurrentLinkedQueue<ByteBuffer>[] directBuffers;
+
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong allocationCount = new AtomicLong();
+    private final AtomicLong discardCount = new AtomicLong();
+    private final AtomicLong bytesInUse = new AtomicLong();
+    private final AtomicLong peakBytesInUse = new AtomicLong();
+    private final AtomicLong retainedBytes = new AtomicLong();
+
+    /**
+     * Create a new pool.
+     *
+     * @param minSize Size of the smallest class in bytes, must be a power of two
+     * @param maxSize Size of the largest class in bytes, must be a power of two
+     * @param maxRetainedBytes Upper limit for the size of all buffers kept for reuse
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TusBufferPool(int minSize, int maxSize, long maxRetainedBytes) {
+        if(minSize <= 0 || Integer.bitCount(minSize) != 1 || Integer.bitCount(maxSize) != 1 || maxSize < minSize) {
+            throw new IllegalArgumentException("sizes must be powers of two with minSize <= maxSize");
+        }
+        if(maxRetainedBytes < 0) {
+            throw new IllegalArgumentException("maximum number of retained bytes must not be negative");
+        }
+
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.maxRetainedBytes = maxRetainedBytes;
+
+        int classes = Integer.numberOfTrailingZeros(maxSize) - Integer.numberOfTrailingZeros(minSize) + 1;
+        arrays = new ConcurrentLinkedQueue[classes];
+        directBuffers = new ConcurrentLinkedQueue[classes];
+        for(int i = 0; i < classes; i++) {
+            arrays[i] = new ConcurrentLinkedQueue<byte[]>();
+            directBuffers[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+        }
+    }
+
+    /**
+     * Get the pool shared by all clients unless another one has been set. It uses classes from
+     * 16 KiB to 32 MiB and keeps up to 64 MiB for reuse.
+     *
+     * @return The default pool.
+     */
+    public static TusBufferPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Borrow an array of at least the given size. It must be returned using
+     * {@link #release(byte[])} once it is not used anymore.
+     *
+     * @param size Minimum size in bytes
+     * @return An array which may contain data from its previous use.
+     */
+    public byte[] acquire(int size) {
+        int index = classIndex(size);
+        byte[] buffer = index == -1 ? null : arrays[index].poll();
+        if(buffer != null) {
+            retainedBytes.addAndGet(-buffer.length);
+        } else {
+            buffer = new byte[index == -1 ? size : classSize(index)];
+            allocationCount.incrementAndGet();
+        }
+
+        acquired(buffer.length);
+        return buffer;
+    }
+
+    /**
+     * Return an array borrowed using {@link #acquire(int)}. The array must not be used afterwards.
+     *
+     * @param buffer The returned array
+     */
+    public void release(byte[] buffer) {
+        bytesInUse.addAndGet(-buffer.length);
+        int index = classIndex(buffer.length);
+        if(index != -1 && classSize(index) == buffer.length && retain(buffer.length)) {
+            arrays[index].add(buffer);
+        } else {
+            discardCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Borrow a direct buffer of at least the given size. It must be returned using
+     * {@link #releaseDirect(ByteBuffer)} once it is not used anymore.
+     *
+     * @param size Minimum capacity in bytes
+     * @return A cleared buffer whose limit is its capacity.
+     */
+    public ByteBuffer acquireDirect(int size) {
+        int index = classIndex(size);
+        ByteBuffer buffer = index == -1 ? null : directBuffers[index].poll();
+        if(buffer != null) {
+            retainedBytes.addAndGet(-buffer.capacity());
+            buffer.clear();
+        } else {
+            buffer = ByteBuffer.allocateDirect(index == -1 ? size : classSize(index));
+            allocationCount.incrementAndGet();
+        }
+
+        acquired(buffer.capacity());
+        return buffer;
+    }
+
+    /**
+     * Return a buffer borrowed using {@link #acquireDirect(int)}. The buffer must not be used
+     * afterwards.
+     *
+     * @param buffer The returned buffer
+     */
+    public void releaseDirect(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        bytesInUse.addAndGet(-capacity);
+        int index = classIndex(capacity);
+        if(index != -1 && classSize(index) == capacity && retain(capacity)) {
+            directBuffers[index].add(buffer);
+        } else {
+            discardCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Get the index of the smallest class holding the given size.
+     *
+     * @return The index or -1 if the size exceeds the largest class.
+     */
+    private int classIndex(int size) {
+        if(size > maxSize) {
+            return -1;
+        }
+        if(size <= minSize) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - Integer.numberOfTrailingZeros(minSize);
+    }
+
+    private int classSize(int index) {
+        return minSize << index;
+    }
+
+    private void acquired(int size) {
+        acquireCount.incrementAndGet();
+        long inUse = bytesInUse.addAndGet(size);
+        long peak;
+        while(inUse > (peak = peakBytesInUse.get()) && !peakBytesInUse.compareAndSet(peak, inUse)) {
+            // Try again with the updated peak.
+        }
+    }
+
+    /**
+     * Reserve space for keeping a released buffer.
+     *
+     * @return True if the buffer can be kept without exceeding the limit.
+     */
+    private boolean retain(int size) {
+        long retained;
+        do {
+            retained = retainedBytes.get();
+            if(retained + size > maxRetainedBytes) {
+                return false;
+            }
+        } while(!retainedBytes.compareAndSet(retained, retained + size));
+        return true;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getMaxRetainedBytes() {
+        return maxRetainedBytes;
+    }
+
+    /**
+     * Get the number of buffers which have been borrowed in total.
+     *
+     * @return Number of calls to {@link #acquire(int)} and {@link #acquireDirect(int)}.
+     */
+    public long getAcquireCount() {
+        return acquireCount.get();
+    }
+
+    /**
+     * Get the number of buffers which had to be allocated because no released buffer of the
+     * matching class was available.
+     *
+     * @return Number of allocated buffers.
+     */
+    public long getAllocationCount() {
+        return allocationCount.get();
+    }
+
+    /**
+     * Get the number of released buffers which have not been kept because the limit for retained
+     * bytes has been reached or their size does not match a class.
+     *
+     * @return Number of discarded buffers.
+     */
+    public long getDiscardCount() {
+        return discardCount.get();
+    }
+
+    /**
+     * Get the size of all buffers which are currently borrowed.
+     *
+     * @return Number of bytes in use.
+     */
+    public long getBytesInUse() {
+        return bytesInUse.get();
+    }
+
+    /**
+     * Get the highest value of {@link #getBytesInUse()} since the pool has been created.
+     *
+     * @return Peak number of bytes in use.
+     */
+    public long getPeakBytesInUse() {
+        return peakBytesInUse.get();
+    }
+
+    /**
+     * Get the size of all buffers which are kept for reuse.
+     *
+     * @return Number of retained bytes.
+     */
+    public long getRetainedBytes() {
+        return retainedBytes.get();
+    }
+}
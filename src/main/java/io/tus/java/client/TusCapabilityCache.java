@@ -0,0 +1,165 @@
+package io.tus.java.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class keeps the capabilities discovered for upload creation URLs, so they are requested
+ * only once per endpoint instead of once per upload. Entries expire after the configured time,
+ * after which the next upload discovers the capabilities again. Uploads which need the
+ * capabilities of an endpoint while they are being discovered wait for that discovery instead
+ * of sending their own OPTIONS request.
+ * <br>
+ * By default, all clients share the cache returned by {@link #getDefault()}. Use
+ * {@link TusClient#enableCapabilityDiscovery(TusCapabilityCache)} to use another one.
+ */
+public class TusCapabilityCache {
+    private static final TusCapabilityCache DEFAULT = new TusCapabilityCache(5 * 60 * 1000);
+
+    private static class Entry {
+        final TusServerCapabilities capabilities;
+        final long expires;
+
+        Entry(TusServerCapabilities capabilities, long expires) {
+            this.capabilities = capabilities;
+            this.expires = expires;
+        }
+    }
+
+    private final long ttlMillis;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private final ConcurrentHashMap<String, FutureTask<TusServerCapabilities>> discoveries = new ConcurrentHashMap<String, FutureTask<TusServerCapabilities>>();
+
+    /**
+     * Create a new cache.
+     *
+     * @param ttlMillis Time in milliseconds for which discovered capabilities are used
+     */
+    public TusCapabilityCache(long ttlMillis) {
+        if(ttlMillis < 0) {
+            throw new IllegalArgumentException("time to live must not be negative");
+        }
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Get the cache shared by all clients unless another one has been set. Its entries expire
+     * after five minutes.
+     *
+     * @return The default cache.
+     */
+    public static TusCapabilityCache getDefault() {
+        return DEFAULT;
+    }
+
+    public long getTTLMillis() {
+        return ttlMillis;
+    }
+
+    /**
+     * Get the capabilities stored for an endpoint.
+     *
+     * @param url The upload creation URL
+     * @return The capabilities or <code>null</code> if none are stored or they have expired.
+     */
+    public TusServerCapabilities get(URL url) {
+        String key = url.toString();
+        Entry entry = entries.get(key);
+        if(entry == null) {
+            return null;
+        }
+        if(System.nanoTime() - entry.expires >= 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.capabilities;
+    }
+
+    /**
+     * Get the capabilities stored for an endpoint or discover them using the client if none are
+     * stored. Only one discovery per endpoint is running at a time, so concurrent callers wait
+     * for its result. A failed discovery is not stored and fails all callers waiting for it.
+     *
+     * @param url The upload creation URL
+     * @param client The client used for sending the OPTIONS request
+     * @return The capabilities.
+     * @throws ProtocolException Thrown if the remote server sent invalid headers.
+     * @throws IOException Thrown if an exception occurs while issuing the HTTP request.
+     */
+    TusServerCapabilities getOrDiscover(final URL url, final TusClient client) throws ProtocolException, IOException {
+        TusServerCapabilities capabilities = get(url);
+        if(capabilities != null) {
+            return capabilities;
+        }
+
+        String key = url.toString();
+        FutureTask<TusServerCapabilities> task = new FutureTask<TusServerCapabilities>(new Callable<TusServerCapabilities>() {
+            @Override
+            public TusServerCapabilities call() throws Exception {
+                // Another discovery may have finished since the cache has been checked.
+                TusServerCapabilities capabilities = get(url);
+                if(capabilities == null) {
+                    capabilities = client.discoverCapabilities(url);
+                    put(url, capabilities);
+                }
+                return capabilities;
+            }
+        });
+        FutureTask<TusServerCapabilities> running = discoveries.putIfAbsent(key, task);
+        if(running == null) {
+            running = task;
+            try {
+                task.run();
+            } finally {
+                discoveries.remove(key, task);
+            }
+        }
+
+        try {
+            return running.get();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for capability discovery");
+        } catch(ExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof ProtocolException) {
+                throw (ProtocolException) cause;
+            } else if(cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Store the capabilities discovered for an endpoint.
+     *
+     * @param url The upload creation URL
+     * @param capabilities The discovered capabilities
+     */
+    public void put(URL url, TusServerCapabilities capabilities) {
+        long expires = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        entries.put(url.toString(), new Entry(capabilities, expires));
+    }
+
+    /**
+     * Remove the capabilities stored for an endpoint, e.g. after the server has been updated.
+     *
+     * @param url The upload creation URL
+     */
+    public void remove(URL url) {
+        entries.remove(url.toString());
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,60 @@
+package io.tus.java.client;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The algorithms which can be used for calculating the Upload-Checksum header of the tus
+ * Checksum extension. See {@link TusClient#setChecksumAlgorithm(TusChecksumAlgorithm)}.
+ */
+public enum TusChecksumAlgorithm {
+    SHA1("sha1"),
+    MD5("md5"),
+    CRC32C("crc32c");
+
+    private final String name;
+
+    TusChecksumAlgorithm(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get the name of the algorithm as used in the Upload-Checksum and Tus-Checksum-Algorithm
+     * headers.
+     *
+     * @return The algorithm's name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Calculate the value of the Upload-Checksum header for a part of a buffer.
+     *
+     * @param buffer The buffer containing the request's body
+     * @param offset Index of the first byte in the buffer
+     * @param length Number of bytes in the request's body
+     * @return The algorithm's name followed by the Base64-encoded checksum.
+     */
+    String headerValue(byte[] buffer, int offset, int length) {
+        byte[] checksum;
+        if(this == CRC32C) {
+            Crc32c crc = new Crc32c();
+            crc.update(buffer, offset, length);
+            long value = crc.getValue();
+            checksum = new byte[] {(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+        } else {
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance(this == SHA1 ? "SHA-1" : "MD5");
+            } catch(NoSuchAlgorithmException e) {
+                // Every Java platform is required to support SHA-1 and MD5.
+                throw new IllegalStateException(e);
+            }
+            digest.update(buffer, offset, length);
+            checksum = digest.digest();
+        }
+
+        return name + " " + TusUpload.base64Encode(checksum);
+    }
+}
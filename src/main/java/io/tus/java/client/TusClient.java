@@ -1,9 +1,27 @@
 package io.tus.java.client;
 
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * This class is used for creating or resuming uploads.
@@ -17,7 +35,20 @@ public class TusClient {
 
     private URL uploadCreationURL;
     private boolean resumingEnabled;
+    private boolean removeFingerprintOnSuccess;
+    private int creationWithUploadSize;
     private TusURLStore urlStore;
+    private TusTransport transport = new TusKeepAliveTransport();
+    private ExecutorService executor;
+    private TusRetryPolicy retryPolicy;
+    private TusChecksumAlgorithm checksumAlgorithm;
+    private long maxRequestBytes;
+    private long maxRequestMillis;
+    private int readAheadDepth;
+    private TusInstrumentation instrumentation = new TusInstrumentation();
+    private TusRateLimiter rateLimiter;
+    private TusBufferPool bufferPool = TusBufferPool.getDefault();
+    private TusCapabilityCache capabilityCache;
 
     /**
      * Create a new tus client.
@@ -46,6 +77,328 @@ public class TusClient {
         return uploadCreationURL;
     }
 
+    /**
+     * Set the transport used for opening and releasing the HTTP connections of all requests
+     * issued by this client and its uploaders. By default, a {@link TusKeepAliveTransport} is
+     * used which reuses connections to the same server.
+     *
+     * @param transport The new transport
+     */
+    public void setTransport(TusTransport transport) {
+        this.transport = transport;
+    }
+
+    public TusTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Set the policy used by all uploaders returned afterwards for retrying failed requests. By
+     * default, no requests are retried.
+     *
+     * @param retryPolicy The new policy or <code>null</code> to disable retries
+     * @see TusUploader#setRetryPolicy(TusRetryPolicy)
+     */
+    public void setRetryPolicy(TusRetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public TusRetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Enable the tus Checksum extension for all uploaders returned afterwards. Every chunk will be
+     * sent in a separate PATCH request with a fixed length and an Upload-Checksum header, so the
+     * server can verify each chunk before appending it. If the server responds with 460 Checksum
+     * Mismatch, only the affected chunk is sent again according to the retry policy (see
+     * {@link #setRetryPolicy(TusRetryPolicy)}).
+     * <br>
+     * Since the header has to be sent before the request's body, each chunk is read into a buffer
+     * of the chunk size even if the data is read from a {@link TusSeekableSource}.
+     *
+     * @param checksumAlgorithm The algorithm or <code>null</code> to disable checksums
+     */
+    public void setChecksumAlgorithm(TusChecksumAlgorithm checksumAlgorithm) {
+        this.checksumAlgorithm = checksumAlgorithm;
+    }
+
+    public TusChecksumAlgorithm getChecksumAlgorithm() {
+        return checksumAlgorithm;
+    }
+
+    /**
+     * Limit the PATCH requests of all uploaders returned afterwards, so the server commits the
+     * offset regularly instead of only once the upload has been finished.
+     *
+     * @param maxBytes Maximum number of bytes sent in a single request
+     * @param maxMillis Duration a single request should take in milliseconds or 0 for no limit
+     * @see TusUploader#enableBoundedRequests(long, long)
+     */
+    public void enableBoundedRequests(long maxBytes, long maxMillis) {
+        if(maxBytes <= 0 || maxMillis < 0) {
+            throw new IllegalArgumentException("invalid request limits");
+        }
+        maxRequestBytes = maxBytes;
+        maxRequestMillis = maxMillis;
+    }
+
+    /**
+     * Send all data of an upload in a single PATCH request. This is the default.
+     */
+    public void disableBoundedRequests() {
+        maxRequestBytes = 0;
+        maxRequestMillis = 0;
+    }
+
+    /**
+     * Get the current status of bounded requests.
+     *
+     * @return True if enabled using {@link #enableBoundedRequests(long, long)}
+     */
+    public boolean boundedRequestsEnabled() {
+        return maxRequestBytes > 0;
+    }
+
+    public long getMaxRequestBytes() {
+        return maxRequestBytes;
+    }
+
+    public long getMaxRequestMillis() {
+        return maxRequestMillis;
+    }
+
+    /**
+     * Read the next chunks on a background thread while the current one is written for all
+     * uploaders returned afterwards.
+     *
+     * @param depth Maximum number of chunks read ahead, 0 to disable read-ahead
+     * @see TusUploader#enableReadAhead(int)
+     */
+    public void enableReadAhead(int depth) {
+        if(depth < 0) {
+            throw new IllegalArgumentException("read-ahead depth must not be negative");
+        }
+        readAheadDepth = depth;
+    }
+
+    public int getReadAheadDepth() {
+        return readAheadDepth;
+    }
+
+    /**
+     * Set the instrumentation which receives measurements about the requests issued by this
+     * client and the uploaders returned afterwards.
+     *
+     * @param instrumentation The new instrumentation or <code>null</code> to disable it
+     */
+    public void setInstrumentation(TusInstrumentation instrumentation) {
+        this.instrumentation = instrumentation == null ? new TusInstrumentation() : instrumentation;
+    }
+
+    public TusInstrumentation getInstrumentation() {
+        return instrumentation;
+    }
+
+    /**
+     * Limit the rate at which this client and the uploaders returned afterwards write data. Use
+     * the same limiter for multiple clients to limit their combined rate. The rate can be changed
+     * later using {@link TusRateLimiter#setRate(long)}.
+     *
+     * @param rateLimiter The limiter or <code>null</code> for no limit
+     * @see TusUploader#setRateLimiter(TusRateLimiter)
+     */
+    public void setRateLimiter(TusRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    public TusRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Set the pool from which the uploaders returned afterwards borrow their chunk buffers. A
+     * buffer is only borrowed while a chunk is read and sent, so the memory used scales with the
+     * number of chunks in flight instead of the number of uploaders.
+     *
+     * @param bufferPool The pool or <code>null</code> to use {@link TusBufferPool#getDefault()}
+     */
+    public void setBufferPool(TusBufferPool bufferPool) {
+        this.bufferPool = bufferPool == null ? TusBufferPool.getDefault() : bufferPool;
+    }
+
+    public TusBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Discover the capabilities of the server using an OPTIONS request before creating uploads
+     * and keep them in {@link TusCapabilityCache#getDefault()}. Uploads which the server would
+     * reject, e.g. because they exceed its maximum size or require an unsupported extension, fail
+     * before any request for creating them is sent, and creation-with-upload (see
+     * {@link #enableCreationWithUpload(int)}) is only used if the server supports it. If the
+     * server does not support the checksum algorithm (see
+     * {@link #setChecksumAlgorithm(TusChecksumAlgorithm)}), the fastest one it supports is used
+     * instead, and {@link TusParallelUploader} falls back to a single upload if the server does
+     * not support the concatenation extension.
+     */
+    public void enableCapabilityDiscovery() {
+        enableCapabilityDiscovery(TusCapabilityCache.getDefault());
+    }
+
+    /**
+     * Discover the capabilities of the server as done by {@link #enableCapabilityDiscovery()}
+     * and keep them in the given cache.
+     *
+     * @param cache The cache used for storing discovered capabilities
+     */
+    public void enableCapabilityDiscovery(TusCapabilityCache cache) {
+        if(cache == null) {
+            throw new IllegalArgumentException("cache must not be null");
+        }
+        capabilityCache = cache;
+    }
+
+    /**
+     * Create uploads without discovering the server's capabilities first.
+     *
+     * @see #enableCapabilityDiscovery()
+     */
+    public void disableCapabilityDiscovery() {
+        capabilityCache = null;
+    }
+
+    /**
+     * Get the current status of capability discovery.
+     *
+     * @return True if enabled using {@link #enableCapabilityDiscovery()}
+     */
+    public boolean capabilityDiscoveryEnabled() {
+        return capabilityCache != null;
+    }
+
+    /**
+     * Get the capabilities of the server behind the upload creation URL. If capability discovery
+     * has been enabled, capabilities which have not expired are taken from the cache. Otherwise,
+     * an OPTIONS request is issued. Concurrent uploads to the same endpoint share a single
+     * discovery. Servers which reject the request are assumed to be unknown
+     * (see {@link TusServerCapabilities#isDiscovered()}).
+     *
+     * @return The server's capabilities.
+     * @throws ProtocolException Thrown if the remote server sent invalid headers.
+     * @throws IOException Thrown if an exception occurs while issuing the HTTP request.
+     */
+    public TusServerCapabilities getServerCapabilities() throws ProtocolException, IOException {
+        TusCapabilityCache cache = capabilityCache;
+        if(cache == null) {
+            return discoverCapabilities(uploadCreationURL);
+        }
+        return cache.getOrDiscover(uploadCreationURL, this);
+    }
+
+    TusServerCapabilities discoverCapabilities(URL url) throws ProtocolException, IOException {
+        long start = System.nanoTime();
+        HttpURLConnection connection = openConnection(url);
+        try {
+            connection.setRequestMethod("OPTIONS");
+            prepareConnection(connection);
+            instrumentation.requestStarted("OPTIONS", connection);
+
+            connection.connect();
+
+            int responseCode = readResponseCode(connection, "OPTIONS", start);
+            if(!(responseCode >= 200 && responseCode < 300)) {
+                return new TusServerCapabilities(null, null, null, null);
+            }
+
+            return new TusServerCapabilities(
+                    connection.getHeaderField("Tus-Version"),
+                    connection.getHeaderField("Tus-Extension"),
+                    connection.getHeaderField("Tus-Max-Size"),
+                    connection.getHeaderField("Tus-Checksum-Algorithm"));
+        } finally {
+            releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Make sure the server is able to accept an upload before creating it.
+     *
+     * @param capabilities The server's capabilities
+     * @param upload The upload which will be created
+     * @throws ProtocolException Thrown if the server does not support the upload.
+     */
+    private void checkCapabilities(TusServerCapabilities capabilities, TusUpload upload) throws ProtocolException {
+        if(!capabilities.isDiscovered()) {
+            return;
+        }
+
+        if(!capabilities.supportsVersion(TUS_VERSION)) {
+            throw new ProtocolException("server does not support tus version " + TUS_VERSION + " (supported: " + capabilities.getVersions() + ")");
+        }
+        requireExtension(capabilities, "creation");
+        if(upload.isSizeDeferred()) {
+            requireExtension(capabilities, "creation-defer-length");
+        } else if(capabilities.getMaxSize() >= 0 && upload.getSize() > capabilities.getMaxSize()) {
+            throw new ProtocolException("upload size (" + upload.getSize() + " bytes) exceeds the server's maximum size (" + capabilities.getMaxSize() + " bytes)");
+        }
+        if(upload.isPartial()) {
+            requireExtension(capabilities, "concatenation");
+        }
+    }
+
+    /**
+     * Choose the checksum algorithm for an upload. If the server does not support the client's
+     * algorithm, the fastest one it supports is used instead, or none at all.
+     *
+     * @param capabilities The server's capabilities or <code>null</code> if they are unknown
+     * @return The algorithm or <code>null</code> if no checksums will be sent.
+     */
+    private TusChecksumAlgorithm checksumAlgorithmFor(TusServerCapabilities capabilities) {
+        TusChecksumAlgorithm algorithm = checksumAlgorithm;
+        if(algorithm == null || capabilities == null || !capabilities.isDiscovered() || capabilities.supportsChecksumAlgorithm(algorithm)) {
+            return algorithm;
+        }
+        return capabilities.getFastestChecksumAlgorithm();
+    }
+
+    private static void requireExtension(TusServerCapabilities capabilities, String extension) throws ProtocolException {
+        if(!capabilities.supportsExtension(extension)) {
+            throw new ProtocolException("server does not support the " + extension + " extension");
+        }
+    }
+
+    /**
+     * Set the executor which runs the uploads started using {@link #uploadAsync}. If none is set,
+     * a cached thread pool with daemon threads is created on first use. Since every upload
+     * occupies its thread while blocking on I/O, executors running lightweight threads, such as
+     * virtual threads, allow a much larger number of concurrent uploads.
+     *
+     * @param executor The executor used for asynchronous uploads
+     */
+    public synchronized void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Get the executor used for asynchronous uploads.
+     *
+     * @return The executor set using {@link #setExecutor(ExecutorService)} or the default one.
+     */
+    public synchronized ExecutorService getExecutor() {
+        if(executor == null) {
+            executor = Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "tus-upload");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+
     /**
      * Enable resuming already started uploads. This step is required if you want to use
      * {@link #resumeUpload(TusUpload)}.
@@ -79,12 +432,76 @@ public class TusClient {
         return resumingEnabled;
     }
 
+    /**
+     * Remove an upload's fingerprint from the {@link TusURLStore} once the upload has been
+     * finished completely using {@link TusUploader#finish()}. This prevents the store from
+     * growing with entries which can never be resumed again.
+     */
+    public void enableRemoveFingerprintOnSuccess() {
+        removeFingerprintOnSuccess = true;
+    }
+
+    /**
+     * Keep the fingerprints of finished uploads in the {@link TusURLStore}.
+     *
+     * @see #enableRemoveFingerprintOnSuccess()
+     */
+    public void disableRemoveFingerprintOnSuccess() {
+        removeFingerprintOnSuccess = false;
+    }
+
+    /**
+     * Get the current status of removing fingerprints of finished uploads.
+     *
+     * @return True if enabled using {@link #enableRemoveFingerprintOnSuccess()}
+     */
+    public boolean removeFingerprintOnSuccessEnabled() {
+        return removeFingerprintOnSuccess;
+    }
+
+    /**
+     * Send the beginning of every new upload in the body of the POST request creating it, using
+     * the creation-with-upload extension. Uploads which are not larger than the given size are
+     * thereby transferred entirely in a single request and {@link TusUploader#finish()} will not
+     * issue another one. The server must support this extension.
+     *
+     * @param maxSize Maximum number of bytes sent while creating an upload
+     */
+    public void enableCreationWithUpload(int maxSize) {
+        if(maxSize <= 0) {
+            throw new IllegalArgumentException("maximum size must be positive");
+        }
+        creationWithUploadSize = maxSize;
+    }
+
+    /**
+     * Create new uploads using an empty POST request.
+     *
+     * @see #enableCreationWithUpload(int)
+     */
+    public void disableCreationWithUpload() {
+        creationWithUploadSize = 0;
+    }
+
+    /**
+     * Get the current status of the creation-with-upload extension.
+     *
+     * @return True if enabled using {@link #enableCreationWithUpload(int)}
+     */
+    public boolean creationWithUploadEnabled() {
+        return creationWithUploadSize > 0;
+    }
+
     /**
      * Create a new upload using the Creation extension. Before calling this function, an "upload
      * creation URL" must be defined using {@link #setUploadCreationURL(URL)} or else this
      * function will fail.
      * In order to create the upload a POST request will be issued. The file's chunks must be
-     * uploaded manually using the returned {@link TusUploader} object.
+     * uploaded manually using the returned {@link TusUploader} object. If creation-with-upload
+     * has been enabled using {@link #enableCreationWithUpload(int)}, the first chunk is sent in
+     * the POST request and the uploader continues at the offset the server has accepted.
+     * If capability discovery has been enabled using {@link #enableCapabilityDiscovery()}, the
+     * upload is checked against the server's capabilities before the POST request is issued.
      *
      * @param upload The file for which a new upload will be created
      * @return Use {@link TusUploader} to upload the file's chunks.
@@ -93,35 +510,165 @@ public class TusClient {
      * @throws IOException Thrown if an exception occurs while issuing the HTTP request.
      */
     public TusUploader createUpload(TusUpload upload) throws ProtocolException, IOException {
-        HttpURLConnection connection = (HttpURLConnection) uploadCreationURL.openConnection();
-        connection.setRequestMethod("POST");
-        prepareConnection(connection);
+        boolean creationWithUpload = creationWithUploadSize > 0;
+        TusServerCapabilities capabilities = null;
+        if(capabilityCache != null) {
+            capabilities = getServerCapabilities();
+            checkCapabilities(capabilities, upload);
+            if(capabilities.isDiscovered() && !capabilities.supportsExtension("creation-with-upload")) {
+                creationWithUpload = false;
+            }
+        }
 
-        String encodedMetadata = upload.getEncodedMetadata();
-        if(encodedMetadata.length() > 0) {
-            connection.setRequestProperty("Upload-Metadata", encodedMetadata);
+        byte[] initialData = null;
+        int initialSize = 0;
+        int initialLength = 0;
+        InputStream replay = null;
+        URL uploadURL;
+        Date expires;
+        long offset = 0;
+        if(creationWithUpload && upload.getSize() > 0 && !upload.isSizeDeferred()) {
+            initialSize = (int) Math.min(creationWithUploadSize, upload.getSize());
+            initialData = bufferPool.acquire(initialSize);
         }
+        try {
+            if(initialData != null) {
+                initialLength = readInitialData(upload, initialData, initialSize);
+                if(upload.getSource() == null && TusFileChannelSource.seekableChannel(upload.getInputStream()) == null) {
+                    // The initial data has been consumed from the stream, so the bytes which
+                    // have not been accepted by the server have to be read again. They are
+                    // copied since the borrowed buffer is returned once the POST has finished.
+                    replay = new ByteArrayInputStream(Arrays.copyOf(initialData, initialLength));
+                }
+            }
 
-        connection.addRequestProperty("Upload-Length", Long.toString(upload.getSize()));
-        connection.connect();
+            long start = System.nanoTime();
+            HttpURLConnection connection = openConnection(uploadCreationURL);
+            try {
+                connection.setRequestMethod("POST");
+                prepareConnection(connection);
 
-        int responseCode = connection.getResponseCode();
-        if(!(responseCode >= 200 && responseCode < 300)) {
-            throw new ProtocolException("unexpected status code (" + responseCode + ") while creating upload");
-        }
+                String encodedMetadata = upload.getEncodedMetadata();
+                if(encodedMetadata.length() > 0) {
+                    connection.setRequestProperty("Upload-Metadata", encodedMetadata);
+                }
+
+                if(upload.isPartial()) {
+                    connection.addRequestProperty("Upload-Concat", "partial");
+                }
+
+                if(upload.isSizeDeferred()) {
+                    connection.addRequestProperty("Upload-Defer-Length", "1");
+                } else {
+                    connection.addRequestProperty("Upload-Length", Long.toString(upload.getSize()));
+                }
+                instrumentation.requestStarted("POST", connection);
+                if(initialLength > 0) {
+                    connection.setRequestProperty("Content-Type", "application/offset+octet-stream");
+                    TusChecksumAlgorithm algorithm = checksumAlgorithmFor(capabilities);
+                    if(algorithm != null) {
+                        connection.setRequestProperty("Upload-Checksum", algorithm.headerValue(initialData, 0, initialLength));
+                    }
+                    connection.setDoOutput(true);
+                    connection.setFixedLengthStreamingMode(initialLength);
+                    OutputStream body = new ThrottledOutputStream(connection.getOutputStream(), null, rateLimiter);
+                    body.write(initialData, 0, initialLength);
+                    body.close();
+                } else {
+                    connection.connect();
+                }
+
+                int responseCode = readResponseCode(connection, "POST", start);
+                if(!(responseCode >= 200 && responseCode < 300)) {
+                    throw new ProtocolException("unexpected status code (" + responseCode + ") while creating upload", responseCode);
+                }
 
-        String urlStr = connection.getHeaderField("Location");
-        if(urlStr == null || urlStr.length() == 0) {
-            throw new ProtocolException("missing upload URL in response for creating upload");
+                String urlStr = connection.getHeaderField("Location");
+                if(urlStr == null || urlStr.length() == 0) {
+                    throw new ProtocolException("missing upload URL in response for creating upload");
+                }
+
+                uploadURL = new URL(urlStr);
+                expires = parseDate(connection.getHeaderField("Upload-Expires"));
+
+                if(initialLength > 0) {
+                    // A server which does not support the extension ignores the body and does not
+                    // return an offset.
+                    String offsetStr = connection.getHeaderField("Upload-Offset");
+                    if(offsetStr != null && offsetStr.length() > 0) {
+                        try {
+                            offset = Long.parseLong(offsetStr);
+                        } catch(NumberFormatException e) {
+                            throw new ProtocolException("invalid Upload-Offset header in response for creating upload");
+                        }
+                        if(offset < 0 || offset > initialLength) {
+                            throw new ProtocolException("invalid Upload-Offset header in response for creating upload");
+                        }
+                    }
+                }
+            } finally {
+                releaseConnection(connection);
+            }
+        } finally {
+            if(initialData != null) {
+                bufferPool.release(initialData);
+            }
         }
 
-        URL uploadURL = new URL(urlStr);
+        if(resumingEnabled && upload.getFingerprint() != null) {
+            if(urlStore instanceof TusExpiringURLStore) {
+                ((TusExpiringURLStore) urlStore).set(upload.getFingerprint(), uploadURL, expires);
+            } else {
+                urlStore.set(upload.getFingerprint(), uploadURL);
+            }
+        }
 
-        if(resumingEnabled) {
-            urlStore.set(upload.getFingerprint(), uploadURL);
+        if(replay != null) {
+            return createUploader(upload, uploadURL, new SequenceInputStream(replay, upload.getInputStream()), offset, capabilities);
         }
+        return createUploader(upload, uploadURL, upload.getInputStream(), offset, capabilities);
+    }
 
-        return new TusUploader(this, uploadURL, upload.getInputStream(), 0);
+    /**
+     * Read the data sent while creating an upload. Seekable sources and file streams are read
+     * without changing their position, while other streams are consumed.
+     *
+     * @param size Maximum number of bytes to read, which may be less than the buffer's length
+     * @return Number of bytes read into the buffer.
+     */
+    private static int readInitialData(TusUpload upload, byte[] buffer, int size) throws IOException {
+        int length = 0;
+        if(upload.getSource() != null) {
+            TusSeekableSource source = upload.getSource();
+            source.seek(0);
+            while(length < size) {
+                int read = source.read(buffer, length, size - length);
+                if(read == -1) {
+                    break;
+                }
+                length += read;
+            }
+        } else if(TusFileChannelSource.seekableChannel(upload.getInputStream()) != null) {
+            FileChannel channel = ((FileInputStream) upload.getInputStream()).getChannel();
+            long position = channel.position();
+            ByteBuffer target = ByteBuffer.wrap(buffer, 0, size);
+            while(target.hasRemaining()) {
+                if(channel.read(target, position + target.position()) == -1) {
+                    break;
+                }
+            }
+            length = target.position();
+        } else {
+            InputStream input = upload.getInputStream();
+            while(length < size) {
+                int read = input.read(buffer, length, size - length);
+                if(read == -1) {
+                    break;
+                }
+                length += read;
+            }
+        }
+        return length;
     }
 
     /**
@@ -146,29 +693,15 @@ public class TusClient {
             throw new ResumingNotEnabledException();
         }
 
-        URL uploadURL = urlStore.get(upload.getFingerprint());
+        URL uploadURL = upload.getFingerprint() == null ? null : urlStore.get(upload.getFingerprint());
         if(uploadURL == null) {
             throw new FingerprintNotFoundException(upload.getFingerprint());
         }
 
-        HttpURLConnection connection = (HttpURLConnection) uploadURL.openConnection();
-        connection.setRequestMethod("HEAD");
-        prepareConnection(connection);
+        long offset = getUploadOffset(uploadURL);
 
-        connection.connect();
-
-        int responseCode = connection.getResponseCode();
-        if(!(responseCode >= 200 && responseCode < 300)) {
-            throw new ProtocolException("unexpected status code (" + responseCode + ") while resuming upload");
-        }
-
-        String offsetStr = connection.getHeaderField("Upload-Offset");
-        if(offsetStr == null || offsetStr.length() == 0) {
-            throw new ProtocolException("missing upload offset in response for resuming upload");
-        }
-        long offset = Long.parseLong(offsetStr);
-
-        return new TusUploader(this, uploadURL, upload.getInputStream(), offset);
+        TusServerCapabilities capabilities = capabilityCache == null ? null : getServerCapabilities();
+        return createUploader(upload, uploadURL, upload.getInputStream(), offset, capabilities);
     }
 
     /**
@@ -191,6 +724,219 @@ public class TusClient {
         }
     }
 
+    /**
+     * Issue a HEAD request to find the number of bytes the remote server has received for an
+     * upload.
+     *
+     * @param uploadURL The upload's URL
+     * @return The upload's offset on the remote server.
+     * @throws ProtocolException Thrown if the remote server sent an unexpected response.
+     * @throws IOException Thrown if an exception occurs while issuing the HTTP request.
+     */
+    long getUploadOffset(URL uploadURL) throws ProtocolException, IOException {
+        long start = System.nanoTime();
+        HttpURLConnection connection = openConnection(uploadURL);
+        try {
+            connection.setRequestMethod("HEAD");
+            prepareConnection(connection);
+            instrumentation.requestStarted("HEAD", connection);
+
+            connection.connect();
+
+            int responseCode = readResponseCode(connection, "HEAD", start);
+            if(!(responseCode >= 200 && responseCode < 300)) {
+                throw new ProtocolException("unexpected status code (" + responseCode + ") while resuming upload", responseCode);
+            }
+
+            String offsetStr = connection.getHeaderField("Upload-Offset");
+            if(offsetStr == null || offsetStr.length() == 0) {
+                throw new ProtocolException("missing upload offset in response for resuming upload");
+            }
+            return Long.parseLong(offsetStr);
+        } finally {
+            releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Upload a file in the background using the client's executor (see
+     * {@link #setExecutor(ExecutorService)}). The upload will be resumed if possible or created
+     * otherwise, as done by {@link #resumeOrCreateUpload(TusUpload)}, and all chunks will be
+     * uploaded afterwards. This method returns immediately.
+     * <br>
+     * The returned future can be used to wait for the result or to cancel the upload using
+     * {@link Future#cancel(boolean)} with <code>mayInterruptIfRunning</code> set to true. A
+     * cancelled upload stops after the current chunk and can be resumed later.
+     *
+     * @param upload The file which will be uploaded
+     * @param listener Notified about the upload's progress and outcome, may be <code>null</code>
+     * @return A future completing with the result once the upload has finished.
+     */
+    public Future<TusUploadResult> uploadAsync(TusUpload upload, TusUploadListener listener) {
+        return getExecutor().submit(new TusUploadTask(this, upload, listener));
+    }
+
+    /**
+     * Create an uploader reading from the upload's source if one has been set, or from its
+     * input stream otherwise. The server's capabilities, if known, choose the checksum
+     * algorithm.
+     */
+    private TusUploader createUploader(TusUpload upload, URL uploadURL, InputStream input, long offset, TusServerCapabilities capabilities) throws IOException {
+        TusUploader uploader;
+        if(upload.getSource() != null) {
+            uploader = new TusUploader(this, uploadURL, upload.getSource(), offset);
+        } else {
+            uploader = new TusUploader(this, uploadURL, input, offset);
+        }
+
+        uploader.setSizeDeferred(upload.isSizeDeferred());
+        uploader.setUploadSize(upload.getSize());
+        uploader.setChecksumAlgorithm(checksumAlgorithmFor(capabilities));
+
+        // Partial uploads are removed by TusParallelUploader once they have been concatenated.
+        if(removeFingerprintOnSuccess && !upload.isPartial()) {
+            uploader.setFingerprint(upload.getFingerprint(), upload.getSize());
+        }
+        return uploader;
+    }
+
+    /**
+     * Called by {@link TusUploader#finish()} once an upload has been finished completely.
+     *
+     * @param fingerprint The finished upload's fingerprint
+     */
+    void uploadFinished(String fingerprint) {
+        if(resumingEnabled && removeFingerprintOnSuccess && fingerprint != null) {
+            urlStore.remove(fingerprint);
+        }
+    }
+
+    /**
+     * Parse an HTTP date as used by the Upload-Expires header.
+     *
+     * @return The parsed date or <code>null</code> if the value is missing or invalid.
+     */
+    static Date parseDate(String value) {
+        if(value == null || value.length() == 0) {
+            return null;
+        }
+
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            return format.parse(value);
+        } catch(ParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Create the final upload by concatenating already finished partial uploads using the
+     * Concatenation extension. The server will combine the partial uploads in the order in which
+     * their URLs are supplied. No data has to be uploaded for the final upload afterwards.
+     * The upload's metadata will be attached to the final upload while its size and input stream
+     * are ignored.
+     *
+     * @param upload The file for which the partial uploads have been created
+     * @param partialURLs URLs of the partial uploads, in the order of their content
+     * @return The URL of the final upload.
+     * @throws ProtocolException Thrown if the remote server sent an unexpected response, e.g.
+     * wrong status codes or missing/invalid headers.
+     * @throws IOException Thrown if an exception occurs while issuing the HTTP request.
+     */
+    public URL concatenateUploads(TusUpload upload, List<URL> partialURLs) throws ProtocolException, IOException {
+        if(capabilityCache != null) {
+            TusServerCapabilities capabilities = getServerCapabilities();
+            if(capabilities.isDiscovered()) {
+                requireExtension(capabilities, "concatenation");
+            }
+        }
+
+        long start = System.nanoTime();
+        HttpURLConnection connection = openConnection(uploadCreationURL);
+        try {
+            connection.setRequestMethod("POST");
+            prepareConnection(connection);
+
+            String encodedMetadata = upload.getEncodedMetadata();
+            if(encodedMetadata.length() > 0) {
+                connection.setRequestProperty("Upload-Metadata", encodedMetadata);
+            }
+
+            StringBuilder concat = new StringBuilder("final;");
+            for(int i = 0; i < partialURLs.size(); i++) {
+                if(i > 0) {
+                    concat.append(' ');
+                }
+                concat.append(partialURLs.get(i).toString());
+            }
+            connection.addRequestProperty("Upload-Concat", concat.toString());
+            instrumentation.requestStarted("POST", connection);
+            connection.connect();
+
+            int responseCode = readResponseCode(connection, "POST", start);
+            if(!(responseCode >= 200 && responseCode < 300)) {
+                throw new ProtocolException("unexpected status code (" + responseCode + ") while concatenating uploads", responseCode);
+            }
+
+            String urlStr = connection.getHeaderField("Location");
+            if(urlStr == null || urlStr.length() == 0) {
+                throw new ProtocolException("missing upload URL in response for concatenating uploads");
+            }
+
+            return new URL(urlStr);
+        } finally {
+            releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Open a connection using the client's {@link TusTransport}. Every connection must be
+     * released using {@link #releaseConnection(HttpURLConnection)} afterwards.
+     */
+    HttpURLConnection openConnection(URL url) throws IOException {
+        return transport.openConnection(url);
+    }
+
+    void releaseConnection(HttpURLConnection connection) {
+        transport.releaseConnection(connection);
+    }
+
+    /**
+     * Wait for the response's status code and report the request to the instrumentation.
+     *
+     * @param connection The connection whose request has been sent
+     * @param method The request's method
+     * @param start Value of {@link System#nanoTime()} before the connection has been opened
+     * @return The response's status code.
+     * @throws IOException Thrown if no response could be received.
+     */
+    int readResponseCode(HttpURLConnection connection, String method, long start) throws IOException {
+        long sent = System.nanoTime();
+        int responseCode;
+        try {
+            responseCode = connection.getResponseCode();
+        } catch(IOException e) {
+            instrumentation.requestCompleted(method, connection.getURL(), -1, System.nanoTime() - start, -1, -1);
+            throw e;
+        }
+
+        // HttpURLConnection only returns once the status line and the headers have been parsed, so
+        // the time to first byte and the duration are the same.
+        long received = System.nanoTime();
+        instrumentation.requestCompleted(method, connection.getURL(), responseCode, received - start, received - start, received - sent);
+        return responseCode;
+    }
+
+    /**
+     * Get the storage used for resuming uploads.
+     *
+     * @return The store passed to {@link #enableResuming(TusURLStore)} or <code>null</code>.
+     */
+    TusURLStore getURLStore() {
+        return urlStore;
+    }
+
     /**
      * Set headers used for every HTTP request. Currently, this will add the Tus-Resumable header.
      *
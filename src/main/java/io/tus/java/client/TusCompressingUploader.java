@@ -0,0 +1,241 @@
+package io.tus.java.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class is used for compressing an upload while it is being uploaded, which reduces the
+ * number of bytes sent for compressible data, e.g. logs or text files, if the network is
+ * slower than the compression. The data is split into blocks which are compressed
+ * independently using a {@link TusCompressionCodec}, optionally in parallel, and written into
+ * an upload whose length is deferred until the compressed length is known (see
+ * {@link TusUpload#setSizeDeferred(boolean)}). The remote server must support the
+ * creation-defer-length extension.
+ * <br>
+ * The Upload-Offset of the upload refers to the compressed stream. When an interrupted upload
+ * is resumed, the data is compressed again from the beginning and the compressed bytes which
+ * the server has already received are skipped. This only works if the blocks are compressed to
+ * the same bytes again, which depends on the codec, its settings, the block size and the
+ * compressor's implementation, e.g. the zlib library of the runtime. The block size and the
+ * codec's identity (see {@link TusCompressionCodec#getIdentity()}) are therefore part of the
+ * fingerprint, so a change creates a new upload instead of resuming the old one.
+ * <br>
+ * The upload's metadata is extended by <code>content-encoding</code>, the codec's name, and
+ * <code>uncompressed-length</code>, the size of the data if it is known. The compressed bytes
+ * are not sent with a Content-Encoding header since servers would decompress the body and
+ * thereby change the offsets.
+ */
+public class TusCompressingUploader {
+    private TusClient client;
+    private TusUpload upload;
+    private TusCompressionCodec codec;
+    private int blockSize = 1024 * 1024;
+    private int parallelism = 1;
+    private ExecutorService executor;
+    private int chunkSize = 2 * 1024 * 1024;
+
+    private volatile TusUploader uploader;
+    private volatile CompressingInputStream stream;
+    private URL uploadURL;
+
+    /**
+     * Create a new compressing uploader. No request will be issued until {@link #upload()} is
+     * called.
+     *
+     * @param client Used for creating or resuming the upload
+     * @param upload The data which will be compressed. It is read from its source if one is set
+     *               or from its input stream otherwise.
+     * @param codec The compression format
+     */
+    public TusCompressingUploader(TusClient client, TusUpload upload, TusCompressionCodec codec) {
+        this.client = client;
+        this.upload = upload;
+        this.codec = codec;
+    }
+
+    /**
+     * Set the number of uncompressed bytes which are compressed independently of each other.
+     * Larger blocks compress slightly better while smaller blocks allow more parallelism.
+     *
+     * @param blockSize Size of the blocks in bytes
+     */
+    public void setBlockSize(int blockSize) {
+        if(blockSize <= 0) {
+            throw new IllegalArgumentException("block size must be positive");
+        }
+        this.blockSize = blockSize;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Set the number of blocks which are compressed in parallel. If it is larger than one, the
+     * blocks are compressed on the executor set using {@link #setExecutor(ExecutorService)} or
+     * a fixed thread pool which is created and shut down for each call to {@link #upload()}.
+     * Otherwise, the blocks are compressed on the uploading thread.
+     *
+     * @param parallelism Number of blocks compressed at the same time
+     */
+    public void setParallelism(int parallelism) {
+        if(parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Set the executor which compresses the blocks if the parallelism is larger than one.
+     * A supplied executor will not be shut down.
+     *
+     * @param executor The executor used for compressing blocks
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the chunk size used by the {@link TusUploader} of the compressed upload.
+     *
+     * @param size The new chunk size
+     * @see TusUploader#setChunkSize(int)
+     */
+    public void setChunkSize(int size) {
+        chunkSize = size;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Get the number of compressed bytes which have been uploaded. This value can be read from
+     * any thread while {@link #upload()} is running.
+     *
+     * @return The offset in the compressed stream.
+     */
+    public long getOffset() {
+        TusUploader current = uploader;
+        return current == null ? 0 : current.getOffset();
+    }
+
+    /**
+     * Get the number of uncompressed bytes whose compressed blocks have been uploaded entirely.
+     * This value can be read from any thread while {@link #upload()} is running.
+     *
+     * @return The offset in the uncompressed data.
+     */
+    public long getUncompressedOffset() {
+        CompressingInputStream current = stream;
+        return current == null ? 0 : current.uncompressedOffset(getOffset());
+    }
+
+    /**
+     * Get the URL of the compressed upload.
+     *
+     * @return The upload's URL or <code>null</code> if {@link #upload()} has not finished, yet.
+     */
+    public URL getUploadURL() {
+        return uploadURL;
+    }
+
+    /**
+     * Compress the data and upload it. If resuming has been enabled on the {@link TusClient}
+     * and the upload has a fingerprint, the compressed upload is stored using a fingerprint
+     * derived from it, the codec's name and the block size. This method blocks until all data
+     * has been compressed and uploaded and the upload's length has been declared.
+     *
+     * @return The URL of the compressed upload.
+     * @throws ProtocolException Thrown if the remote server sent an unexpected response.
+     * @throws IOException Thrown if an exception occurs while reading or compressing the data or
+     * issuing the HTTP requests.
+     */
+    public URL upload() throws ProtocolException, IOException {
+        if(upload.getSource() == null && upload.getInputStream() == null) {
+            throw new IllegalStateException("upload has neither a source nor an input stream");
+        }
+
+        ExecutorService service = null;
+        if(parallelism > 1) {
+            service = executor != null ? executor : Executors.newFixedThreadPool(parallelism);
+        }
+
+        try {
+            // Twice the parallelism keeps the threads busy while the oldest block is uploaded.
+            stream = new CompressingInputStream(upload.getInputStream(), upload.getSource(), codec, client.getBufferPool(), blockSize, service, parallelism * 2);
+
+            TusUpload compressed = new TusUpload();
+            compressed.setSizeDeferred(true);
+            compressed.setInputStream(stream);
+            compressed.setMetadata(metadata());
+            if(upload.getFingerprint() != null) {
+                compressed.setFingerprint(upload.getFingerprint() + "-" + codec.getIdentity() + "-" + blockSize);
+            }
+
+            try {
+                uploader = client.resumeOrCreateUpload(compressed);
+            } catch(IOException e) {
+                stream.close();
+                throw e;
+            } catch(ProtocolException e) {
+                stream.close();
+                throw e;
+            }
+
+            uploader.setChunkSize(chunkSize);
+            upload(uploader, stream);
+        } finally {
+            if(service != null && executor == null) {
+                service.shutdownNow();
+            }
+        }
+
+        uploadURL = uploader.getUploadURL();
+        return uploadURL;
+    }
+
+    /**
+     * Copy the remaining compressed stream into the uploader. Closing the uploader's stream
+     * declares the upload's length, so it must only be closed once the entire data has been
+     * written. On failure, the uploader is only finished and the upload can be resumed.
+     */
+    private void upload(TusUploader uploader, CompressingInputStream input) throws ProtocolException, IOException {
+        OutputStream output = uploader.getOutputStream();
+        boolean completed = false;
+        try {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while((read = input.read(buffer, 0, buffer.length)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            output.close();
+            completed = true;
+        } finally {
+            if(!completed) {
+                uploader.finish();
+            }
+        }
+    }
+
+    private Map<String, String> metadata() {
+        Map<String, String> metadata = new HashMap<String, String>();
+        if(upload.getMetadata() != null) {
+            metadata.putAll(upload.getMetadata());
+        }
+        metadata.put("content-encoding", codec.getName());
+        if(!upload.isSizeDeferred() && upload.getSize() > 0) {
+            metadata.put("uncompressed-length", Long.toString(upload.getSize()));
+        }
+        return metadata;
+    }
+}
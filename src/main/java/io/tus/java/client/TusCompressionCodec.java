@@ -0,0 +1,228 @@
+package io.tus.java.client;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+import java.util.zip.Deflater;
+
+/**
+ * A compression format used by {@link TusCompressingUploader}. The data is split into blocks
+ * which are compressed independently of each other, so they can be compressed in parallel, and
+ * the compressed stream consists of the codec's header, the compressed blocks in order and the
+ * codec's trailer.
+ * <br>
+ * Resuming an upload compresses the data again and skips the bytes the server has already
+ * received, so the compressed bytes must be the same for the same data and block size. Anything
+ * else they depend on, e.g. the compression level or the compressor's implementation, must be
+ * reflected by {@link #getIdentity()}. Implementations for other formats can be created by
+ * extending this class.
+ */
+public abstract class TusCompressionCodec {
+    /**
+     * The gzip format (RFC 1952) using the default compression level.
+     */
+    public final static TusCompressionCodec GZIP = gzip(Deflater.DEFAULT_COMPRESSION);
+
+    /**
+     * The zlib format (RFC 1950), which is used for HTTP's deflate encoding, using the default
+     * compression level.
+     */
+    public final static TusCompressionCodec DEFLATE = deflate(Deflater.DEFAULT_COMPRESSION);
+
+    /**
+     * Create a gzip codec with the given compression level.
+     *
+     * @param level Level between 0 and 9 or {@link Deflater#DEFAULT_COMPRESSION}
+     * @return The new codec.
+     */
+    public static TusCompressionCodec gzip(int level) {
+        return new DeflateCodec("gzip", level);
+    }
+
+    /**
+     * Create a zlib codec with the given compression level.
+     *
+     * @param level Level between 0 and 9 or {@link Deflater#DEFAULT_COMPRESSION}
+     * @return The new codec.
+     */
+    public static TusCompressionCodec deflate(int level) {
+        return new DeflateCodec("deflate", level);
+    }
+
+    /**
+     * Get the name of the format which is stored in the upload's <code>content-encoding</code>
+     * metadata.
+     *
+     * @return The format's name, e.g. <code>gzip</code>.
+     */
+    public abstract String getName();
+
+    /**
+     * Get a string identifying the codec's output. It becomes part of the upload's fingerprint,
+     * so an upload compressed with a different identity is created again instead of being
+     * resumed with bytes which do not match those the server has received.
+     *
+     * @return The identity, which is the codec's name by default.
+     */
+    public String getIdentity() {
+        return getName();
+    }
+
+    /**
+     * Get the bytes preceding the first block.
+     *
+     * @return The header which may be empty.
+     */
+    protected byte[] header() {
+        return new byte[0];
+    }
+
+    /**
+     * Compress a single block. This method is called concurrently from multiple threads if
+     * blocks are compressed in parallel.
+     *
+     * @param data Array containing the block
+     * @param offset Index of the block's first byte
+     * @param length Length of the block, which is only 0 if the entire data is empty
+     * @param last True if this is the final block
+     * @return The compressed block.
+     */
+    protected abstract byte[] compressBlock(byte[] data, int offset, int length, boolean last);
+
+    /**
+     * Create a checksum which is updated with all uncompressed blocks in order and passed to
+     * {@link #trailer(Checksum, long)}.
+     *
+     * @return The checksum or <code>null</code> if the trailer does not need one.
+     */
+    protected Checksum newChecksum() {
+        return null;
+    }
+
+    /**
+     * Get the bytes following the last block.
+     *
+     * @param checksum The checksum returned by {@link #newChecksum()} after all blocks have been
+     *                 added
+     * @param length The length of the uncompressed data
+     * @return The trailer which may be empty.
+     */
+    protected byte[] trailer(Checksum checksum, long length) {
+        return new byte[0];
+    }
+
+    /**
+     * The gzip and zlib formats. Every block is compressed into raw deflate blocks ending with a
+     * sync flush, so concatenated blocks form a single deflate stream without any dictionary
+     * shared between them. Only the last block finishes the stream.
+     */
+    private static class DeflateCodec extends TusCompressionCodec {
+        private final String name;
+        private final int level;
+        private String identity;
+
+        DeflateCodec(String name, int level) {
+            if(level != Deflater.DEFAULT_COMPRESSION && (level < 0 || level > 9)) {
+                throw new IllegalArgumentException("invalid compression level: " + level);
+            }
+            this.name = name;
+            this.level = level;
+        }
+
+        private boolean gzip() {
+            return "gzip".equals(name);
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * The output of {@link Deflater} depends on the zlib library used by the runtime, which
+         * may change with the JDK or the operating system. The identity therefore contains a
+         * hash of the runtime's version and of a sample compressed by it.
+         */
+        @Override
+        public synchronized String getIdentity() {
+            if(identity == null) {
+                byte[] sample = new byte[64 * 1024];
+                // Compressible text with enough variation for the compressor's matching to
+                // matter.
+                int seed = 1;
+                for(int i = 0; i < sample.length; i++) {
+                    seed = seed * 1103515245 + 12345;
+                    sample[i] = (byte) ('a' + ((seed >>> 16) & 0x7fff) % 8);
+                }
+
+                CRC32 crc = new CRC32();
+                byte[] runtime = (System.getProperty("java.vendor") + " " + System.getProperty("java.version")).getBytes(Charset.forName("UTF-8"));
+                crc.update(runtime, 0, runtime.length);
+                byte[] block = compressBlock(sample, 0, sample.length, false);
+                crc.update(block, 0, block.length);
+                block = compressBlock(sample, 0, sample.length, true);
+                crc.update(block, 0, block.length);
+                identity = name + "-" + (level == Deflater.DEFAULT_COMPRESSION ? "default" : String.valueOf(level)) + "-" + Long.toHexString(crc.getValue());
+            }
+            return identity;
+        }
+
+        @Override
+        protected byte[] header() {
+            if(gzip()) {
+                // Magic bytes, deflate method, no flags, no modification time, no extra flags
+                // and an unknown operating system.
+                return new byte[] {(byte) 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+            }
+            // Deflate method with a 32 KiB window and no preset dictionary.
+            return new byte[] {(byte) 0x78, (byte) 0x9c};
+        }
+
+        @Override
+        protected byte[] compressBlock(byte[] data, int offset, int length, boolean last) {
+            Deflater deflater = new Deflater(level, true);
+            try {
+                deflater.setInput(data, offset, length);
+                ByteArrayOutputStream output = new ByteArrayOutputStream(length / 2 + 64);
+                byte[] buffer = new byte[16 * 1024];
+                if(last) {
+                    deflater.finish();
+                    while(!deflater.finished()) {
+                        int n = deflater.deflate(buffer);
+                        output.write(buffer, 0, n);
+                    }
+                } else {
+                    // The output is complete once the flush does not fill the entire buffer.
+                    int n;
+                    do {
+                        n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                        output.write(buffer, 0, n);
+                    } while(n == buffer.length);
+                }
+                return output.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        @Override
+        protected Checksum newChecksum() {
+            return gzip() ? new CRC32() : new Adler32();
+        }
+
+        @Override
+        protected byte[] trailer(Checksum checksum, long length) {
+            long value = checksum.getValue();
+            if(gzip()) {
+                // CRC-32 and the length modulo 2^32, both little-endian.
+                return new byte[] {
+                        (byte) value, (byte) (value >>> 8), (byte) (value >>> 16), (byte) (value >>> 24),
+                        (byte) length, (byte) (length >>> 8), (byte) (length >>> 16), (byte) (length >>> 24)};
+            }
+            // Adler-32, big-endian.
+            return new byte[] {(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package io.tus.java.client;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * This class fingerprints a file by hashing its entire content. The file is split into regions
+ * which are memory-mapped and hashed independently, optionally in parallel on an
+ * {@link ExecutorService}. The fingerprint is the hash of the file's size and all region hashes,
+ * so it depends on the region size but not on the number of threads used.
+ */
+public class TusContentFingerprinter extends TusFingerprinter {
+    /**
+     * Default size of the independently hashed regions in bytes.
+     */
+    public final static int DEFAULT_REGION_SIZE = 16 * 1024 * 1024;
+
+    private int regionSize;
+    private ExecutorService executor;
+
+    /**
+     * Create a new fingerprinter hashing all regions on the calling thread.
+     */
+    public TusContentFingerprinter() {
+        this(null, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Create a new fingerprinter.
+     *
+     * @param executor Executor hashing the regions in parallel or <code>null</code> to hash them
+     *                 on the calling thread
+     * @param regionSize Number of bytes in every region
+     */
+    public TusContentFingerprinter(ExecutorService executor, int regionSize) {
+        if(regionSize <= 0) {
+            throw new IllegalArgumentException("region size must be positive");
+        }
+        this.executor = executor;
+        this.regionSize = regionSize;
+    }
+
+    @Override
+    protected String calculate(File file) throws IOException {
+        FileInputStream input = new FileInputStream(file);
+        try {
+            FileChannel channel = input.getChannel();
+            long size = channel.size();
+
+            List<RegionHash> regions = new ArrayList<RegionHash>();
+            for(long position = 0; position < size; position += regionSize) {
+                regions.add(new RegionHash(channel, position, Math.min(regionSize, size - position)));
+            }
+
+            MessageDigest digest = newDigest();
+            updateLong(digest, size);
+            for(byte[] hash : hashAll(regions)) {
+                digest.update(hash);
+            }
+            return "content-sha256-" + hex(digest.digest());
+        } finally {
+            input.close();
+        }
+    }
+
+    private List<byte[]> hashAll(List<RegionHash> regions) throws IOException {
+        List<byte[]> hashes = new ArrayList<byte[]>(regions.size());
+        if(executor == null || regions.size() < 2) {
+            for(RegionHash region : regions) {
+                hashes.add(region.call());
+            }
+            return hashes;
+        }
+
+        List<Future<byte[]>> futures = new ArrayList<Future<byte[]>>(regions.size());
+        try {
+            for(RegionHash region : regions) {
+                futures.add(executor.submit(region));
+            }
+            for(Future<byte[]> future : futures) {
+                hashes.add(future.get());
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while fingerprinting", e);
+        } catch(ExecutionException e) {
+            if(e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            for(Future<byte[]> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return hashes;
+    }
+
+    private static class RegionHash implements Callable<byte[]> {
+        private FileChannel channel;
+        private long position;
+        private long length;
+
+        RegionHash(FileChannel channel, long position, long length) {
+            this.channel = channel;
+            this.position = position;
+            this.length = length;
+        }
+
+        @Override
+        public byte[] call() throws IOException {
+            ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            MessageDigest digest = newDigest();
+            digest.update(region);
+            return digest.digest();
+        }
+    }
+}
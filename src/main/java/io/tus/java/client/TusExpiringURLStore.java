@@ -0,0 +1,22 @@
+package io.tus.java.client;
+
+import java.net.URL;
+import java.util.Date;
+
+/**
+ * Implementations of this interface are {@link TusURLStore}s which can discard entries once the
+ * remote server will no longer accept resuming the corresponding upload. If the server announces
+ * the expiration of an upload using the Upload-Expires header, {@link TusClient} will store the
+ * upload URL using {@link #set(String, URL, Date)}.
+ */
+public interface TusExpiringURLStore extends TusURLStore {
+    /**
+     * Store a new fingerprint and its upload URL until the upload expires.
+     *
+     * @param fingerprint An upload's fingerprint.
+     * @param url The corresponding upload URL.
+     * @param expires The time after which the entry may be discarded or <code>null</code> if the
+     *                upload does not expire.
+     */
+    void set(String fingerprint, URL url, Date expires);
+}
@@ -0,0 +1,128 @@
+package io.tus.java.client;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * This class is a {@link TusSeekableSource} reading from a {@link FileChannel}. Seeking only
+ * changes the channel's position and transfers are done using
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)}. The operating system can
+ * only move the data without copying it into the JVM's heap if the target is a file or socket
+ * channel. An HTTP request's body is a stream wrapped by {@link java.nio.channels.Channels},
+ * so the JDK copies the data through a small temporary buffer instead of a chunk-sized one.
+ */
+public class TusFileChannelSource implements TusSeekableSource {
+    private FileChannel channel;
+    private long start;
+    private long end = -1;
+
+    /**
+     * Create a new source. The channel's current position is used as read position.
+     *
+     * @param channel The channel to read from. It will be closed by {@link #close()}.
+     */
+    public TusFileChannelSource(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Create a new source which only exposes a byte range of the channel, e.g. the part of a
+     * file belonging to a partial upload. Positions are relative to the range's start and the
+     * data ends after <code>length</code> bytes or at the end of the file, whichever comes first.
+     * The read position is set to the range's start.
+     *
+     * @param channel The channel to read from. It will be closed by {@link #close()}.
+     * @param start Offset of the range in the channel
+     * @param length Maximum number of bytes in the range
+     * @throws IOException Thrown if the channel cannot be positioned.
+     */
+    public TusFileChannelSource(FileChannel channel, long start, long length) throws IOException {
+        this.channel = channel;
+        this.start = start;
+        this.end = start + length;
+        channel.position(start);
+    }
+
+    /**
+     * Get the channel of a stream if it reads from a regular file. Streams reading from stdin,
+     * pipes or devices also have a channel, but it cannot be positioned or does not report the
+     * amount of data, so they have to be read as a stream.
+     *
+     * @param input The stream which may be a {@link FileInputStream}
+     * @return The channel or <code>null</code> if the stream cannot be read as a seekable source.
+     */
+    static FileChannel seekableChannel(InputStream input) {
+        if(!(input instanceof FileInputStream)) {
+            return null;
+        }
+
+        FileChannel channel = ((FileInputStream) input).getChannel();
+        try {
+            long position = channel.position();
+            // Devices and pipes report a size of zero. An empty file is read as a stream, too,
+            // which produces the same result.
+            if(channel.size() <= 0) {
+                return null;
+            }
+            channel.position(position);
+            return channel;
+        } catch(IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void seek(long position) throws IOException {
+        channel.position(start + position);
+    }
+
+    @Override
+    public long getPosition() throws IOException {
+        return channel.position() - start;
+    }
+
+    @Override
+    public long getSize() throws IOException {
+        return Math.max(0, end() - start);
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        long remaining = end() - channel.position();
+        if(remaining <= 0) {
+            return -1;
+        }
+
+        return channel.read(ByteBuffer.wrap(buffer, offset, (int) Math.min(length, remaining)));
+    }
+
+    @Override
+    public long transferTo(WritableByteChannel target, long count) throws IOException {
+        long position = channel.position();
+        long remaining = end() - position;
+        if(remaining <= 0) {
+            return -1;
+        }
+
+        long bytesTransferred = channel.transferTo(position, Math.min(count, remaining), target);
+        channel.position(position + bytesTransferred);
+        return bytesTransferred;
+    }
+
+    /**
+     * @return The channel position at which the data ends.
+     */
+    private long end() throws IOException {
+        long size = channel.size();
+        return end < 0 ? size : Math.min(end, size);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,103 @@
+package io.tus.java.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class calculates fingerprints from the content of files instead of their paths, so an
+ * upload can be resumed after the file has been renamed or moved, or even from another host.
+ * Fingerprints are cached by the file's path, modification time and size, so calculating the
+ * fingerprint of an unchanged file again does not read it.
+ * <br>
+ * Use {@link TusUpload#TusUpload(File, TusFingerprinter)} to create uploads fingerprinted by an
+ * instance of this class. See {@link TusSampledFingerprinter} and {@link TusContentFingerprinter}
+ * for the available strategies.
+ */
+public abstract class TusFingerprinter {
+    /**
+     * Default number of fingerprints which are cached.
+     */
+    public final static int DEFAULT_CACHE_SIZE = 1024;
+
+    private final Map<String, String> cache;
+
+    public TusFingerprinter() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Create a new fingerprinter.
+     *
+     * @param cacheSize Maximum number of cached fingerprints or 0 to disable caching.
+     */
+    public TusFingerprinter(final int cacheSize) {
+        cache = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Get the fingerprint of a file, using a cached value if the file has not been modified since
+     * it was calculated.
+     *
+     * @param file The file to fingerprint
+     * @return The fingerprint.
+     * @throws IOException Thrown if the file could not be read.
+     */
+    public String fingerprint(File file) throws IOException {
+        String key = file.getAbsolutePath() + "\u0000" + file.lastModified() + "\u0000" + file.length();
+        synchronized(cache) {
+            String fingerprint = cache.get(key);
+            if(fingerprint != null) {
+                return fingerprint;
+            }
+        }
+
+        String fingerprint = calculate(file);
+        synchronized(cache) {
+            cache.put(key, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Calculate the fingerprint of a file without consulting the cache.
+     *
+     * @param file The file to fingerprint
+     * @return The fingerprint.
+     * @throws IOException Thrown if the file could not be read.
+     */
+    protected abstract String calculate(File file) throws IOException;
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch(NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static void updateLong(MessageDigest digest, long value) {
+        for(int i = 56; i >= 0; i -= 8) {
+            digest.update((byte) (value >>> i));
+        }
+    }
+
+    static String hex(byte[] bytes) {
+        char[] codes = "0123456789abcdef".toCharArray();
+        char[] out = new char[bytes.length * 2];
+        for(int i = 0; i < bytes.length; i++) {
+            out[i * 2] = codes[(bytes[i] >> 4) & 0x0F];
+            out[i * 2 + 1] = codes[bytes[i] & 0x0F];
+        }
+        return new String(out);
+    }
+}
@@ -0,0 +1,93 @@
+package io.tus.java.client;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * This class receives measurements about the requests and uploads of a {@link TusClient}, e.g.
+ * for recording metrics or tracing uploads across services. It can be set using
+ * {@link TusClient#setInstrumentation(TusInstrumentation)}. All methods of this class do nothing,
+ * so subclasses only need to override the ones they are interested in.
+ * <br>
+ * The methods are called on the threads doing the uploads, so they must be thread-safe if the
+ * client is used by multiple threads and should return quickly. The client does not allocate
+ * any objects for calling the methods invoked for every chunk, so the instrumentation does not
+ * add to the garbage produced while uploading.
+ */
+public class TusInstrumentation {
+    /**
+     * Called before a request is sent. Implementations may add headers to the request, e.g. for
+     * propagating a trace context.
+     *
+     * @param method The request's method: POST, HEAD or PATCH
+     * @param connection The connection which is about to be sent
+     */
+    public void requestStarted(String method, HttpURLConnection connection) {
+    }
+
+    /**
+     * Called once the status code of a response has been received or waiting for it has failed.
+     *
+     * @param method The request's method: POST, HEAD or PATCH
+     * @param url The request's URL
+     * @param statusCode The response's status code or -1 if no response has been received
+     * @param durationNanos Time since the connection has been opened in nanoseconds
+     * @param timeToFirstByteNanos Time from opening the connection until the first byte of the
+     *                             response has been received in nanoseconds or -1 if no response
+     *                             has been received. {@link HttpURLConnection} only
+     *                             reports the response once its headers have been read.
+     * @param responseWaitNanos Time spent waiting for the response after the request's body has
+     *                          been sent entirely in nanoseconds or -1 if no response has been
+     *                          received. In contrast to the time to first byte, it does not
+     *                          include opening the connection and sending the request.
+     */
+    public void requestCompleted(String method, URL url, int statusCode, long durationNanos, long timeToFirstByteNanos, long responseWaitNanos) {
+    }
+
+    /**
+     * Called after a chunk has been written to a PATCH request.
+     *
+     * @param uploadURL The upload's URL
+     * @param bytes Number of bytes in the chunk
+     * @param writeNanos Time spent writing the chunk in nanoseconds
+     * @param flushNanos Time spent flushing the request afterwards in nanoseconds
+     */
+    public void chunkUploaded(URL uploadURL, int bytes, long writeNanos, long flushNanos) {
+    }
+
+    /**
+     * Called before waiting for the delay of a retry (see {@link TusRetryPolicy}).
+     *
+     * @param uploadURL The upload's URL
+     * @param attempt Number of the retry, starting at 1
+     * @param delayMillis Time which will be waited before retrying in milliseconds
+     * @param cause The failure which is retried
+     */
+    public void retryScheduled(URL uploadURL, int attempt, long delayMillis, Exception cause) {
+    }
+
+    /**
+     * Called when a {@link TusUploader} has been created. The returned object is passed to
+     * {@link #uploadFinished(Object, URL, long, Exception)} and can be used as a span for
+     * tracing the upload.
+     *
+     * @param uploadURL The upload's URL
+     * @param offset Offset at which the uploader starts
+     * @return An object identifying the upload or <code>null</code>.
+     */
+    public Object uploadStarted(URL uploadURL, long offset) {
+        return null;
+    }
+
+    /**
+     * Called when {@link TusUploader#finish()} has finished or failed. Uploaders which are
+     * abandoned without calling this method are not reported.
+     *
+     * @param span The object returned by {@link #uploadStarted(URL, long)}
+     * @param uploadURL The upload's URL
+     * @param offset The upload's offset after finishing
+     * @param failure The exception thrown by {@link TusUploader#finish()} or <code>null</code>
+     */
+    public void uploadFinished(Object span, URL uploadURL, long offset, Exception failure) {
+    }
+}
@@ -0,0 +1,205 @@
+package io.tus.java.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * This class is a {@link TusTransport} which allows the underlying sockets to be reused for
+ * following requests to the same server. Instead of disconnecting, the remaining response body
+ * is read and closed after every request, which returns the socket to the keep-alive cache of
+ * {@link HttpURLConnection}. New connections to the same host, port and protocol will then use
+ * a cached socket and skip the TCP and TLS handshakes.
+ * <br>
+ * Optionally, the number of connections which are open at the same time for a single server
+ * can be limited using {@link #setMaxConnectionsPerHost(int)}. If this limit is reached,
+ * {@link #openConnection(URL)} will block until another connection has been released. Together
+ * with the keep-alive cache, whose size can be configured using the <code>http.maxConnections</code>
+ * system property, this allows many uploads to share a small number of sockets.
+ * <br>
+ * This is the default transport used by {@link TusClient}.
+ */
+public class TusKeepAliveTransport implements TusTransport {
+    /**
+     * Maximum number of bytes which will be read from a response body in order to reuse the
+     * socket. Connections with larger remaining bodies will be disconnected.
+     */
+    private final static int MAX_DRAIN_SIZE = 64 * 1024;
+
+    private volatile int maxConnectionsPerHost;
+    private ConcurrentMap<String, HostPermits> hostPermits = new ConcurrentHashMap<String, HostPermits>();
+    private ConcurrentMap<HttpURLConnection, Semaphore> openConnections = new ConcurrentHashMap<HttpURLConnection, Semaphore>();
+
+    /**
+     * The permits for the connections to a single server, which can be resized when the limit
+     * changes. Reducing the limit takes effect once enough connections have been released.
+     */
+    private static class HostPermits extends Semaphore {
+        private final static long serialVersionUID = 1L;
+
+        private int limit;
+
+        HostPermits(int limit) {
+            super(limit, true);
+            this.limit = limit;
+        }
+
+        synchronized void resize(int newLimit) {
+            if(newLimit > limit) {
+                release(newLimit - limit);
+            } else if(newLimit < limit) {
+                reducePermits(limit - newLimit);
+            }
+            limit = newLimit;
+        }
+    }
+
+    /**
+     * Create a new transport without a limit for the number of connections per host.
+     */
+    public TusKeepAliveTransport() {
+    }
+
+    /**
+     * Create a new transport.
+     *
+     * @param maxConnectionsPerHost Maximum number of connections open at the same time for a
+     *                              single server, or 0 for no limit.
+     */
+    public TusKeepAliveTransport(int maxConnectionsPerHost) {
+        setMaxConnectionsPerHost(maxConnectionsPerHost);
+    }
+
+    /**
+     * Set the maximum number of connections open at the same time for a single server. A changed
+     * limit applies to all servers once the next connection to them is opened. If it has been
+     * lowered, new connections wait until enough open connections have been released.
+     *
+     * @param maxConnectionsPerHost The new limit or 0 for no limit.
+     */
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        if(maxConnectionsPerHost < 0) {
+            throw new IllegalArgumentException("maximum number of connections must not be negative");
+        }
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    @Override
+    public HttpURLConnection openConnection(URL url) throws IOException {
+        Semaphore permits = permitsFor(url);
+        if(permits != null) {
+            try {
+                permits.acquire();
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for a connection to " + url.getHost());
+            }
+        }
+
+        HttpURLConnection connection;
+        try {
+            connection = (HttpURLConnection) url.openConnection();
+        } catch(IOException e) {
+            if(permits != null) {
+                permits.release();
+            }
+            throw e;
+        }
+
+        if(permits != null) {
+            openConnections.put(connection, permits);
+        }
+        return connection;
+    }
+
+    @Override
+    public void releaseConnection(HttpURLConnection connection) {
+        try {
+            drain(connection);
+        } catch(IOException e) {
+            // The socket is in an unknown state and must not be reused.
+            connection.disconnect();
+        } finally {
+            Semaphore permits = openConnections.remove(connection);
+            if(permits != null) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Read and close the remaining response body so the socket can be reused. If the body is
+     * too large, the connection will be disconnected instead. Connections which have not been
+     * connected, e.g. because preparing the request failed, are not read from since that would
+     * send the request.
+     */
+    private void drain(HttpURLConnection connection) throws IOException {
+        if(!isConnected(connection)) {
+            connection.disconnect();
+            return;
+        }
+
+        // Reading the input stream of an error response throws, so its body is read from the
+        // error stream, which is null if there is none.
+        InputStream body = connection.getResponseCode() >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if(body == null) {
+            return;
+        }
+
+        try {
+            byte[] buffer = new byte[4096];
+            int drained = 0;
+            int bytesRead;
+            while((bytesRead = body.read(buffer)) != -1) {
+                drained += bytesRead;
+                if(drained > MAX_DRAIN_SIZE) {
+                    connection.disconnect();
+                    return;
+                }
+            }
+        } finally {
+            body.close();
+        }
+    }
+
+    /**
+     * Find out whether the request has been sent. The request properties can only be read
+     * before connecting.
+     */
+    private static boolean isConnected(HttpURLConnection connection) {
+        try {
+            connection.getRequestProperties();
+            return false;
+        } catch(IllegalStateException e) {
+            return true;
+        }
+    }
+
+    private Semaphore permitsFor(URL url) {
+        int limit = maxConnectionsPerHost;
+        if(limit == 0) {
+            return null;
+        }
+
+        String host = url.getProtocol() + "://" + url.getHost() + ":" + (url.getPort() == -1 ? url.getDefaultPort() : url.getPort());
+        HostPermits permits = hostPermits.get(host);
+        if(permits == null) {
+            HostPermits created = new HostPermits(limit);
+            permits = hostPermits.putIfAbsent(host, created);
+            if(permits == null) {
+                permits = created;
+            }
+        }
+        permits.resize(limit);
+        return permits;
+    }
+}
@@ -0,0 +1,132 @@
+package io.tus.java.client;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * This class is a {@link TusSeekableSource} reading from a memory-mapped file. The file is not
+ * mapped at once but in windows of a fixed size, which are replaced while the read position
+ * moves through the file. This allows uploading files larger than the address space available
+ * to a single {@link MappedByteBuffer}.
+ */
+public class TusMappedFileSource implements TusSeekableSource {
+    /**
+     * Default size of the mapped windows in bytes.
+     */
+    public final static int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private FileChannel channel;
+    private long size;
+    private int windowSize;
+    private long position;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    /**
+     * Create a new source by opening and mapping the file using the default window size.
+     *
+     * @param file The file to read from.
+     * @throws IOException Thrown if the file cannot be opened.
+     */
+    public TusMappedFileSource(File file) throws IOException {
+        this(new FileInputStream(file).getChannel(), DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Create a new source. The channel's current position is used as read position.
+     *
+     * @param channel The channel whose file will be mapped. It will be closed by {@link #close()}.
+     * @param windowSize Maximum number of bytes mapped at the same time.
+     * @throws IOException Thrown if the channel's size or position cannot be determined.
+     */
+    public TusMappedFileSource(FileChannel channel, int windowSize) throws IOException {
+        if(windowSize <= 0) {
+            throw new IllegalArgumentException("window size must be positive");
+        }
+
+        this.channel = channel;
+        this.windowSize = windowSize;
+        size = channel.size();
+        position = channel.position();
+    }
+
+    @Override
+    public void seek(long position) {
+        this.position = position;
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        ByteBuffer mapped = mapped(length);
+        if(mapped == null) {
+            return -1;
+        }
+
+        int bytesRead = mapped.remaining();
+        mapped.get(buffer, offset, bytesRead);
+        position += bytesRead;
+        return bytesRead;
+    }
+
+    @Override
+    public long transferTo(WritableByteChannel target, long count) throws IOException {
+        ByteBuffer mapped = mapped((int) Math.min(count, Integer.MAX_VALUE));
+        if(mapped == null) {
+            return -1;
+        }
+
+        int bytesTransferred = 0;
+        while(mapped.hasRemaining()) {
+            bytesTransferred += target.write(mapped);
+        }
+        position += bytesTransferred;
+        return bytesTransferred;
+    }
+
+    /**
+     * Get a view of the mapped file starting at the current position. The view is limited by
+     * the requested length, the end of the file and the end of the current window.
+     *
+     * @param length Maximum number of bytes in the view.
+     * @return A view of the data or <code>null</code> if the end of the file has been reached.
+     */
+    private ByteBuffer mapped(int length) throws IOException {
+        if(position >= size) {
+            return null;
+        }
+
+        if(window == null || position < windowStart || position >= windowStart + window.capacity()) {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                    Math.min(windowSize, size - windowStart));
+        }
+
+        ByteBuffer view = window.duplicate();
+        int start = (int) (position - windowStart);
+        view.position(start);
+        view.limit(start + Math.min(length, view.capacity() - start));
+        return view;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,854 @@
+package io.tus.java.client;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class uploads files using non-blocking sockets which are multiplexed on a small, fixed
+ * number of selector threads, instead of occupying one thread per upload as {@link TusUploader}
+ * and {@link TusUploadTask} do. It is intended for uploading a large number of files at the same
+ * time, especially to or over slow connections, where most uploads spend their time waiting for
+ * the network.
+ * <br>
+ * The engine speaks a minimal subset of HTTP/1.1 itself: every upload is resumed using a HEAD
+ * request if its URL can be found in the client's {@link TusURLStore}, or created using a POST
+ * request otherwise, after which the remaining data is sent in a single PATCH request. Data is
+ * read into direct buffers borrowed from the client's {@link TusBufferPool}. Files created using
+ * {@link TusUpload#TusUpload(java.io.File)} are read using positional reads of their channel.
+ * Uploads backed by an input stream are read on the selector thread, so the stream should not
+ * block for long, and they cannot be retried once data has been sent.
+ * <br>
+ * The client passed to {@link #submit} provides the upload creation URL, the URL store, the retry
+ * policy and the instrumentation. Since the engine does not use HttpURLConnection, the
+ * client's transport, checksums, rate limiters and the creation-with-upload and
+ * creation-defer-length extensions are not supported, and neither is HTTPS.
+ */
+public class TusNioEngine {
+    private final static Charset ASCII = Charset.forName("US-ASCII");
+
+    private final Loop[] loops;
+    private final AtomicInteger nextLoop = new AtomicInteger();
+    private final AtomicInteger activeUploads = new AtomicInteger();
+    private volatile int bufferSize = 64 * 1024;
+    private volatile boolean closed;
+
+    /**
+     * Create a new engine and start its selector threads.
+     *
+     * @param threads Number of selector threads which will be shared by all uploads
+     * @throws IOException Thrown if a selector cannot be opened.
+     */
+    public TusNioEngine(int threads) throws IOException {
+        if(threads < 1) {
+            throw new IllegalArgumentException("number of threads must be positive");
+        }
+
+        loops = new Loop[threads];
+        for(int i = 0; i < threads; i++) {
+            loops[i] = new Loop(Selector.open());
+            Thread thread = new Thread(loops[i], "tus-nio-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Set the size of the direct buffers which data is read into before it is written to a
+     * socket. Every upload which is currently sending data holds one buffer, which is borrowed
+     * from the client's {@link TusBufferPool} and may be larger than the given size.
+     *
+     * @param bufferSize The size in bytes used for buffers borrowed afterwards
+     */
+    public void setBufferSize(int bufferSize) {
+        if(bufferSize <= 0) {
+            throw new IllegalArgumentException("buffer size must be positive");
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Get the number of uploads which have been submitted but not completed, yet.
+     *
+     * @return Number of running uploads.
+     */
+    public int getActiveUploads() {
+        return activeUploads.get();
+    }
+
+    /**
+     * Start uploading a file. This method returns immediately.
+     * <br>
+     * The listener is called on a selector thread, so it must return quickly. Cancelling the
+     * returned future closes the upload's connection, after which it can be resumed later.
+     *
+     * @param client The client providing the creation URL, URL store and retry policy
+     * @param upload The file which will be uploaded
+     * @param listener Notified about the upload's progress and outcome, may be <code>null</code>
+     * @return A future completing with the result once the upload has finished.
+     */
+    public Future<TusUploadResult> submit(TusClient client, TusUpload upload, TusUploadListener listener) {
+        Loop loop = loops[(nextLoop.getAndIncrement() & Integer.MAX_VALUE) % loops.length];
+        final NioUpload nioUpload = new NioUpload(loop, client, upload, listener);
+
+        activeUploads.incrementAndGet();
+        if(closed) {
+            nioUpload.fail(new IOException("engine has been closed"));
+            return nioUpload.result;
+        }
+
+        loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                nioUpload.start();
+            }
+        });
+        return nioUpload.result;
+    }
+
+    /**
+     * Stop all selector threads. Running uploads fail with an IOException and can be resumed
+     * later.
+     */
+    public void close() {
+        closed = true;
+        for(final Loop loop : loops) {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    loop.shutdown();
+                }
+            });
+        }
+    }
+
+    /**
+     * A selector thread and the state shared by the uploads assigned to it. All fields are only
+     * accessed by the thread itself.
+     */
+    private class Loop implements Runnable {
+        private final Selector selector;
+        private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+        private final PriorityQueue<NioUpload> timers = new PriorityQueue<NioUpload>();
+        private final Set<NioUpload> uploads = new HashSet<NioUpload>();
+        private boolean running = true;
+
+        Loop(Selector selector) {
+            this.selector = selector;
+        }
+
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while(running) {
+                long timeout = 0;
+                NioUpload timer = timers.peek();
+                if(timer != null) {
+                    timeout = Math.max(1, (timer.retryAt - System.nanoTime()) / 1000000);
+                }
+
+                try {
+                    selector.select(timeout);
+                } catch(IOException e) {
+                    shutdown();
+                    return;
+                }
+
+                Runnable task;
+                while((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                if(!running) {
+                    return;
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while(keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    ((NioUpload) key.attachment()).handle(key);
+                }
+
+                long now = System.nanoTime();
+                while(!timers.isEmpty() && timers.peek().retryAt <= now) {
+                    timers.poll().resync();
+                }
+            }
+        }
+
+        void shutdown() {
+            running = false;
+            for(NioUpload upload : new ArrayList<NioUpload>(uploads)) {
+                upload.fail(new IOException("engine has been closed"));
+            }
+            try {
+                selector.close();
+            } catch(IOException e) {
+                // Nothing left to clean up.
+            }
+        }
+
+    }
+
+    /**
+     * Settable future returned by {@link #submit}.
+     */
+    private static class Result extends FutureTask<TusUploadResult> {
+        private NioUpload upload;
+
+        Result() {
+            super(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }, null);
+        }
+
+        void succeed(TusUploadResult result) {
+            set(result);
+        }
+
+        void fail(Exception e) {
+            setException(e);
+        }
+
+        @Override
+        protected void done() {
+            if(isCancelled() && upload != null) {
+                upload.cancel();
+            }
+        }
+    }
+
+    /**
+     * The state of a single upload and its connection.
+     */
+    private class NioUpload implements Comparable<NioUpload> {
+        private final static int HEAD = 0;
+        private final static int POST = 1;
+        private final static int PATCH = 2;
+        private final String[] methodNames = {"HEAD", "POST", "PATCH"};
+
+        private final Loop loop;
+        private final TusClient client;
+        private final TusUpload upload;
+        private final TusUploadListener listener;
+        private final Result result = new Result();
+
+        private URL uploadURL;
+        private long offset;
+        private long size;
+        private boolean started;
+        private boolean done;
+        private int retryAttempt;
+        private long retryAt;
+        private boolean resyncing;
+
+        private SocketChannel channel;
+        private SelectionKey key;
+        private String connectedTo;
+        private boolean keepAlive;
+
+        private int method;
+        private URL requestURL;
+        private long requestStart;
+        private long requestSent;
+        private long responseStart;
+        private ByteBuffer header;
+        private long bodyRemaining;
+        private ByteBuffer body;
+
+        private ByteBuffer response;
+        private boolean headersDone;
+        private int statusCode;
+        private Map<String, String> responseHeaders;
+        private long discardRemaining;
+
+        private FileChannel file;
+        private ReadableByteChannel stream;
+        private long streamPosition;
+        private long bodyPosition;
+
+        NioUpload(Loop loop, TusClient client, TusUpload upload, TusUploadListener listener) {
+            this.loop = loop;
+            this.client = client;
+            this.upload = upload;
+            this.listener = listener;
+            result.upload = this;
+        }
+
+        void start() {
+            started = true;
+            loop.uploads.add(this);
+            size = upload.getSize();
+            try {
+                if(upload.isSizeDeferred()) {
+                    throw new IOException("uploads of deferred size are not supported by TusNioEngine");
+                }
+
+                URL storedURL = null;
+                if(client.resumingEnabled() && upload.getFingerprint() != null) {
+                    storedURL = client.getURLStore().get(upload.getFingerprint());
+                }
+
+                if(storedURL != null) {
+                    uploadURL = storedURL;
+                    send(HEAD, uploadURL);
+                } else {
+                    send(POST, client.getUploadCreationURL());
+                }
+            } catch(IOException e) {
+                fail(e);
+            }
+        }
+
+        void cancel() {
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if(!done) {
+                        finish();
+                        notifyFailure(new InterruptedIOException("upload has been cancelled at offset " + offset));
+                    }
+                }
+            });
+        }
+
+        /**
+         * Build a request and start sending it, connecting first if necessary.
+         */
+        private void send(int method, URL url) throws IOException {
+            if(url == null) {
+                throw new IOException("missing URL for " + methodNames[method] + " request");
+            }
+            if(!url.getProtocol().equals("http")) {
+                throw new IOException("only http URLs are supported by TusNioEngine: " + url);
+            }
+
+            this.method = method;
+            requestURL = url;
+            requestStart = System.nanoTime();
+            responseStart = -1;
+            headersDone = false;
+            responseHeaders = null;
+
+            String path = url.getFile();
+            StringBuilder request = new StringBuilder(256);
+            request.append(methodNames[method]).append(' ').append(path.length() == 0 ? "/" : path).append(" HTTP/1.1\r\n");
+            request.append("Host: ").append(url.getHost());
+            if(url.getPort() != -1) {
+                request.append(':').append(url.getPort());
+            }
+            request.append("\r\nTus-Resumable: ").append(TusClient.TUS_VERSION).append("\r\n");
+
+            bodyRemaining = 0;
+            if(method == POST) {
+                request.append("Upload-Length: ").append(size).append("\r\n");
+                String metadata = upload.getEncodedMetadata();
+                if(metadata.length() > 0) {
+                    request.append("Upload-Metadata: ").append(metadata).append("\r\n");
+                }
+                request.append("Content-Length: 0\r\n");
+            } else if(method == PATCH) {
+                prepareBody();
+                bodyRemaining = size - offset;
+                request.append("Upload-Offset: ").append(offset).append("\r\n");
+                request.append("Content-Type: application/offset+octet-stream\r\n");
+                request.append("Content-Length: ").append(bodyRemaining).append("\r\n");
+            }
+            request.append("\r\n");
+            header = ByteBuffer.wrap(request.toString().getBytes(ASCII));
+
+            String address = url.getHost() + ":" + url.getPort();
+            if(channel != null && channel.isOpen() && address.equals(connectedTo)) {
+                key.interestOps(SelectionKey.OP_WRITE);
+                return;
+            }
+
+            closeChannel();
+            int port = url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            connectedTo = address;
+            keepAlive = true;
+            if(channel.connect(new InetSocketAddress(url.getHost(), port))) {
+                key = channel.register(loop.selector, SelectionKey.OP_WRITE, this);
+            } else {
+                key = channel.register(loop.selector, SelectionKey.OP_CONNECT, this);
+            }
+        }
+
+        /**
+         * Position the data at the current offset before sending a PATCH request.
+         */
+        private void prepareBody() throws IOException {
+            bodyPosition = offset;
+            if(upload.getSource() != null) {
+                upload.getSource().seek(offset);
+                return;
+            }
+
+            if(upload.getFile() != null) {
+                if(file == null) {
+                    file = new FileInputStream(upload.getFile()).getChannel();
+                }
+                return;
+            }
+
+            InputStream input = upload.getInputStream();
+            if(stream == null) {
+                stream = Channels.newChannel(input);
+            }
+            if(offset < streamPosition) {
+                throw new IOException("unable to rewind stream from " + streamPosition + " to offset " + offset);
+            }
+            TusUploader.skipFully(input, offset - streamPosition);
+            streamPosition = offset;
+        }
+
+        void handle(SelectionKey key) {
+            if(done) {
+                return;
+            }
+
+            try {
+                if(key.isConnectable()) {
+                    channel.finishConnect();
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+                if(key.isWritable()) {
+                    write();
+                } else if(key.isReadable()) {
+                    read();
+                }
+            } catch(CancelledKeyException e) {
+                failRequest(new IOException("connection has been closed"));
+            } catch(IOException e) {
+                failRequest(e);
+            } catch(RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        private void write() throws IOException {
+            if(header.hasRemaining()) {
+                channel.write(header);
+                if(header.hasRemaining()) {
+                    return;
+                }
+            }
+
+            while(bodyRemaining > 0) {
+                if(body == null) {
+                    body = client.getBufferPool().acquireDirect(bufferSize);
+                    body.limit(0);
+                }
+                if(!body.hasRemaining()) {
+                    fill(body);
+                }
+
+                int written = channel.write(body);
+                if(written == 0) {
+                    // Wait until the socket can accept more data.
+                    return;
+                }
+                bodyRemaining -= written;
+
+                if(!body.hasRemaining() && listener != null) {
+                    listener.onProgress(upload, size - bodyRemaining, size);
+                }
+            }
+
+            releaseBody();
+            requestSent = System.nanoTime();
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        /**
+         * Read the next part of the data into the buffer.
+         */
+        private void fill(ByteBuffer buffer) throws IOException {
+            buffer.clear();
+            buffer.limit((int) Math.min(Math.min(bufferSize, buffer.capacity()), bodyRemaining));
+            while(buffer.hasRemaining()) {
+                int read;
+                if(upload.getSource() != null) {
+                    read = (int) upload.getSource().transferTo(new BufferChannel(buffer), buffer.remaining());
+                } else if(file != null) {
+                    read = file.read(buffer, bodyPosition);
+                } else {
+                    read = stream.read(buffer);
+                    if(read > 0) {
+                        streamPosition += read;
+                    }
+                }
+
+                if(read == -1) {
+                    throw new IOException("unexpected end of data at offset " + bodyPosition);
+                }
+                bodyPosition += read;
+            }
+            buffer.flip();
+        }
+
+        private void read() throws IOException {
+            if(response == null) {
+                response = ByteBuffer.allocate(8 * 1024);
+            }
+
+            int read = channel.read(response);
+            if(read > 0 && responseStart == -1) {
+                responseStart = System.nanoTime();
+            }
+            if(read == -1) {
+                if(headersDone && !keepAlive) {
+                    completeResponse();
+                    return;
+                }
+                throw new IOException("connection has been closed by the server");
+            }
+
+            if(!headersDone) {
+                int end = findHeaderEnd(response);
+                if(end == -1) {
+                    if(!response.hasRemaining()) {
+                        throw new IOException("response headers are too large");
+                    }
+                    return;
+                }
+
+                parseHeaders(response, end);
+                headersDone = true;
+
+                long contentLength = 0;
+                String value = responseHeaders.get("content-length");
+                if(method == HEAD || statusCode == 204 || statusCode == 304) {
+                    contentLength = 0;
+                } else if(value != null && responseHeaders.get("transfer-encoding") == null) {
+                    contentLength = Long.parseLong(value.trim());
+                } else if(value != null || responseHeaders.get("transfer-encoding") != null) {
+                    // The body is not needed, so read until the connection is closed instead of
+                    // decoding chunks.
+                    keepAlive = false;
+                    contentLength = Long.MAX_VALUE;
+                }
+                if("close".equalsIgnoreCase(responseHeaders.get("connection"))) {
+                    keepAlive = false;
+                }
+
+                discardRemaining = contentLength - (response.position() - end);
+            } else {
+                discardRemaining -= read;
+            }
+            response.clear();
+
+            if(discardRemaining <= 0 || (!keepAlive && discardRemaining == Long.MAX_VALUE)) {
+                completeResponse();
+            }
+        }
+
+        private int findHeaderEnd(ByteBuffer buffer) {
+            for(int i = 3; i < buffer.position(); i++) {
+                if(buffer.get(i - 3) == '\r' && buffer.get(i - 2) == '\n' && buffer.get(i - 1) == '\r' && buffer.get(i) == '\n') {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+
+        private void parseHeaders(ByteBuffer buffer, int end) throws IOException {
+            String[] lines = new String(buffer.array(), 0, end, ASCII).split("\r\n");
+            String[] status = lines[0].split(" ", 3);
+            if(status.length < 2 || !status[0].startsWith("HTTP/")) {
+                throw new IOException("invalid status line: " + lines[0]);
+            }
+            try {
+                statusCode = Integer.parseInt(status[1]);
+            } catch(NumberFormatException e) {
+                throw new IOException("invalid status line: " + lines[0]);
+            }
+            if(status[0].equals("HTTP/1.0")) {
+                keepAlive = false;
+            }
+
+            responseHeaders = new HashMap<String, String>();
+            for(int i = 1; i < lines.length; i++) {
+                int colon = lines[i].indexOf(':');
+                if(colon > 0) {
+                    responseHeaders.put(lines[i].substring(0, colon).trim().toLowerCase(), lines[i].substring(colon + 1).trim());
+                }
+            }
+        }
+
+        /**
+         * Called once the response to the current request has been received entirely.
+         */
+        private void completeResponse() throws IOException {
+            long now = System.nanoTime();
+            client.getInstrumentation().requestCompleted(methodNames[method], requestURL, statusCode, now - requestStart, responseStart - requestStart, responseStart - requestSent);
+
+            key.interestOps(0);
+            if(!keepAlive) {
+                closeChannel();
+            }
+
+            boolean success = statusCode >= 200 && statusCode < 300;
+            if(method == HEAD) {
+                String value = responseHeaders.get("upload-offset");
+                if(success && value != null) {
+                    offset = parseOffset(value);
+                    resyncing = false;
+                    patchOrSucceed();
+                } else if(!resyncing) {
+                    // The stored upload cannot be resumed, so a new one is created.
+                    send(POST, client.getUploadCreationURL());
+                } else if(!success) {
+                    failRequest(new ProtocolException("unexpected status code (" + statusCode + ") while resuming upload", statusCode));
+                } else {
+                    failRequest(new ProtocolException("missing upload offset in response for resuming upload"));
+                }
+            } else if(method == POST) {
+                if(!success) {
+                    fail(new ProtocolException("unexpected status code (" + statusCode + ") while creating upload", statusCode));
+                    return;
+                }
+
+                String location = responseHeaders.get("location");
+                if(location == null || location.length() == 0) {
+                    fail(new ProtocolException("missing upload URL in response for creating upload"));
+                    return;
+                }
+
+                uploadURL = new URL(requestURL, location);
+                storeURL();
+                offset = 0;
+                patchOrSucceed();
+            } else {
+                if(!success) {
+                    failRequest(new ProtocolException("unexpected status code (" + statusCode + ") while uploading chunk", statusCode));
+                    return;
+                }
+
+                String value = responseHeaders.get("upload-offset");
+                offset = value != null ? parseOffset(value) : size;
+                retryAttempt = 0;
+                patchOrSucceed();
+            }
+        }
+
+        private long parseOffset(String value) throws IOException {
+            try {
+                return Long.parseLong(value);
+            } catch(NumberFormatException e) {
+                throw new IOException("invalid Upload-Offset header: " + value);
+            }
+        }
+
+        private void storeURL() {
+            if(!client.resumingEnabled() || upload.getFingerprint() == null) {
+                return;
+            }
+
+            TusURLStore store = client.getURLStore();
+            if(store instanceof TusExpiringURLStore) {
+                ((TusExpiringURLStore) store).set(upload.getFingerprint(), uploadURL, TusClient.parseDate(responseHeaders.get("upload-expires")));
+            } else {
+                store.set(upload.getFingerprint(), uploadURL);
+            }
+        }
+
+        private void patchOrSucceed() throws IOException {
+            if(offset >= size) {
+                succeed();
+            } else {
+                send(PATCH, uploadURL);
+            }
+        }
+
+        /**
+         * Retry the upload after a failed HEAD or PATCH request according to the client's retry
+         * policy, or fail the upload.
+         */
+        private void failRequest(Exception cause) {
+            if(method == POST || done) {
+                fail(cause);
+                return;
+            }
+
+            closeChannel();
+            releaseBody();
+
+            retryAttempt++;
+            TusRetryPolicy policy = client.getRetryPolicy();
+            if(policy == null || !policy.shouldRetry(retryAttempt, cause)) {
+                fail(cause);
+                return;
+            }
+
+            long delay = policy.getDelay(retryAttempt);
+            client.getInstrumentation().retryScheduled(uploadURL, retryAttempt, delay, cause);
+            retryAt = System.nanoTime() + delay * 1000000;
+            loop.timers.add(this);
+        }
+
+        /**
+         * Fetch the server's offset after the retry delay has passed.
+         */
+        void resync() {
+            if(done) {
+                return;
+            }
+
+            try {
+                resyncing = true;
+                send(HEAD, uploadURL);
+            } catch(IOException e) {
+                failRequest(e);
+            }
+        }
+
+        private void succeed() {
+            finish();
+            client.uploadFinished(upload.getFingerprint());
+
+            TusUploadResult uploadResult = new TusUploadResult(upload, uploadURL, offset);
+            if(listener != null) {
+                listener.onSuccess(uploadResult);
+            }
+            result.succeed(uploadResult);
+        }
+
+        void fail(Exception e) {
+            if(done) {
+                return;
+            }
+            finish();
+            notifyFailure(e);
+            result.fail(e);
+        }
+
+        private void notifyFailure(Exception e) {
+            if(listener != null) {
+                listener.onFailure(upload, e);
+            }
+        }
+
+        /**
+         * Release all resources held by this upload.
+         */
+        private void finish() {
+            done = true;
+            activeUploads.decrementAndGet();
+            // An upload submitted to a closed engine fails on the caller's thread and has never
+            // been seen by the loop, whose state may only be accessed by its own thread.
+            if(started) {
+                loop.uploads.remove(this);
+                loop.timers.remove(this);
+            }
+            closeChannel();
+            releaseBody();
+
+            try {
+                if(file != null) {
+                    file.close();
+                }
+                if(upload.getSource() != null) {
+                    upload.getSource().close();
+                } else if(upload.getInputStream() != null) {
+                    upload.getInputStream().close();
+                }
+            } catch(IOException e) {
+                // The upload's outcome does not depend on closing its data.
+            }
+        }
+
+        private void releaseBody() {
+            if(body != null) {
+                client.getBufferPool().releaseDirect(body);
+                body = null;
+            }
+        }
+
+        private void closeChannel() {
+            if(channel != null) {
+                try {
+                    channel.close();
+                } catch(IOException e) {
+                    // The connection is not used anymore.
+                }
+                channel = null;
+                key = null;
+                connectedTo = null;
+            }
+        }
+
+        @Override
+        public int compareTo(NioUpload other) {
+            return retryAt < other.retryAt ? -1 : (retryAt == other.retryAt ? 0 : 1);
+        }
+    }
+
+    /**
+     * Channel writing into a buffer, used for transferring data from a
+     * {@link TusSeekableSource} into a direct buffer.
+     */
+    private static class BufferChannel implements WritableByteChannel {
+        private final ByteBuffer target;
+
+        BufferChannel(ByteBuffer target) {
+            this.target = target;
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int length = Math.min(src.remaining(), target.remaining());
+            ByteBuffer slice = src.duplicate();
+            slice.limit(slice.position() + length);
+            target.put(slice);
+            src.position(src.position() + length);
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
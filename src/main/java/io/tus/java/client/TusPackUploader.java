@@ -0,0 +1,469 @@
+package io.tus.java.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is used for uploading many small files as a single upload, which saves the two
+ * requests every file would otherwise need for creating and uploading it. The files are packed
+ * into a container which starts with an index followed by the files' contents:
+ * <ol>
+ *  <li>The magic bytes <code>TUSPACK1</code></li>
+ *  <li>The number of entries as a 32-bit integer</li>
+ *  <li>The length of the following index in bytes as a 32-bit integer</li>
+ *  <li>For every entry: the offset of its content from the container's start and its length,
+ *      both as 64-bit integers, followed by the length of its encoded metadata as a 16-bit
+ *      integer and the metadata itself as encoded for the Upload-Metadata header</li>
+ *  <li>The contents of all entries in the order they have been added</li>
+ * </ol>
+ * All integers are unsigned and big-endian. The upload's metadata contains the container's
+ * format, number of entries and index length (see {@link #FORMAT}), so the remote server can
+ * unpack it once the upload has been finished.
+ * <br>
+ * Only uploads created using {@link TusUpload#TusUpload(File)}, whose content is read using
+ * memory-mapped regions, or with a {@link TusSeekableSource} can be packed since the container
+ * must be readable at any offset when a request is retried or the upload is resumed.
+ */
+public class TusPackUploader {
+    /**
+     * Value of the <code>pack-format</code> metadata. The metadata also contains
+     * <code>pack-entries</code>, the number of entries, and <code>pack-index-length</code>, the
+     * number of bytes before the first entry's content.
+     */
+    public final static String FORMAT = "tuspack-1";
+
+    private final static byte[] MAGIC = "TUSPACK1".getBytes(Charset.forName("US-ASCII"));
+
+    private TusClient client;
+    private List<TusUpload> uploads = new ArrayList<TusUpload>();
+    private Map<String, String> metadata;
+    private int chunkSize = 2 * 1024 * 1024;
+    private int windowSize = TusMappedFileSource.DEFAULT_WINDOW_SIZE;
+
+    private TusUploader uploader;
+    private URL uploadURL;
+
+    /**
+     * Create a new packing uploader. No request will be issued until {@link #upload()} is called.
+     *
+     * @param client Used for creating or resuming the upload
+     */
+    public TusPackUploader(TusClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Add a file to the container. Its metadata is stored in the container's index.
+     *
+     * @param upload The file which will be packed. It must have been created from a {@link File}
+     *               or have a {@link TusSeekableSource}.
+     */
+    public void add(TusUpload upload) {
+        if(upload.getFile() == null && upload.getSource() == null) {
+            throw new IllegalArgumentException("packed uploads require a TusUpload created from a File or with a source");
+        }
+        if(uploader != null) {
+            throw new IllegalStateException("uploads cannot be added once the upload has been started");
+        }
+        uploads.add(upload);
+    }
+
+    public List<TusUpload> getUploads() {
+        return Collections.unmodifiableList(uploads);
+    }
+
+    /**
+     * Set additional metadata for the container's upload. The keys used for describing the
+     * container will be overwritten.
+     *
+     * @param metadata Map of keys and values
+     */
+    public void setMetadata(Map<String, String> metadata) {
+        this.metadata = metadata;
+    }
+
+    public Map<String, String> getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Sets the chunk size used by the {@link TusUploader} of the container.
+     *
+     * @param size The new chunk size
+     * @see TusUploader#setChunkSize(int)
+     */
+    public void setChunkSize(int size) {
+        chunkSize = size;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Set the maximum number of bytes of a file which are mapped at the same time. Files larger
+     * than this size are mapped in multiple regions.
+     *
+     * @param windowSize Size of the mapped regions in bytes
+     */
+    public void setWindowSize(int windowSize) {
+        if(windowSize <= 0) {
+            throw new IllegalArgumentException("window size must be positive");
+        }
+        this.windowSize = windowSize;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Get the number of bytes of the container which have been uploaded. This value can be read
+     * from any thread while {@link #upload()} is running.
+     *
+     * @return The container's offset.
+     */
+    public long getOffset() {
+        TusUploader current = uploader;
+        return current == null ? 0 : current.getOffset();
+    }
+
+    /**
+     * Get the URL of the container's upload.
+     *
+     * @return The upload's URL or <code>null</code> if {@link #upload()} has not finished, yet.
+     */
+    public URL getUploadURL() {
+        return uploadURL;
+    }
+
+    /**
+     * Pack all added files and upload the container. If resuming has been enabled on the
+     * {@link TusClient}, the container is stored using a fingerprint derived from the fingerprints
+     * of all files, so an interrupted upload of the same files in the same order is resumed. This
+     * method blocks until the container has been uploaded entirely.
+     *
+     * @return The URL of the container's upload.
+     * @throws ProtocolException Thrown if the remote server sent an unexpected response.
+     * @throws IOException Thrown if an exception occurs while reading the files or issuing the
+     * HTTP requests.
+     */
+    public URL upload() throws ProtocolException, IOException {
+        if(uploads.isEmpty()) {
+            throw new IllegalStateException("no uploads have been added");
+        }
+
+        PackSource source = new PackSource(uploads, windowSize);
+        TusUpload pack = new TusUpload();
+        pack.setSize(source.getSize());
+        pack.setSource(source);
+        pack.setFingerprint(fingerprint());
+
+        Map<String, String> packMetadata = new HashMap<String, String>();
+        if(metadata != null) {
+            packMetadata.putAll(metadata);
+        }
+        packMetadata.put("pack-format", FORMAT);
+        packMetadata.put("pack-entries", Integer.toString(uploads.size()));
+        packMetadata.put("pack-index-length", Integer.toString(source.getIndexLength()));
+        pack.setMetadata(packMetadata);
+
+        try {
+            uploader = client.resumeOrCreateUpload(pack);
+        } catch(IOException e) {
+            source.close();
+            throw e;
+        } catch(ProtocolException e) {
+            source.close();
+            throw e;
+        }
+
+        uploader.setChunkSize(chunkSize);
+        try {
+            while(uploader.uploadChunk() > -1) {
+                if(Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("packed upload has been cancelled");
+                }
+            }
+        } finally {
+            uploader.finish();
+        }
+
+        uploadURL = uploader.getUploadURL();
+        return uploadURL;
+    }
+
+    /**
+     * Derive the container's fingerprint from the fingerprints of all files.
+     *
+     * @return The fingerprint or <code>null</code> if any file does not have one.
+     */
+    private String fingerprint() {
+        MessageDigest digest = TusFingerprinter.newDigest();
+        Charset utf8 = Charset.forName("UTF-8");
+        for(TusUpload upload : uploads) {
+            if(upload.getFingerprint() == null) {
+                return null;
+            }
+            byte[] fingerprint = upload.getFingerprint().getBytes(utf8);
+            TusFingerprinter.updateLong(digest, fingerprint.length);
+            digest.update(fingerprint);
+        }
+        return "pack-sha256-" + TusFingerprinter.hex(digest.digest());
+    }
+
+    /**
+     * Build the container's index.
+     *
+     * @return The bytes preceding the first entry's content.
+     */
+    static byte[] buildIndex(List<TusUpload> uploads) throws IOException {
+        Charset utf8 = Charset.forName("UTF-8");
+        List<byte[]> entryMetadata = new ArrayList<byte[]>(uploads.size());
+        int indexLength = 0;
+        for(TusUpload upload : uploads) {
+            byte[] encoded = upload.getEncodedMetadata().getBytes(utf8);
+            if(encoded.length > 0xFFFF) {
+                throw new IOException("metadata of packed upload is too large: " + encoded.length + " bytes");
+            }
+            entryMetadata.add(encoded);
+            indexLength += 8 + 8 + 2 + encoded.length;
+        }
+
+        int headerLength = MAGIC.length + 4 + 4 + indexLength;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(headerLength);
+        DataOutputStream output = new DataOutputStream(buffer);
+        output.write(MAGIC);
+        output.writeInt(uploads.size());
+        output.writeInt(indexLength);
+
+        long offset = headerLength;
+        for(int i = 0; i < uploads.size(); i++) {
+            long length = uploads.get(i).getSize();
+            output.writeLong(offset);
+            output.writeLong(length);
+            output.writeShort(entryMetadata.get(i).length);
+            output.write(entryMetadata.get(i));
+            offset += length;
+        }
+        output.flush();
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Source reading the container, consisting of the index followed by the content of every
+     * entry. Files are mapped in regions of the window size, so only one region is mapped at a
+     * time.
+     */
+    static class PackSource implements TusSeekableSource {
+        private final List<TusUpload> entries;
+        private final ByteBuffer index;
+        private final long[] starts;
+        private final long size;
+        private final int windowSize;
+        private long position;
+
+        private int mappedEntry = -1;
+        private FileChannel channel;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        PackSource(List<TusUpload> entries, int windowSize) throws IOException {
+            this.entries = new ArrayList<TusUpload>(entries);
+            this.windowSize = windowSize;
+            index = ByteBuffer.wrap(buildIndex(entries));
+
+            starts = new long[entries.size()];
+            long start = index.capacity();
+            for(int i = 0; i < starts.length; i++) {
+                starts[i] = start;
+                start += entries.get(i).getSize();
+            }
+            size = start;
+        }
+
+        int getIndexLength() {
+            return index.capacity();
+        }
+
+        @Override
+        public void seek(long position) {
+            this.position = position;
+        }
+
+        @Override
+        public long getPosition() {
+            return position;
+        }
+
+        @Override
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if(position >= size) {
+                return -1;
+            }
+
+            int entry = entryAt(position);
+            if(entry != -1 && entries.get(entry).getFile() == null) {
+                TusSeekableSource source = entries.get(entry).getSource();
+                source.seek(position - starts[entry]);
+                int bytesRead = source.read(buffer, offset, (int) Math.min(length, remaining(entry)));
+                if(bytesRead == -1) {
+                    throw new IOException("unexpected end of packed upload " + entry);
+                }
+                position += bytesRead;
+                return bytesRead;
+            }
+
+            ByteBuffer view = view(entry, length);
+            int bytesRead = view.remaining();
+            view.get(buffer, offset, bytesRead);
+            position += bytesRead;
+            return bytesRead;
+        }
+
+        @Override
+        public long transferTo(WritableByteChannel target, long count) throws IOException {
+            if(position >= size) {
+                return -1;
+            }
+
+            int entry = entryAt(position);
+            if(entry != -1 && entries.get(entry).getFile() == null) {
+                TusSeekableSource source = entries.get(entry).getSource();
+                source.seek(position - starts[entry]);
+                long bytesTransferred = source.transferTo(target, Math.min(count, remaining(entry)));
+                if(bytesTransferred == -1) {
+                    throw new IOException("unexpected end of packed upload " + entry);
+                }
+                position += bytesTransferred;
+                return bytesTransferred;
+            }
+
+            ByteBuffer view = view(entry, (int) Math.min(count, Integer.MAX_VALUE));
+            int bytesTransferred = 0;
+            while(view.hasRemaining()) {
+                bytesTransferred += target.write(view);
+            }
+            position += bytesTransferred;
+            return bytesTransferred;
+        }
+
+        /**
+         * Find the entry containing the current position.
+         *
+         * @return The entry's index or -1 if the position lies within the container's index.
+         */
+        private int entryAt(long position) {
+            if(position < index.capacity()) {
+                return -1;
+            }
+
+            // Find the last entry starting at or before the position, which skips empty entries.
+            int low = 0;
+            int high = starts.length - 1;
+            while(low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if(starts[middle] <= position) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return low;
+        }
+
+        private long remaining(int entry) {
+            return starts[entry] + entries.get(entry).getSize() - position;
+        }
+
+        /**
+         * Get a view of the index or a file's mapped region starting at the current position.
+         */
+        private ByteBuffer view(int entry, int length) throws IOException {
+            if(entry == -1) {
+                ByteBuffer view = index.duplicate();
+                view.position((int) position);
+                view.limit((int) Math.min(index.capacity(), position + length));
+                return view;
+            }
+
+            long entryPosition = position - starts[entry];
+            long entrySize = entries.get(entry).getSize();
+            if(entry != mappedEntry) {
+                closeChannel();
+                channel = new FileInputStream(entries.get(entry).getFile()).getChannel();
+                mappedEntry = entry;
+            }
+            if(window == null || entryPosition < windowStart || entryPosition >= windowStart + window.capacity()) {
+                windowStart = entryPosition;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(windowSize, entrySize - windowStart));
+            }
+
+            ByteBuffer view = window.duplicate();
+            int start = (int) (entryPosition - windowStart);
+            view.position(start);
+            view.limit(start + Math.min(length, view.capacity() - start));
+            return view;
+        }
+
+        private void closeChannel() throws IOException {
+            window = null;
+            mappedEntry = -1;
+            if(channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+
+        /**
+         * Close the currently mapped file and the streams and sources of all entries.
+         */
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            try {
+                closeChannel();
+            } catch(IOException e) {
+                failure = e;
+            }
+
+            for(TusUpload entry : entries) {
+                try {
+                    if(entry.getSource() != null) {
+                        entry.getSource().close();
+                    }
+                    if(entry.getInputStream() != null) {
+                        entry.getInputStream().close();
+                    }
+                } catch(IOException e) {
+                    failure = e;
+                }
+            }
+
+            if(failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package io.tus.java.client;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class is used for uploading a single file using multiple connections in parallel. The file
+ * is split into byte ranges which are uploaded as partial uploads and, once all of them have been
+ * finished, combined into the final upload using the Concatenation extension. The remote server
+ * must support this extension. If capability discovery has been enabled on the
+ * {@link TusClient} and the server does not announce the extension, the file is uploaded as a
+ * single upload instead.
+ * <br>
+ * If resuming has been enabled on the {@link TusClient}, every partial upload is stored using the
+ * upload's fingerprint and the part's index. Interrupted partial uploads will therefore be resumed
+ * individually the next time {@link #upload()} is called for the same file.
+ * <br>
+ * Only uploads created using {@link TusUpload#TusUpload(File)} can be split since every part
+ * needs to read from its own position of the file.
+ */
+public class TusParallelUploader {
+    private TusClient client;
+    private TusUpload upload;
+    private int parallelUploads;
+    private int chunkSize = 2 * 1024 * 1024;
+    private ExecutorService executor;
+
+    private AtomicLongArray offsets;
+    private URL uploadURL;
+
+    /**
+     * Create a new parallel uploader. No request will be issued until {@link #upload()} is
+     * called.
+     *
+     * @param client Used for creating, resuming and concatenating the partial uploads
+     * @param upload The file which will be uploaded. It must have been created from a {@link File}.
+     * @param parallelUploads Number of partial uploads the file will be split into
+     */
+    public TusParallelUploader(TusClient client, TusUpload upload, int parallelUploads) {
+        if(upload.getFile() == null) {
+            throw new IllegalArgumentException("parallel uploads require a TusUpload created from a File");
+        }
+        if(parallelUploads < 1) {
+            throw new IllegalArgumentException("number of parallel uploads must be positive");
+        }
+
+        this.client = client;
+        this.upload = upload;
+        // Do not create empty partial uploads for files smaller than the number of parts.
+        this.parallelUploads = (int) Math.max(1, Math.min(parallelUploads, upload.getSize()));
+    }
+
+    /**
+     * Set the executor which runs the partial uploads. If none is set, a fixed thread pool with
+     * one thread for every partial upload is created and shut down for each call to
+     * {@link #upload()}. A supplied executor will not be shut down.
+     *
+     * @param executor The executor used for uploading the parts
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the chunk size used by the {@link TusUploader} of every partial upload.
+     *
+     * @param size The new chunk size
+     * @see TusUploader#setChunkSize(int)
+     */
+    public void setChunkSize(int size) {
+        chunkSize = size;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getParallelUploads() {
+        return parallelUploads;
+    }
+
+    /**
+     * Get the number of bytes uploaded in all partial uploads. This value can be read from any
+     * thread while {@link #upload()} is running and used in conjunction with
+     * {@link TusUpload#getSize()} to calculate the progress.
+     *
+     * @return The sum of all partial uploads' offsets.
+     */
+    public long getOffset() {
+        if(offsets == null) {
+            return 0;
+        }
+
+        long offset = 0;
+        for(int i = 0; i < offsets.length(); i++) {
+            offset += offsets.get(i);
+        }
+        return offset;
+    }
+
+    /**
+     * Get the URL of the final upload.
+     *
+     * @return The final upload's URL or <code>null</code> if {@link #upload()} has not finished, yet.
+     */
+    public URL getUploadURL() {
+        return uploadURL;
+    }
+
+    /**
+     * Upload the file's parts in parallel and concatenate them afterwards. This method blocks
+     * until all parts have been uploaded and the final upload has been created. If the server
+     * does not support concatenation, the file is uploaded as a single upload.
+     *
+     * @return The URL of the final upload.
+     * @throws ProtocolException Thrown if the remote server sent an unexpected response for any
+     * of the requests.
+     * @throws IOException Thrown if an exception occurs while reading the file or issuing the
+     * HTTP requests.
+     */
+    public URL upload() throws ProtocolException, IOException {
+        long size = upload.getSize();
+        if(!concatenationSupported()) {
+            offsets = new AtomicLongArray(1);
+            try {
+                uploadURL = uploadRange(0, 0, size, false);
+            } finally {
+                if(upload.getInputStream() != null) {
+                    upload.getInputStream().close();
+                }
+            }
+            return uploadURL;
+        }
+
+        long partSize = (size + parallelUploads - 1) / parallelUploads;
+        offsets = new AtomicLongArray(parallelUploads);
+
+        ExecutorService service = executor;
+        if(service == null) {
+            service = Executors.newFixedThreadPool(parallelUploads);
+        }
+
+        List<Future<URL>> futures = new ArrayList<Future<URL>>(parallelUploads);
+        try {
+            for(int i = 0; i < parallelUploads; i++) {
+                long start = i * partSize;
+                long length = Math.min(partSize, size - start);
+                futures.add(service.submit(new PartUpload(i, start, length)));
+            }
+
+            List<URL> partialURLs = new ArrayList<URL>(parallelUploads);
+            for(Future<URL> future : futures) {
+                partialURLs.add(await(future));
+            }
+
+            uploadURL = client.concatenateUploads(upload, partialURLs);
+        } finally {
+            for(Future<URL> future : futures) {
+                future.cancel(true);
+            }
+            if(executor == null) {
+                service.shutdownNow();
+            }
+            // Every part reads from its own channel, so the stream opened by TusUpload(File) is
+            // never read and has to be closed here.
+            if(upload.getInputStream() != null) {
+                upload.getInputStream().close();
+            }
+        }
+
+        TusURLStore store = client.getURLStore();
+        if(client.resumingEnabled() && upload.getFingerprint() != null) {
+            for(int i = 0; i < parallelUploads; i++) {
+                store.remove(partFingerprint(i));
+            }
+        }
+
+        return uploadURL;
+    }
+
+    /**
+     * Check the server's capabilities if capability discovery has been enabled on the client.
+     * Servers whose capabilities are unknown are assumed to support concatenation.
+     */
+    private boolean concatenationSupported() throws ProtocolException, IOException {
+        if(!client.capabilityDiscoveryEnabled()) {
+            return true;
+        }
+        TusServerCapabilities capabilities = client.getServerCapabilities();
+        return !capabilities.isDiscovered() || capabilities.supportsExtension("concatenation");
+    }
+
+    private URL await(Future<URL> future) throws ProtocolException, IOException {
+        try {
+            return future.get();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for partial uploads");
+        } catch(ExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof ProtocolException) {
+                throw (ProtocolException) cause;
+            } else if(cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private String partFingerprint(int index) {
+        return upload.getFingerprint() + "-part-" + index + "-of-" + parallelUploads;
+    }
+
+    /**
+     * Uploads a single byte range of the file as a partial upload.
+     */
+    private class PartUpload implements Callable<URL> {
+        private int index;
+        private long start;
+        private long length;
+
+        PartUpload(int index, long start, long length) {
+            this.index = index;
+            this.start = start;
+            this.length = length;
+        }
+
+        @Override
+        public URL call() throws Exception {
+            return uploadRange(index, start, length, true);
+        }
+    }
+
+    /**
+     * Upload a byte range of the file and report its progress in the given slot of the offsets.
+     *
+     * @param partial True if the range is uploaded as a partial upload which will be
+     *                concatenated, false if it is the entire file
+     * @return The URL of the created upload.
+     */
+    private URL uploadRange(int index, long start, long length, boolean partial) throws ProtocolException, IOException {
+        // Every part reads its byte range from its own channel, so it can be transferred
+        // directly and resumed by seeking to the server's offset.
+        TusSeekableSource source = new TusFileChannelSource(new FileInputStream(upload.getFile()).getChannel(), start, length);
+
+        TusUpload part = new TusUpload();
+        part.setSize(length);
+        part.setSource(source);
+        part.setPartial(partial);
+        if(!partial) {
+            // Partial uploads receive the metadata once they are concatenated.
+            part.setMetadata(upload.getMetadata());
+        }
+        if(upload.getFingerprint() != null) {
+            part.setFingerprint(partial ? partFingerprint(index) : upload.getFingerprint());
+        }
+
+        TusUploader uploader;
+        try {
+            uploader = client.resumeOrCreateUpload(part);
+        } catch(IOException e) {
+            source.close();
+            throw e;
+        } catch(ProtocolException e) {
+            source.close();
+            throw e;
+        }
+
+        uploader.setChunkSize(chunkSize);
+        offsets.set(index, uploader.getOffset());
+        try {
+            while(uploader.uploadChunk() > -1) {
+                offsets.set(index, uploader.getOffset());
+                if(Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("upload has been cancelled");
+                }
+            }
+        } catch(Exception e) {
+            // Cleaning up after a failed request usually fails as well, which must not hide
+            // the original failure.
+            try {
+                uploader.finish();
+            } catch(Exception finishFailure) {
+                e.addSuppressed(finishFailure);
+            }
+            throw e;
+        }
+        uploader.finish();
+
+        return uploader.getUploadURL();
+    }
+}
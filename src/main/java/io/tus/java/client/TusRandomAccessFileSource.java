@@ -0,0 +1,70 @@
+package io.tus.java.client;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * This class is a {@link TusSeekableSource} reading from a {@link RandomAccessFile}.
+ */
+public class TusRandomAccessFileSource implements TusSeekableSource {
+    private RandomAccessFile file;
+
+    /**
+     * Create a new source by opening the file for reading.
+     *
+     * @param file The file to read from.
+     * @throws FileNotFoundException Thrown if the file cannot be found.
+     */
+    public TusRandomAccessFileSource(File file) throws FileNotFoundException {
+        this(new RandomAccessFile(file, "r"));
+    }
+
+    /**
+     * Create a new source. The file's current pointer is used as read position.
+     *
+     * @param file The file to read from. It will be closed by {@link #close()}.
+     */
+    public TusRandomAccessFileSource(RandomAccessFile file) {
+        this.file = file;
+    }
+
+    @Override
+    public void seek(long position) throws IOException {
+        file.seek(position);
+    }
+
+    @Override
+    public long getPosition() throws IOException {
+        return file.getFilePointer();
+    }
+
+    @Override
+    public long getSize() throws IOException {
+        return file.length();
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        return file.read(buffer, offset, length);
+    }
+
+    @Override
+    public long transferTo(WritableByteChannel target, long count) throws IOException {
+        long position = file.getFilePointer();
+        if(position >= file.length()) {
+            return -1;
+        }
+
+        long bytesTransferred = file.getChannel().transferTo(position, count, target);
+        file.seek(position + bytesTransferred);
+        return bytesTransferred;
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
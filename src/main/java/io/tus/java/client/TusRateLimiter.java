@@ -0,0 +1,152 @@
+package io.tus.java.client;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class limits the rate at which uploads write data using a token bucket. It can be set for
+ * a single uploader using {@link TusUploader#setRateLimiter(TusRateLimiter)} or for all uploaders
+ * of a client using {@link TusClient#setRateLimiter(TusRateLimiter)}. Sharing one instance
+ * between multiple clients limits the total rate of all their uploads.
+ * <br>
+ * Uploaders request permission for small slices of each chunk. Waiting uploaders are served in
+ * the order they have arrived, so concurrent uploads sharing a limiter receive equal shares of
+ * the rate. The rate can be changed at any time and applies to waiting uploaders immediately.
+ */
+public class TusRateLimiter {
+    // Waiting uploaders queue for the turn, while the state is guarded by the lock.
+    private final ReentrantLock turn = new ReentrantLock(true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition rateChanged = lock.newCondition();
+
+    private long bytesPerSecond;
+    private long burstBytes;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Create a new limiter which allows bursts of up to one second of data.
+     *
+     * @param bytesPerSecond Maximum average rate in bytes per second or 0 for no limit
+     */
+    public TusRateLimiter(long bytesPerSecond) {
+        this(bytesPerSecond, bytesPerSecond);
+    }
+
+    /**
+     * Create a new limiter.
+     *
+     * @param bytesPerSecond Maximum average rate in bytes per second or 0 for no limit
+     * @param burstBytes Maximum number of bytes which may be written at once after the limiter
+     *                   has been idle
+     */
+    public TusRateLimiter(long bytesPerSecond, long burstBytes) {
+        setRate(bytesPerSecond, burstBytes);
+        tokens = this.burstBytes;
+        lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Change the rate while keeping the burst size.
+     *
+     * @param bytesPerSecond Maximum average rate in bytes per second or 0 for no limit
+     */
+    public void setRate(long bytesPerSecond) {
+        lock.lock();
+        try {
+            setRate(bytesPerSecond, burstBytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Change the rate and the burst size.
+     *
+     * @param bytesPerSecond Maximum average rate in bytes per second or 0 for no limit
+     * @param burstBytes Maximum number of bytes which may be written at once after the limiter
+     *                   has been idle
+     */
+    public void setRate(long bytesPerSecond, long burstBytes) {
+        if(bytesPerSecond < 0) {
+            throw new IllegalArgumentException("rate must not be negative");
+        }
+
+        lock.lock();
+        try {
+            refill(System.nanoTime());
+            this.bytesPerSecond = bytesPerSecond;
+            this.burstBytes = Math.max(burstBytes, 1);
+            tokens = Math.min(tokens, this.burstBytes);
+            rateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRate() {
+        lock.lock();
+        try {
+            return bytesPerSecond;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getBurstSize() {
+        lock.lock();
+        try {
+            return burstBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until the given number of bytes may be written.
+     *
+     * @param bytes Number of bytes which will be written
+     * @throws InterruptedIOException Thrown if the thread has been interrupted while waiting.
+     */
+    public void acquire(int bytes) throws InterruptedIOException {
+        try {
+            turn.lockInterruptibly();
+            try {
+                lock.lockInterruptibly();
+                try {
+                    while(true) {
+                        if(bytesPerSecond == 0) {
+                            return;
+                        }
+
+                        refill(System.nanoTime());
+                        // Requests larger than the burst size are allowed once the bucket is
+                        // full and leave it in debt.
+                        double required = Math.min(bytes, burstBytes);
+                        if(tokens >= required) {
+                            tokens -= bytes;
+                            return;
+                        }
+
+                        rateChanged.awaitNanos((long) Math.ceil((required - tokens) * 1e9 / bytesPerSecond));
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            } finally {
+                turn.unlock();
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for rate limiter");
+        }
+    }
+
+    private void refill(long now) {
+        if(bytesPerSecond > 0) {
+            tokens = Math.min(burstBytes, tokens + (now - lastRefill) * (bytesPerSecond / 1e9));
+        }
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,151 @@
+package io.tus.java.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * This class decides whether and when a failed upload request should be retried. It is used by
+ * {@link TusUploader} if set using {@link TusClient#setRetryPolicy(TusRetryPolicy)} or
+ * {@link TusUploader#setRetryPolicy(TusRetryPolicy)}.
+ * <br>
+ * Requests failing with an {@link IOException}, e.g. because the connection has been reset, or
+ * with one of the retryable status codes are retried after a delay growing exponentially with
+ * every attempt. A random jitter is subtracted from every delay so that many uploads failing at
+ * the same time do not retry at the same time.
+ */
+public class TusRetryPolicy {
+    private int maxRetries;
+    private long initialDelayMillis = 500;
+    private long maxDelayMillis = 30000;
+    private double multiplier = 2;
+    private double jitter = 0.5;
+    private Set<Integer> retryableStatusCodes = new HashSet<Integer>(Arrays.asList(409, 423, 429, 460, 500, 502, 503, 504));
+    private Random random = new Random();
+
+    /**
+     * Create a new policy using the default delays and status codes.
+     *
+     * @param maxRetries Maximum number of retries after the first failure of a request.
+     */
+    public TusRetryPolicy(int maxRetries) {
+        setMaxRetries(maxRetries);
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        if(maxRetries < 0) {
+            throw new IllegalArgumentException("maximum number of retries must not be negative");
+        }
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Set the delays used between attempts. The first retry will be delayed by the initial delay
+     * which will then be multiplied for every further attempt until the maximum delay is reached.
+     *
+     * @param initialDelayMillis Delay before the first retry in milliseconds
+     * @param maxDelayMillis Upper limit for the delay in milliseconds
+     * @param multiplier Factor applied to the delay after every attempt
+     */
+    public void setDelays(long initialDelayMillis, long maxDelayMillis, double multiplier) {
+        if(initialDelayMillis < 0 || maxDelayMillis < initialDelayMillis || multiplier < 1) {
+            throw new IllegalArgumentException("invalid delays");
+        }
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.multiplier = multiplier;
+    }
+
+    public long getInitialDelay() {
+        return initialDelayMillis;
+    }
+
+    public long getMaxDelay() {
+        return maxDelayMillis;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    /**
+     * Set the fraction of every delay which is randomized. With a jitter of 0.5, for example, the
+     * actual delay lies between half and the full calculated delay.
+     *
+     * @param jitter A value between 0 (no jitter) and 1
+     */
+    public void setJitter(double jitter) {
+        if(jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("jitter must be between 0 and 1");
+        }
+        this.jitter = jitter;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    /**
+     * Set the status codes of responses which will be retried. By default, these are 409
+     * (mismatching offset), 423 (upload locked), 429 (too many requests), 460 (checksum mismatch)
+     * and 500, 502, 503 and 504 (server errors).
+     *
+     * @param statusCodes The retryable status codes
+     */
+    public void setRetryableStatusCodes(Set<Integer> statusCodes) {
+        retryableStatusCodes = new HashSet<Integer>(statusCodes);
+    }
+
+    public Set<Integer> getRetryableStatusCodes() {
+        return retryableStatusCodes;
+    }
+
+    /**
+     * Decide whether a request should be retried.
+     *
+     * @param attempt Number of the retry which would be made, starting at 1
+     * @param e The exception which caused the request to fail
+     * @return True if the request should be retried.
+     */
+    public boolean shouldRetry(int attempt, Exception e) {
+        if(attempt > maxRetries) {
+            return false;
+        }
+
+        if(e instanceof ProtocolException) {
+            return retryableStatusCodes.contains(((ProtocolException) e).getStatusCode());
+        }
+
+        if(e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException)) {
+            // The upload has been cancelled.
+            return false;
+        }
+
+        return e instanceof IOException;
+    }
+
+    /**
+     * Calculate the delay before a retry.
+     *
+     * @param attempt Number of the retry, starting at 1
+     * @return The delay in milliseconds.
+     */
+    public long getDelay(int attempt) {
+        double delay = initialDelayMillis * Math.pow(multiplier, attempt - 1);
+        delay = Math.min(delay, maxDelayMillis);
+
+        double factor;
+        synchronized(random) {
+            factor = 1 - jitter * random.nextDouble();
+        }
+        return (long) (delay * factor);
+    }
+}
@@ -0,0 +1,74 @@
+package io.tus.java.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+
+/**
+ * This class fingerprints a file by hashing its size and three blocks taken from its head,
+ * middle and tail. Only a few kilobytes are read regardless of the file's size, so this strategy
+ * is fast enough to be used for every upload. Files which differ only outside of the sampled
+ * blocks receive the same fingerprint, use {@link TusContentFingerprinter} if this is not
+ * acceptable.
+ */
+public class TusSampledFingerprinter extends TusFingerprinter {
+    /**
+     * Default size of each sampled block in bytes.
+     */
+    public final static int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    private int blockSize;
+
+    public TusSampledFingerprinter() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Create a new fingerprinter.
+     *
+     * @param blockSize Number of bytes sampled at each of the three positions
+     */
+    public TusSampledFingerprinter(int blockSize) {
+        if(blockSize <= 0) {
+            throw new IllegalArgumentException("block size must be positive");
+        }
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    protected String calculate(File file) throws IOException {
+        MessageDigest digest = newDigest();
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            long size = raf.length();
+            updateLong(digest, size);
+
+            byte[] buffer = new byte[blockSize];
+            if(size <= 3L * blockSize) {
+                // Small files are hashed entirely.
+                update(digest, raf, buffer, 0, size);
+            } else {
+                update(digest, raf, buffer, 0, blockSize);
+                update(digest, raf, buffer, (size - blockSize) / 2, blockSize);
+                update(digest, raf, buffer, size - blockSize, blockSize);
+            }
+        } finally {
+            raf.close();
+        }
+
+        return "sampled-sha256-" + hex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, RandomAccessFile raf, byte[] buffer, long position, long length) throws IOException {
+        raf.seek(position);
+        while(length > 0) {
+            int read = raf.read(buffer, 0, (int) Math.min(buffer.length, length));
+            if(read == -1) {
+                throw new IOException("file has been truncated while being fingerprinted");
+            }
+            digest.update(buffer, 0, read);
+            length -= read;
+        }
+    }
+}
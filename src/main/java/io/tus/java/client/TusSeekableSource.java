@@ -0,0 +1,61 @@
+package io.tus.java.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Implementations of this interface provide random access to the data of an upload. In contrast
+ * to an {@link java.io.InputStream}, which has to read and discard all bytes before the offset
+ * when resuming an upload, a seekable source can jump directly to the offset reported by the
+ * remote server. Use {@link TusUpload#setSource(TusSeekableSource)} to upload from a source.
+ */
+public interface TusSeekableSource extends Closeable {
+    /**
+     * Move the read position to an absolute offset from the beginning of the data.
+     *
+     * @param position The new read position.
+     * @throws IOException Thrown if the position cannot be changed.
+     */
+    void seek(long position) throws IOException;
+
+    /**
+     * Get the current read position.
+     *
+     * @return The absolute offset from the beginning of the data.
+     * @throws IOException Thrown if the position cannot be determined.
+     */
+    long getPosition() throws IOException;
+
+    /**
+     * Get the total number of bytes available in this source.
+     *
+     * @return Size of the data in bytes.
+     * @throws IOException Thrown if the size cannot be determined.
+     */
+    long getSize() throws IOException;
+
+    /**
+     * Read up to <code>length</code> bytes into a buffer and advance the read position by the
+     * number of bytes read.
+     *
+     * @param buffer The buffer into which the data will be read.
+     * @param offset The start offset in the buffer.
+     * @param length The maximum number of bytes to read.
+     * @return Number of bytes read or -1 if the end of the data has been reached.
+     * @throws IOException Thrown if an exception occurs while reading.
+     */
+    int read(byte[] buffer, int offset, int length) throws IOException;
+
+    /**
+     * Transfer up to <code>count</code> bytes to a channel, starting at the current read
+     * position, and advance the read position by the number of bytes transferred.
+     * Implementations should avoid copying the data into intermediate buffers if possible.
+     *
+     * @param target The channel to write to.
+     * @param count The maximum number of bytes to transfer.
+     * @return Number of bytes transferred or -1 if the end of the data has been reached.
+     * @throws IOException Thrown if an exception occurs while reading or writing.
+     */
+    long transferTo(WritableByteChannel target, long count) throws IOException;
+}
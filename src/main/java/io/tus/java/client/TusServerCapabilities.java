@@ -0,0 +1,139 @@
+package io.tus.java.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The capabilities a remote server announces in its response to an OPTIONS request, as defined
+ * by the tus protocol. See {@link TusClient#getServerCapabilities()}.
+ */
+public class TusServerCapabilities {
+    private final List<String> versions;
+    private final Set<String> extensions;
+    private final long maxSize;
+    private final List<String> checksumAlgorithms;
+
+    /**
+     * Create the capabilities from the values of the response's headers.
+     *
+     * @param version Value of the Tus-Version header or <code>null</code>
+     * @param extension Value of the Tus-Extension header or <code>null</code>
+     * @param maxSize Value of the Tus-Max-Size header or <code>null</code>
+     * @param checksumAlgorithm Value of the Tus-Checksum-Algorithm header or <code>null</code>
+     * @throws ProtocolException Thrown if the maximum size is not a valid number.
+     */
+    TusServerCapabilities(String version, String extension, String maxSize, String checksumAlgorithm) throws ProtocolException {
+        versions = Collections.unmodifiableList(split(version));
+        extensions = Collections.unmodifiableSet(new LinkedHashSet<String>(split(extension)));
+        checksumAlgorithms = Collections.unmodifiableList(split(checksumAlgorithm));
+
+        if(maxSize == null || maxSize.trim().length() == 0) {
+            this.maxSize = -1;
+        } else {
+            try {
+                this.maxSize = Long.parseLong(maxSize.trim());
+            } catch(NumberFormatException e) {
+                throw new ProtocolException("invalid Tus-Max-Size header in response for discovering capabilities");
+            }
+        }
+    }
+
+    private static List<String> split(String value) {
+        List<String> values = new ArrayList<String>();
+        if(value != null) {
+            for(String part : value.split(",")) {
+                part = part.trim();
+                if(part.length() > 0) {
+                    values.add(part);
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Find out whether the server has announced its capabilities at all. Servers which do not
+     * respond to OPTIONS requests, e.g. because a proxy rejects them, return no Tus-Version
+     * header and nothing is known about them.
+     *
+     * @return True if the response contained a Tus-Version header.
+     */
+    public boolean isDiscovered() {
+        return !versions.isEmpty();
+    }
+
+    /**
+     * Get the protocol versions supported by the server, ordered by the server's preference.
+     *
+     * @return The versions or an empty list if they are unknown.
+     */
+    public List<String> getVersions() {
+        return versions;
+    }
+
+    /**
+     * Get the extensions supported by the server, e.g. <code>creation</code>,
+     * <code>creation-with-upload</code>, <code>creation-defer-length</code>,
+     * <code>concatenation</code> or <code>checksum</code>.
+     *
+     * @return The extensions' names.
+     */
+    public Set<String> getExtensions() {
+        return extensions;
+    }
+
+    /**
+     * Get the maximum size of an upload accepted by the server.
+     *
+     * @return The size in bytes or -1 if the server has not announced a limit.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Get the names of the checksum algorithms supported by the server.
+     *
+     * @return The names as used in the Upload-Checksum header.
+     */
+    public List<String> getChecksumAlgorithms() {
+        return checksumAlgorithms;
+    }
+
+    public boolean supportsVersion(String version) {
+        return versions.contains(version);
+    }
+
+    public boolean supportsExtension(String extension) {
+        return extensions.contains(extension);
+    }
+
+    /**
+     * Find out whether the server accepts checksums calculated using the given algorithm.
+     *
+     * @param algorithm The algorithm
+     * @return True if the server supports the checksum extension and the algorithm.
+     */
+    public boolean supportsChecksumAlgorithm(TusChecksumAlgorithm algorithm) {
+        return supportsExtension("checksum") && checksumAlgorithms.contains(algorithm.getName());
+    }
+
+    /**
+     * Get the fastest checksum algorithm supported by both the client and the server. CRC32C is
+     * preferred over MD5, which is preferred over SHA1.
+     *
+     * @return The algorithm or <code>null</code> if no common algorithm exists.
+     */
+    public TusChecksumAlgorithm getFastestChecksumAlgorithm() {
+        TusChecksumAlgorithm[] preference = {TusChecksumAlgorithm.CRC32C, TusChecksumAlgorithm.MD5, TusChecksumAlgorithm.SHA1};
+        for(TusChecksumAlgorithm algorithm : preference) {
+            if(supportsChecksumAlgorithm(algorithm)) {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+}
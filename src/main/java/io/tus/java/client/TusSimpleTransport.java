@@ -0,0 +1,22 @@
+package io.tus.java.client;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * This class is a {@link TusTransport} which closes the underlying socket after every request
+ * using {@link HttpURLConnection#disconnect()}. Every request will therefore establish a new TCP
+ * (and TLS) connection. Use {@link TusKeepAliveTransport} to reuse connections instead.
+ */
+public class TusSimpleTransport implements TusTransport {
+    @Override
+    public HttpURLConnection openConnection(URL url) throws IOException {
+        return (HttpURLConnection) url.openConnection();
+    }
+
+    @Override
+    public void releaseConnection(HttpURLConnection connection) {
+        connection.disconnect();
+    }
+}
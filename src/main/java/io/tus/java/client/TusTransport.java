@@ -0,0 +1,36 @@
+package io.tus.java.client;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Implementations of this interface are used by {@link TusClient} and {@link TusUploader} to open
+ * the HTTP connections for all requests and to release them once the response has been
+ * processed. This allows controlling how connections are established and reused, for example by
+ * keeping them alive for following requests to the same server or by supplying connections from
+ * another HTTP library which implements {@link HttpURLConnection}.
+ * <br>
+ * The headers required by the tus protocol are added by
+ * {@link TusClient#prepareConnection(java.net.URLConnection)} after the connection has been opened.
+ */
+public interface TusTransport {
+    /**
+     * Open a new connection to the specified URL. The connection must not be connected yet, so
+     * the request method and headers can still be changed.
+     *
+     * @param url The URL to open the connection to.
+     * @return An unconnected HTTP connection.
+     * @throws IOException Thrown if the connection cannot be opened.
+     */
+    HttpURLConnection openConnection(URL url) throws IOException;
+
+    /**
+     * Release a connection which has been opened by {@link #openConnection(URL)}. This method is
+     * called exactly once for every connection after its response has been processed or the
+     * request has failed.
+     *
+     * @param connection The connection to release.
+     */
+    void releaseConnection(HttpURLConnection connection);
+}
@@ -0,0 +1,585 @@
+package io.tus.java.client;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * This class is used to map an upload's fingerprint with the corresponding upload URL by storing
+ * the entries in a file. In contrast to {@link TusURLMemoryStore}, the entries survive restarts
+ * and crashes of your application, which allows resuming uploads afterwards.
+ * <br>
+ * Every call to {@link #set(String, URL)} or {@link #remove(String)} appends a record to the end
+ * of the file, so no existing data is modified. Every record is protected by a checksum. When
+ * the file is opened, corrupted records, e.g. from a crash which has persisted later writes
+ * before earlier ones, are skipped and the store continues with the next intact record. Only a
+ * record which has been cut off at the end of the file is discarded.
+ * <br>
+ * Only a compact index, mapping a hash of every fingerprint to the position of its latest record,
+ * is kept in memory. Neither the fingerprints nor the URLs are loaded, so the store can hold
+ * millions of entries while all operations read or write at most a single record.
+ * <br>
+ * Writing to the disk is synchronized at most once per sync interval (see
+ * {@link #setSyncInterval(long)}) in order to batch the expensive flushes. If no further change
+ * follows, a background thread synchronizes the records once the interval has passed. Entries
+ * written after the last synchronization are safe if the application crashes but may be lost if
+ * the operating system crashes. Once the file contains more outdated records than current ones,
+ * it is compacted by rewriting all current records into a new file which then replaces the old
+ * one.
+ * <br>
+ * All methods of this class are thread-safe.
+ */
+public class TusURLFileStore implements TusURLStore, Closeable {
+    private final static Charset UTF8 = Charset.forName("UTF-8");
+    private final static byte TYPE_SET = 1;
+    private final static byte TYPE_REMOVE = 2;
+    // Length (4), type (1), fingerprint length (4), URL length (4) and checksum (8)
+    private final static int RECORD_OVERHEAD = 21;
+    private final static long MIN_COMPACTION_SIZE = 1024 * 1024;
+    private final static ScheduledExecutorService SYNC_EXECUTOR = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "tus-url-store-sync");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private File file;
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private long size;
+
+    private long syncIntervalMillis = 1000;
+    private long lastSync;
+    private boolean dirty;
+    private ScheduledFuture<?> scheduledSync;
+
+    private OffsetIndex index = new OffsetIndex();
+    private long liveBytes;
+
+    /**
+     * Open the store, creating the file if it does not exist. All records are read once in order
+     * to build the index. Corrupted records are skipped and an incomplete record at the end of
+     * the file is discarded.
+     *
+     * @param file The file storing the entries
+     * @throws IOException Thrown if the file cannot be opened or read.
+     */
+    public TusURLFileStore(File file) throws IOException {
+        this.file = file;
+        open();
+    }
+
+    /**
+     * Set the maximum time between appending a record and synchronizing it to the disk. A value
+     * of 0 synchronizes after every change.
+     *
+     * @param millis The new interval in milliseconds
+     */
+    public synchronized void setSyncInterval(long millis) {
+        syncIntervalMillis = millis;
+    }
+
+    public synchronized long getSyncInterval() {
+        return syncIntervalMillis;
+    }
+
+    /**
+     * Get the number of fingerprints stored.
+     *
+     * @return Number of entries.
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    @Override
+    public synchronized void set(String fingerprint, URL url) {
+        try {
+            long position = append(TYPE_SET, fingerprint, url.toString());
+            long previous = index.put(fingerprint, hash(fingerprint), position, this);
+            if(previous != -1) {
+                liveBytes -= recordLength(previous);
+            }
+            liveBytes += size - position;
+            afterWrite();
+        } catch(IOException e) {
+            throw new IllegalStateException("unable to write to " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized URL get(String fingerprint) {
+        try {
+            long position = index.get(fingerprint, hash(fingerprint), this);
+            if(position == -1) {
+                return null;
+            }
+
+            return new URL(readRecord(position)[1]);
+        } catch(MalformedURLException e) {
+            throw new IllegalStateException("invalid URL stored in " + file, e);
+        } catch(IOException e) {
+            throw new IllegalStateException("unable to read from " + file, e);
+        }
+    }
+
+    @Override
+    public synchronized void remove(String fingerprint) {
+        try {
+            long previous = index.remove(fingerprint, hash(fingerprint), this);
+            if(previous == -1) {
+                return;
+            }
+
+            liveBytes -= recordLength(previous);
+            append(TYPE_REMOVE, fingerprint, "");
+            afterWrite();
+        } catch(IOException e) {
+            throw new IllegalStateException("unable to write to " + file, e);
+        }
+    }
+
+    /**
+     * Synchronize all appended records to the disk.
+     *
+     * @throws IOException Thrown if the file cannot be synchronized.
+     */
+    public synchronized void sync() throws IOException {
+        if(dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+        lastSync = System.currentTimeMillis();
+    }
+
+    /**
+     * Synchronize all records and close the file. The store cannot be used afterwards.
+     *
+     * @throws IOException Thrown if the file cannot be synchronized or closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if(scheduledSync != null) {
+            scheduledSync.cancel(false);
+            scheduledSync = null;
+        }
+        try {
+            sync();
+        } finally {
+            raf.close();
+        }
+    }
+
+    synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    private void open() throws IOException {
+        File backup = backupFile();
+        if(!file.exists() && backup.exists()) {
+            // The application has crashed while replacing the file with the compacted one.
+            if(!backup.renameTo(file)) {
+                throw new IOException("unable to restore " + file + " from " + backup);
+            }
+        }
+
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+        size = 0;
+        liveBytes = 0;
+        index = new OffsetIndex();
+
+        long length = channel.size();
+        while(size < length) {
+            String[] record = readRecord(size, length);
+            if(record == null) {
+                // Continue with the next intact record. If there is none, the rest of the file
+                // is an incomplete record written before a crash.
+                long next = findRecord(size + 1, length);
+                if(next == -1) {
+                    break;
+                }
+                size = next;
+                continue;
+            }
+
+            int recordLength = recordLength(size);
+            if(record[2].equals("set")) {
+                long previous = index.put(record[0], hash(record[0]), size, this);
+                if(previous != -1) {
+                    liveBytes -= recordLength(previous);
+                }
+                liveBytes += recordLength;
+            } else {
+                long previous = index.remove(record[0], hash(record[0]), this);
+                if(previous != -1) {
+                    liveBytes -= recordLength(previous);
+                }
+            }
+            size += recordLength;
+        }
+
+        if(size < length) {
+            // Discard the incomplete record written before a crash.
+            channel.truncate(size);
+            channel.force(true);
+        }
+        lastSync = System.currentTimeMillis();
+    }
+
+    private long append(byte type, String fingerprint, String url) throws IOException {
+        byte[] fingerprintBytes = fingerprint.getBytes(UTF8);
+        byte[] urlBytes = url.getBytes(UTF8);
+        int length = RECORD_OVERHEAD + fingerprintBytes.length + urlBytes.length;
+
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.putInt(length);
+        record.put(type);
+        record.putInt(fingerprintBytes.length);
+        record.put(fingerprintBytes);
+        record.putInt(urlBytes.length);
+        record.put(urlBytes);
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, record.position());
+        record.putLong(crc.getValue());
+        record.flip();
+
+        long position = size;
+        while(record.hasRemaining()) {
+            channel.write(record, position + record.position());
+        }
+        size += length;
+        dirty = true;
+        return position;
+    }
+
+    private void afterWrite() throws IOException {
+        long elapsed = System.currentTimeMillis() - lastSync;
+        if(elapsed >= syncIntervalMillis) {
+            sync();
+        } else if(scheduledSync == null) {
+            // Without another change, the record would not be synchronized before close().
+            scheduledSync = SYNC_EXECUTOR.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    scheduledSync();
+                }
+            }, syncIntervalMillis - elapsed, TimeUnit.MILLISECONDS);
+        }
+
+        if(size >= MIN_COMPACTION_SIZE && size > 2 * liveBytes) {
+            compact();
+        }
+    }
+
+    private synchronized void scheduledSync() {
+        scheduledSync = null;
+        if(!channel.isOpen()) {
+            return;
+        }
+
+        try {
+            sync();
+        } catch(IOException e) {
+            // The records remain dirty, so the next change or close() tries again.
+        }
+    }
+
+    /**
+     * Rewrite all current records into a new file and replace the old file with it.
+     */
+    private void compact() throws IOException {
+        File compacted = new File(file.getPath() + ".compact");
+        RandomAccessFile target = new RandomAccessFile(compacted, "rw");
+        try {
+            target.setLength(0);
+            FileChannel targetChannel = target.getChannel();
+            for(int slot = 0; slot < index.capacity(); slot++) {
+                long position = index.positionAt(slot);
+                if(position == -1) {
+                    continue;
+                }
+
+                int length = recordLength(position);
+                long transferred = 0;
+                while(transferred < length) {
+                    transferred += channel.transferTo(position + transferred, length - transferred, targetChannel);
+                }
+            }
+            targetChannel.force(true);
+        } finally {
+            target.close();
+        }
+
+        // Reopening the file rebuilds the index with the new positions. If replacing it has
+        // failed, the old file is reopened, so the store remains usable.
+        raf.close();
+        try {
+            replace(compacted);
+        } finally {
+            open();
+        }
+    }
+
+    /**
+     * Replace the store's file with the compacted one. Platforms which do not allow replacing an
+     * existing file by renaming it keep the old file as a backup until the new one is in place, so
+     * the entries are never only stored in the temporary file.
+     */
+    private void replace(File compacted) throws IOException {
+        if(compacted.renameTo(file)) {
+            return;
+        }
+
+        File backup = backupFile();
+        if(backup.exists() && !backup.delete()) {
+            throw new IOException("unable to delete " + backup);
+        }
+        if(!file.renameTo(backup)) {
+            throw new IOException("unable to replace " + file + " with compacted store");
+        }
+        if(!compacted.renameTo(file)) {
+            backup.renameTo(file);
+            throw new IOException("unable to replace " + file + " with compacted store");
+        }
+        backup.delete();
+    }
+
+    private File backupFile() {
+        return new File(file.getPath() + ".bak");
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while(buffer.hasRemaining()) {
+            if(channel.read(buffer, position + buffer.position()) == -1) {
+                throw new IOException("unexpected end of file");
+            }
+        }
+    }
+
+    private int recordLength(long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        readFully(header, position);
+        return header.getInt(0);
+    }
+
+    /**
+     * Read a record while opening the file.
+     *
+     * @param end The file's length
+     * @return The record or <code>null</code> if it is incomplete or corrupted.
+     */
+    private String[] readRecord(long position, long end) throws IOException {
+        if(position + RECORD_OVERHEAD > end) {
+            return null;
+        }
+
+        int length = recordLength(position);
+        if(length < RECORD_OVERHEAD || position + length > end) {
+            return null;
+        }
+
+        try {
+            return readRecord(position);
+        } catch(IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The position of the first intact record at or after <code>position</code> or -1.
+     */
+    private long findRecord(long position, long end) throws IOException {
+        for(; position + RECORD_OVERHEAD <= end; position++) {
+            if(readRecord(position, end) != null) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Read and verify a record.
+     *
+     * @return The fingerprint, the URL and the record's type ("set" or "remove").
+     */
+    private String[] readRecord(long position) throws IOException {
+        int length = recordLength(position);
+        ByteBuffer record = ByteBuffer.allocate(length);
+        readFully(record, position);
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, length - 8);
+        if(crc.getValue() != record.getLong(length - 8)) {
+            throw new IOException("corrupted record at position " + position);
+        }
+
+        record.position(4);
+        byte type = record.get();
+        int fingerprintLength = record.getInt();
+        if(fingerprintLength < 0 || fingerprintLength > length - RECORD_OVERHEAD) {
+            throw new IOException("corrupted record at position " + position);
+        }
+        String fingerprint = new String(record.array(), record.position(), fingerprintLength, UTF8);
+        record.position(record.position() + fingerprintLength);
+        int urlLength = record.getInt();
+        if(urlLength != length - RECORD_OVERHEAD - fingerprintLength) {
+            throw new IOException("corrupted record at position " + position);
+        }
+        String url = new String(record.array(), record.position(), urlLength, UTF8);
+
+        return new String[] { fingerprint, url, type == TYPE_SET ? "set" : "remove" };
+    }
+
+    String fingerprintAt(long position) throws IOException {
+        return readRecord(position)[0];
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the fingerprint's characters.
+     */
+    static long hash(String fingerprint) {
+        long hash = 0xcbf29ce484222325L;
+        for(int i = 0; i < fingerprint.length(); i++) {
+            hash ^= fingerprint.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * An open addressing hash table mapping fingerprint hashes to record positions using two
+     * primitive arrays. Since different fingerprints may share a hash, the fingerprint of every
+     * candidate record is compared by reading it from the file.
+     */
+    static class OffsetIndex {
+        private long[] hashes = new long[1024];
+        private long[] positions = new long[1024];
+        private int size;
+
+        OffsetIndex() {
+            Arrays.fill(positions, -1);
+        }
+
+        int size() {
+            return size;
+        }
+
+        int capacity() {
+            return positions.length;
+        }
+
+        long positionAt(int slot) {
+            return positions[slot];
+        }
+
+        long get(String fingerprint, long hash, TusURLFileStore store) throws IOException {
+            int slot = find(fingerprint, hash, store);
+            return slot == -1 ? -1 : positions[slot];
+        }
+
+        /**
+         * @return The previous position for this fingerprint or -1.
+         */
+        long put(String fingerprint, long hash, long position, TusURLFileStore store) throws IOException {
+            int slot = find(fingerprint, hash, store);
+            if(slot != -1) {
+                long previous = positions[slot];
+                positions[slot] = position;
+                return previous;
+            }
+
+            if((size + 1) * 4 > positions.length * 3) {
+                grow();
+            }
+            insert(hash, position);
+            size++;
+            return -1;
+        }
+
+        /**
+         * @return The removed position for this fingerprint or -1.
+         */
+        long remove(String fingerprint, long hash, TusURLFileStore store) throws IOException {
+            int slot = find(fingerprint, hash, store);
+            if(slot == -1) {
+                return -1;
+            }
+
+            long previous = positions[slot];
+            positions[slot] = -1;
+            size--;
+
+            // Shift following entries back so lookups do not stop at the freed slot.
+            int mask = positions.length - 1;
+            int free = slot;
+            int next = (slot + 1) & mask;
+            while(positions[next] != -1) {
+                int home = slotFor(hashes[next]);
+                boolean movable = free <= next ? (home <= free || home > next) : (home <= free && home > next);
+                if(movable) {
+                    hashes[free] = hashes[next];
+                    positions[free] = positions[next];
+                    positions[next] = -1;
+                    free = next;
+                }
+                next = (next + 1) & mask;
+            }
+            return previous;
+        }
+
+        private int find(String fingerprint, long hash, TusURLFileStore store) throws IOException {
+            int mask = positions.length - 1;
+            for(int slot = slotFor(hash); positions[slot] != -1; slot = (slot + 1) & mask) {
+                if(hashes[slot] == hash && store.fingerprintAt(positions[slot]).equals(fingerprint)) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private void insert(long hash, long position) {
+            int mask = positions.length - 1;
+            int slot = slotFor(hash);
+            while(positions[slot] != -1) {
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = hash;
+            positions[slot] = position;
+        }
+
+        private void grow() {
+            long[] oldHashes = hashes;
+            long[] oldPositions = positions;
+            hashes = new long[oldHashes.length * 2];
+            positions = new long[oldPositions.length * 2];
+            Arrays.fill(positions, -1);
+            for(int i = 0; i < oldPositions.length; i++) {
+                if(oldPositions[i] != -1) {
+                    insert(oldHashes[i], oldPositions[i]);
+                }
+            }
+        }
+
+        private int slotFor(long hash) {
+            long mixed = hash ^ (hash >>> 32);
+            return (int) mixed & (positions.length - 1);
+        }
+    }
+}
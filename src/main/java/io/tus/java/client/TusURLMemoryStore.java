@@ -1,33 +1,176 @@
 package io.tus.java.client;
 
 import java.net.URL;
-import java.util.HashMap;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * This class is used to map an upload's fingerprint with the corresponding upload URL by storing
- * the entries in a {@link HashMap}. This functionality is used to allow resuming uploads. The
- * fingerprint is usually retrieved using {@link TusUpload#getFingerprint()}.
+ * the entries in memory. This functionality is used to allow resuming uploads. The fingerprint is
+ * usually retrieved using {@link TusUpload#getFingerprint()}.
  * <br>
  * The values will only be stored as long as the application is running. This store will not
  * keep the values after your application crashes or restarts.
+ * <br>
+ * The store is thread-safe and can be shared by clients used from multiple threads. In order to
+ * reduce contention, the entries are distributed over several independently locked segments.
+ * Optionally, the number of entries and the time they are kept can be limited using
+ * {@link #TusURLMemoryStore(int, long)}. If the limit is exceeded, the least recently used
+ * entries of a segment are evicted. Entries also expire at the time announced by the server
+ * using the Upload-Expires header, if it is earlier.
  */
-public class TusURLMemoryStore implements TusURLStore {
+public class TusURLMemoryStore implements TusExpiringURLStore {
+	private final static int MAX_SEGMENTS = 16;
+
+	private Segment[] segments;
+	private long ttlMillis;
+
+	/**
+	 * Create a new store without limits.
+	 */
+	public TusURLMemoryStore() {
+		this(0, 0);
+	}
 
-	private Map<String, URL> store = new HashMap<String, URL>();
+	/**
+	 * Create a new store with a limited size and/or lifetime of its entries.
+	 *
+	 * @param maxEntries Maximum number of entries or 0 for no limit
+	 * @param ttlMillis Time in milliseconds after which an entry expires or 0 for no limit
+	 */
+	public TusURLMemoryStore(int maxEntries, long ttlMillis) {
+		if(maxEntries < 0 || ttlMillis < 0) {
+			throw new IllegalArgumentException("limits must not be negative");
+		}
+
+		this.ttlMillis = ttlMillis;
+
+		int count = maxEntries == 0 ? MAX_SEGMENTS : Math.min(MAX_SEGMENTS, maxEntries);
+		segments = new Segment[count];
+		for(int i = 0; i < count; i++) {
+			// Distribute the limit so the total does not exceed it.
+			int segmentLimit = maxEntries / count + (i < maxEntries % count ? 1 : 0);
+			segments[i] = new Segment(segmentLimit);
+		}
+	}
 
 	@Override
 	public void set(String fingerprint, URL url) {
-		store.put(fingerprint, url);
+		set(fingerprint, url, null);
+	}
+
+	@Override
+	public void set(String fingerprint, URL url, Date expires) {
+		long expiresAt = Long.MAX_VALUE;
+		if(ttlMillis > 0) {
+			expiresAt = System.currentTimeMillis() + ttlMillis;
+		}
+		if(expires != null) {
+			expiresAt = Math.min(expiresAt, expires.getTime());
+		}
+
+		Segment segment = segmentFor(fingerprint);
+		synchronized(segment) {
+			segment.put(fingerprint, new StoredURL(url, expiresAt));
+		}
 	}
 
 	@Override
 	public URL get(String fingerprint) {
-		return store.get(fingerprint);
+		Segment segment = segmentFor(fingerprint);
+		synchronized(segment) {
+			StoredURL entry = segment.get(fingerprint);
+			if(entry == null) {
+				return null;
+			}
+
+			if(entry.isExpired(System.currentTimeMillis())) {
+				segment.remove(fingerprint);
+				return null;
+			}
+			return entry.url;
+		}
 	}
 
 	@Override
 	public void remove(String fingerprint) {
-		store.remove(fingerprint);
+		Segment segment = segmentFor(fingerprint);
+		synchronized(segment) {
+			segment.remove(fingerprint);
+		}
+	}
+
+	/**
+	 * Get the number of stored entries, including expired ones which have not been removed yet.
+	 *
+	 * @return Number of entries.
+	 */
+	public int size() {
+		int size = 0;
+		for(Segment segment : segments) {
+			synchronized(segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Remove all expired entries. Expired entries are also removed when they are looked up, so
+	 * calling this method is only necessary to free their memory earlier.
+	 */
+	public void removeExpired() {
+		long now = System.currentTimeMillis();
+		for(Segment segment : segments) {
+			synchronized(segment) {
+				Iterator<StoredURL> it = segment.values().iterator();
+				while(it.hasNext()) {
+					if(it.next().isExpired(now)) {
+						it.remove();
+					}
+				}
+			}
+		}
+	}
+
+	private Segment segmentFor(String fingerprint) {
+		int hash = fingerprint == null ? 0 : fingerprint.hashCode();
+		hash ^= (hash >>> 16);
+		return segments[(hash & 0x7fffffff) % segments.length];
+	}
+
+	private static class StoredURL {
+		private URL url;
+		private long expiresAt;
+
+		StoredURL(URL url, long expiresAt) {
+			this.url = url;
+			this.expiresAt = expiresAt;
+		}
+
+		boolean isExpired(long now) {
+			return now >= expiresAt;
+		}
+	}
+
+	/**
+	 * A part of the store ordered by the time of the last access to each entry.
+	 */
+	private static class Segment extends LinkedHashMap<String, StoredURL> {
+		private final static long serialVersionUID = 1L;
+
+		private int maxEntries;
+
+		Segment(int maxEntries) {
+			super(16, 0.75f, true);
+			this.maxEntries = maxEntries;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, StoredURL> eldest) {
+			return maxEntries > 0 && size() > maxEntries;
+		}
 	}
 }
@@ -3,7 +3,9 @@ package io.tus.java.client;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -14,10 +16,19 @@ import java.util.Map;
  * {@link TusClient#resumeOrCreateUpload(TusUpload)}.
  */
 public class TusUpload {
+    private final static Charset UTF_8 = Charset.forName("UTF-8");
+    private final static char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
     private long size;
     private InputStream input;
+    private TusSeekableSource source;
     private String fingerprint;
     private Map<String, String> metadata;
+    private File file;
+    private boolean partial;
+    private boolean sizeDeferred;
+
+    private String encodedMetadata;
 
     /**
      * Create a new TusUpload object.
@@ -35,6 +46,7 @@ public class TusUpload {
     public TusUpload(File file) throws FileNotFoundException {
         size = file.length();
         input = new FileInputStream(file);
+        this.file = file;
 
         fingerprint = String.format("%s-%d", file.getAbsolutePath(), size);
 
@@ -42,6 +54,25 @@ public class TusUpload {
         metadata.put("filename", file.getName());
     }
 
+    /**
+     * Create a new TusUpload object using the supplied File object whose fingerprint is
+     * calculated from the file's content instead of its path. This allows resuming the upload
+     * after the file has been moved or from another host.
+     *
+     * @param file The file whose content should be later uploaded.
+     * @param fingerprinter The strategy used for calculating the fingerprint.
+     * @throws IOException Thrown if the file cannot be opened or read.
+     */
+    public TusUpload(File file, TusFingerprinter fingerprinter) throws IOException {
+        this(file);
+        try {
+            fingerprint = fingerprinter.fingerprint(file);
+        } catch(IOException e) {
+            input.close();
+            throw e;
+        }
+    }
+
     public long getSize() {
         return size;
     }
@@ -55,6 +86,22 @@ public class TusUpload {
         this.size = size;
     }
 
+    /**
+     * Create the upload without declaring its size using the Upload-Defer-Length header of the
+     * creation extension. The data must then be written to the stream returned by
+     * {@link TusUploader#getOutputStream()}, which declares the size once it is closed. The
+     * server must support the creation-defer-length extension.
+     *
+     * @param sizeDeferred True if the size is not known when creating the upload.
+     */
+    public void setSizeDeferred(boolean sizeDeferred) {
+        this.sizeDeferred = sizeDeferred;
+    }
+
+    public boolean isSizeDeferred() {
+        return sizeDeferred;
+    }
+
     public String getFingerprint() {
         return fingerprint;
     }
@@ -76,73 +123,174 @@ public class TusUpload {
         input = inputStream;
     }
 
+    public TusSeekableSource getSource() {
+        return source;
+    }
+
+    /**
+     * Set a seekable source from which will be read if the file will be later uploaded. If a
+     * source is set, it will be used instead of the input stream and resuming an upload will seek
+     * directly to the offset instead of skipping all bytes before it.
+     *
+     * @param source The source which will be read.
+     */
+    public void setSource(TusSeekableSource source) {
+        this.source = source;
+    }
+
+    /**
+     * Get the file this upload has been created from using {@link #TusUpload(File)}.
+     *
+     * @return The source file or <code>null</code> if the upload is backed by a stream only.
+     */
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Mark this upload as a partial upload which will later be concatenated with other partial
+     * uploads into a final one. See {@link TusClient#concatenateUploads}.
+     *
+     * @param partial True if the Upload-Concat header should be sent when creating the upload.
+     */
+    void setPartial(boolean partial) {
+        this.partial = partial;
+    }
+
+    boolean isPartial() {
+        return partial;
+    }
+
+    /**
+     * Set the metadata which will be sent in the Upload-Metadata header when creating the upload.
+     *
+     * @param metadata Map of keys and values. Values may be <code>null</code> or empty for keys
+     *                 without a value.
+     * @throws IllegalArgumentException Thrown if a key is empty or contains a space or comma.
+     */
     public void setMetadata(Map<String, String> metadata) {
+        if(metadata != null) {
+            for(String key : metadata.keySet()) {
+                validateKey(key);
+            }
+        }
         this.metadata = metadata;
+        encodedMetadata = null;
     }
 
+    /**
+     * Get the metadata set using {@link #setMetadata(Map)}. If the returned map is modified,
+     * {@link #setMetadata(Map)} must be called again for the changes to be encoded.
+     *
+     * @return Map of keys and values
+     */
     public Map<String, String> getMetadata() {
         return metadata;
     }
 
     /**
      * Encode the metadata into a string according to the specification, so it can be
-     * used as the value for the Upload-Metadata header.
+     * used as the value for the Upload-Metadata header. The encoded value is cached until
+     * {@link #setMetadata(Map)} is called again.
      *
      * @return Encoded metadata
+     * @throws IllegalArgumentException Thrown if a key is empty or contains a space or comma.
      */
     public String getEncodedMetadata() {
         if(metadata == null || metadata.size() == 0) {
             return "";
         }
 
-        String encoded = "";
+        if(encodedMetadata != null) {
+            return encodedMetadata;
+        }
+
+        int size = metadata.size();
+        String[] keys = new String[size];
+        byte[][] values = new byte[size][];
+        int length = size - 1;
 
-        boolean firstElement = true;
+        int i = 0;
         for(Map.Entry<String, String> entry : metadata.entrySet()) {
-            if(!firstElement) {
-                encoded += ",";
+            String key = entry.getKey();
+            validateKey(key);
+            keys[i] = key;
+            length += key.length();
+
+            // Keys without a value are encoded without the separating space.
+            if(entry.getValue() != null && entry.getValue().length() > 0) {
+                values[i] = entry.getValue().getBytes(UTF_8);
+                length += 1 + base64Length(values[i].length);
             }
-            encoded += entry.getKey() + " " + base64Encode(entry.getValue().getBytes());
+            i++;
+        }
 
-            firstElement = false;
+        char[] encoded = new char[length];
+        int position = 0;
+        for(i = 0; i < size; i++) {
+            if(i > 0) {
+                encoded[position++] = ',';
+            }
+            keys[i].getChars(0, keys[i].length(), encoded, position);
+            position += keys[i].length();
+
+            if(values[i] != null) {
+                encoded[position++] = ' ';
+                position = base64Encode(values[i], encoded, position);
+            }
+        }
+
+        encodedMetadata = new String(encoded);
+        return encodedMetadata;
+    }
+
+    private static void validateKey(String key) {
+        if(key == null || key.length() == 0) {
+            throw new IllegalArgumentException("metadata key must not be empty");
         }
+        if(key.indexOf(' ') != -1 || key.indexOf(',') != -1) {
+            throw new IllegalArgumentException("metadata key must not contain spaces or commas: " + key);
+        }
+    }
 
-        return encoded;
+    private static int base64Length(int length) {
+        return (length + 2) / 3 * 4;
     }
 
     /**
-     * Encode a byte-array using Base64. This is a sligtly modified version from an implementation
-     * published on Wikipedia (https://en.wikipedia.org/wiki/Base64#Sample_Implementation_in_Java)
-     * under the Creative Commons Attribution-ShareAlike License.
+     * Encode a byte-array using Base64.
      */
-    static String base64Encode(byte[] in)       {
-        StringBuilder out = new StringBuilder((in.length * 4) / 3);
-        String codes = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/=";
-
-        int b;
-        for (int i = 0; i < in.length; i += 3)  {
-            b = (in[i] & 0xFC) >> 2;
-            out.append(codes.charAt(b));
-            b = (in[i] & 0x03) << 4;
-            if (i + 1 < in.length)      {
-                b |= (in[i + 1] & 0xF0) >> 4;
-                out.append(codes.charAt(b));
-                b = (in[i + 1] & 0x0F) << 2;
-                if (i + 2 < in.length)  {
-                    b |= (in[i + 2] & 0xC0) >> 6;
-                    out.append(codes.charAt(b));
-                    b = in[i + 2] & 0x3F;
-                    out.append(codes.charAt(b));
-                } else  {
-                    out.append(codes.charAt(b));
-                    out.append('=');
-                }
-            } else      {
-                out.append(codes.charAt(b));
-                out.append("==");
-            }
+    static String base64Encode(byte[] in) {
+        char[] out = new char[base64Length(in.length)];
+        base64Encode(in, out, 0);
+        return new String(out);
+    }
+
+    /**
+     * Encode a byte-array using Base64 into a pre-sized character array. java.util.Base64 cannot
+     * be used since it is not available on Java 7 and older Android versions.
+     *
+     * @return The position after the last written character.
+     */
+    private static int base64Encode(byte[] in, char[] out, int position) {
+        int i = 0;
+        int end = in.length - in.length % 3;
+        for(; i < end; i += 3) {
+            int bits = (in[i] & 0xFF) << 16 | (in[i + 1] & 0xFF) << 8 | (in[i + 2] & 0xFF);
+            out[position++] = BASE64[bits >>> 18];
+            out[position++] = BASE64[(bits >>> 12) & 0x3F];
+            out[position++] = BASE64[(bits >>> 6) & 0x3F];
+            out[position++] = BASE64[bits & 0x3F];
         }
 
-        return out.toString();
+        int remaining = in.length - end;
+        if(remaining > 0) {
+            int bits = (in[i] & 0xFF) << 16 | (remaining == 2 ? (in[i + 1] & 0xFF) << 8 : 0);
+            out[position++] = BASE64[bits >>> 18];
+            out[position++] = BASE64[(bits >>> 12) & 0x3F];
+            out[position++] = remaining == 2 ? BASE64[(bits >>> 6) & 0x3F] : '=';
+            out[position++] = '=';
+        }
+        return position;
     }
 }
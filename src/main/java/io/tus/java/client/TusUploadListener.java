@@ -0,0 +1,32 @@
+package io.tus.java.client;
+
+/**
+ * Implementations of this interface are notified about the progress of an upload executed by a
+ * {@link TusUploadTask}. All methods are called on the thread which runs the task, so they should
+ * return quickly in order not to delay the upload.
+ */
+public interface TusUploadListener {
+    /**
+     * Called after every uploaded chunk.
+     *
+     * @param upload The file which is being uploaded.
+     * @param bytesUploaded The upload's current offset.
+     * @param bytesTotal The upload's size.
+     */
+    void onProgress(TusUpload upload, long bytesUploaded, long bytesTotal);
+
+    /**
+     * Called once after the upload has been finished successfully.
+     *
+     * @param result Information about the finished upload.
+     */
+    void onSuccess(TusUploadResult result);
+
+    /**
+     * Called once if the upload has failed or has been cancelled.
+     *
+     * @param upload The file which was being uploaded.
+     * @param e The reason for the failure.
+     */
+    void onFailure(TusUpload upload, Exception e);
+}
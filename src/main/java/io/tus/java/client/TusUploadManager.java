@@ -0,0 +1,374 @@
+package io.tus.java.client;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * This class is used for uploading a large number of files with bounded resource usage. Uploads
+ * are queued using {@link #submit} and started in the order of their priority as long as the
+ * following limits are not exceeded:
+ * <ul>
+ *  <li>the number of uploads running at the same time ({@link #TusUploadManager(TusClient, int)})</li>
+ *  <li>the number of uploads running at the same time for a single host
+ *  ({@link #setMaxUploadsPerHost(int)})</li>
+ *  <li>the memory reserved for the chunk buffers of all running uploads
+ *  ({@link #setMemoryLimit(long)})</li>
+ * </ul>
+ * If the upload with the highest priority cannot be started because its host has reached its
+ * limit, uploads to other hosts are started instead, so a single slow server cannot block the
+ * entire queue. If it cannot be started because of the memory limit, no other upload is started
+ * until enough memory has been released. Uploads with the same priority are started in the order
+ * they were submitted.
+ * <br>
+ * The uploads are run as {@link TusUploadTask}s on the executor of the submitting client (see
+ * {@link TusClient#setExecutor(ExecutorService)}) unless another one is set using
+ * {@link #setExecutor(ExecutorService)}.
+ */
+public class TusUploadManager {
+    private TusClient defaultClient;
+    private int maxConcurrentUploads;
+    private int maxUploadsPerHost;
+    private long memoryLimit;
+    private int chunkSize = 2 * 1024 * 1024;
+    private ExecutorService executor;
+
+    private final Object lock = new Object();
+    // The pending uploads of every host and the hosts whose first upload can be started
+    // without exceeding the per-host limit, ordered by that upload. Hosts which have reached
+    // their limit are only added again once one of their uploads has finished, so scheduling
+    // does not need to look at their uploads.
+    private Map<String, HostQueue> hosts = new HashMap<String, HostQueue>();
+    private PriorityQueue<HostQueue> ready = new PriorityQueue<HostQueue>();
+    private int pendingCount;
+    private int running;
+    private long reservedMemory;
+    private long sequence;
+
+    /**
+     * Create a new manager.
+     *
+     * @param client The client used for uploads submitted without specifying a client
+     * @param maxConcurrentUploads Maximum number of uploads running at the same time
+     */
+    public TusUploadManager(TusClient client, int maxConcurrentUploads) {
+        if(maxConcurrentUploads < 1) {
+            throw new IllegalArgumentException("maximum number of concurrent uploads must be positive");
+        }
+
+        defaultClient = client;
+        this.maxConcurrentUploads = maxConcurrentUploads;
+    }
+
+    /**
+     * Set the maximum number of uploads running at the same time for a single host. The host is
+     * determined using the upload creation URL of the client used for an upload.
+     *
+     * @param maxUploadsPerHost The new limit or 0 for no limit.
+     */
+    public void setMaxUploadsPerHost(int maxUploadsPerHost) {
+        synchronized(lock) {
+            this.maxUploadsPerHost = maxUploadsPerHost;
+            ready.clear();
+            for(HostQueue queue : hosts.values()) {
+                queue.ready = false;
+                updateReady(queue);
+            }
+        }
+        schedule();
+    }
+
+    public int getMaxUploadsPerHost() {
+        synchronized(lock) {
+            return maxUploadsPerHost;
+        }
+    }
+
+    /**
+     * Set the maximum number of bytes which may be reserved for the chunk buffers of all running
+     * uploads. Every running upload reserves its chunk size (see {@link #setChunkSize(int)}). If
+     * the limit is lower than a single chunk, one upload will still be run at a time.
+     *
+     * @param memoryLimit The new limit in bytes or 0 for no limit.
+     */
+    public void setMemoryLimit(long memoryLimit) {
+        synchronized(lock) {
+            this.memoryLimit = memoryLimit;
+        }
+        schedule();
+    }
+
+    public long getMemoryLimit() {
+        synchronized(lock) {
+            return memoryLimit;
+        }
+    }
+
+    /**
+     * Sets the chunk size used for uploads submitted afterwards.
+     *
+     * @param size The new chunk size
+     * @see TusUploader#setChunkSize(int)
+     */
+    public void setChunkSize(int size) {
+        synchronized(lock) {
+            chunkSize = size;
+        }
+    }
+
+    public int getChunkSize() {
+        synchronized(lock) {
+            return chunkSize;
+        }
+    }
+
+    /**
+     * Set the executor which runs the uploads.
+     *
+     * @param executor The executor or <code>null</code> to use the executor of the uploads' clients.
+     */
+    public void setExecutor(ExecutorService executor) {
+        synchronized(lock) {
+            this.executor = executor;
+        }
+    }
+
+    /**
+     * Queue an upload using the manager's client and the default priority of 0.
+     *
+     * @param upload The file which will be uploaded
+     * @param listener Notified about the upload's progress and outcome, may be <code>null</code>
+     * @return A future completing with the result once the upload has finished.
+     */
+    public Future<TusUploadResult> submit(TusUpload upload, TusUploadListener listener) {
+        return submit(defaultClient, upload, 0, listener);
+    }
+
+    /**
+     * Queue an upload. It will be started once no upload with a higher priority is waiting and
+     * all limits allow it. Cancelling the returned future before the upload has been started
+     * removes it from the queue.
+     *
+     * @param client The client used for creating or resuming the upload
+     * @param upload The file which will be uploaded
+     * @param priority Uploads with higher values are started first
+     * @param listener Notified about the upload's progress and outcome, may be <code>null</code>
+     * @return A future completing with the result once the upload has finished.
+     */
+    public Future<TusUploadResult> submit(TusClient client, TusUpload upload, int priority, TusUploadListener listener) {
+        Entry entry;
+        synchronized(lock) {
+            TusUploadTask task = new TusUploadTask(client, upload, listener);
+            task.setChunkSize(chunkSize);
+            entry = new Entry(client, task, priority, sequence++);
+
+            HostQueue queue = hosts.get(entry.host);
+            if(queue == null) {
+                queue = new HostQueue(entry.host);
+                hosts.put(entry.host, queue);
+            }
+            Entry head = queue.entries.peek();
+            if(head != null && entry.compareTo(head) < 0 && queue.ready) {
+                // The host's position in the ready queue depends on its first upload.
+                ready.remove(queue);
+                queue.ready = false;
+            }
+            queue.entries.add(entry);
+            pendingCount++;
+            updateReady(queue);
+        }
+        schedule();
+        return entry;
+    }
+
+    /**
+     * Get the number of uploads which have been submitted but not started, yet.
+     *
+     * @return Number of queued uploads.
+     */
+    public int getPendingCount() {
+        synchronized(lock) {
+            return pendingCount;
+        }
+    }
+
+    /**
+     * Get the number of uploads which are currently running.
+     *
+     * @return Number of running uploads.
+     */
+    public int getRunningCount() {
+        synchronized(lock) {
+            return running;
+        }
+    }
+
+    /**
+     * Start as many pending uploads as the limits allow.
+     */
+    private void schedule() {
+        List<Entry> startable = new ArrayList<Entry>();
+        synchronized(lock) {
+            while(running < maxConcurrentUploads && !ready.isEmpty()) {
+                HostQueue queue = ready.peek();
+                Entry entry = queue.entries.peek();
+                if(!entry.isCancelled() && memoryLimit > 0 && running > 0 && reservedMemory + entry.memory > memoryLimit) {
+                    break;
+                }
+
+                ready.poll();
+                queue.ready = false;
+                queue.entries.poll();
+                // Uploads cancelled while waiting have already been subtracted from the count.
+                if(!entry.isCancelled()) {
+                    pendingCount--;
+                    reserve(entry, queue);
+                    startable.add(entry);
+                }
+                updateReady(queue);
+            }
+        }
+
+        for(Entry entry : startable) {
+            ExecutorService service;
+            synchronized(lock) {
+                service = executor;
+            }
+            if(service == null) {
+                service = entry.client.getExecutor();
+            }
+
+            try {
+                service.execute(entry);
+            } catch(RejectedExecutionException e) {
+                entry.reject(e);
+            }
+        }
+    }
+
+    /**
+     * Add the host to the ready queue if it has pending uploads and has not reached its limit,
+     * or forget it if it has neither pending nor running uploads.
+     */
+    private void updateReady(HostQueue queue) {
+        if(queue.ready) {
+            return;
+        }
+        if(queue.entries.isEmpty()) {
+            if(queue.running == 0) {
+                hosts.remove(queue.host);
+            }
+            return;
+        }
+        if(maxUploadsPerHost > 0 && queue.running >= maxUploadsPerHost) {
+            return;
+        }
+        queue.ready = true;
+        ready.add(queue);
+    }
+
+    private void reserve(Entry entry, HostQueue queue) {
+        entry.started = true;
+        running++;
+        reservedMemory += entry.memory;
+        queue.running++;
+    }
+
+    private void release(Entry entry) {
+        synchronized(lock) {
+            running--;
+            reservedMemory -= entry.memory;
+            HostQueue queue = hosts.get(entry.host);
+            queue.running--;
+            updateReady(queue);
+        }
+        schedule();
+    }
+
+    /**
+     * The pending uploads of a single host, ordered by the first of them.
+     */
+    private static class HostQueue implements Comparable<HostQueue> {
+        private String host;
+        private PriorityQueue<Entry> entries = new PriorityQueue<Entry>();
+        private int running;
+        private boolean ready;
+
+        HostQueue(String host) {
+            this.host = host;
+        }
+
+        @Override
+        public int compareTo(HostQueue other) {
+            return entries.peek().compareTo(other.entries.peek());
+        }
+    }
+
+    /**
+     * A queued upload which is ordered by its priority and submission order.
+     */
+    private class Entry extends FutureTask<TusUploadResult> implements Comparable<Entry> {
+        private TusClient client;
+        private String host;
+        private long memory;
+        private int priority;
+        private long sequence;
+        private boolean started;
+
+        Entry(TusClient client, TusUploadTask task, int priority, long sequence) {
+            super(task);
+            this.client = client;
+            this.priority = priority;
+            this.sequence = sequence;
+            memory = task.getChunkSize();
+
+            URL url = client.getUploadCreationURL();
+            host = url == null ? "" : url.getHost() + ":" + url.getPort();
+        }
+
+        /**
+         * Run the upload and release its limits once it has exited. Cancelling a running upload
+         * completes the future immediately while the upload may still be running, so the limits
+         * must not be released by {@link #done()}.
+         */
+        @Override
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                release(this);
+            }
+        }
+
+        @Override
+        protected void done() {
+            synchronized(lock) {
+                if(!started) {
+                    // Cancelled while waiting in the queue. The entry is skipped once it is
+                    // reached instead of being searched for in its host's queue.
+                    pendingCount--;
+                }
+            }
+        }
+
+        void reject(RejectedExecutionException e) {
+            setException(e);
+            release(this);
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            if(priority != other.priority) {
+                return priority > other.priority ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+}
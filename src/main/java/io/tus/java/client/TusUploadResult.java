@@ -0,0 +1,43 @@
+package io.tus.java.client;
+
+import java.net.URL;
+
+/**
+ * This class contains the outcome of an upload which has been finished using a
+ * {@link TusUploadTask}.
+ */
+public class TusUploadResult {
+    private TusUpload upload;
+    private URL uploadURL;
+    private long offset;
+
+    /**
+     * Create a new result.
+     *
+     * @param upload The file which has been uploaded
+     * @param uploadURL The URL of the upload on the remote server
+     * @param offset The upload's final offset
+     */
+    public TusUploadResult(TusUpload upload, URL uploadURL, long offset) {
+        this.upload = upload;
+        this.uploadURL = uploadURL;
+        this.offset = offset;
+    }
+
+    public TusUpload getUpload() {
+        return upload;
+    }
+
+    public URL getUploadURL() {
+        return uploadURL;
+    }
+
+    /**
+     * Get the number of bytes stored on the remote server after the upload has finished.
+     *
+     * @return The upload's final offset.
+     */
+    public long getOffset() {
+        return offset;
+    }
+}
@@ -0,0 +1,129 @@
+package io.tus.java.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+
+/**
+ * This class uploads a file from start to end and can be executed by any
+ * {@link java.util.concurrent.ExecutorService}. It resumes or creates the upload using
+ * {@link TusClient#resumeOrCreateUpload(TusUpload)}, uploads all chunks and finishes the
+ * uploader. Usually, it is not used directly but through {@link TusClient#uploadAsync}.
+ * <br>
+ * The task can be cancelled by interrupting the thread running it, e.g. using
+ * {@link java.util.concurrent.Future#cancel(boolean)}. The interruption is checked after every
+ * chunk, after which the current request will be finished so the upload can be resumed later.
+ * <br>
+ * Since the task only blocks on I/O and does not hold any locks while doing so, it can be run on
+ * lightweight threads, such as virtual threads, in order to execute a large number of uploads
+ * concurrently.
+ */
+public class TusUploadTask implements Callable<TusUploadResult> {
+    private TusClient client;
+    private TusUpload upload;
+    private TusUploadListener listener;
+    private int chunkSize = 2 * 1024 * 1024;
+
+    /**
+     * Create a new task.
+     *
+     * @param client The client used for creating or resuming the upload
+     * @param upload The file which will be uploaded
+     * @param listener Notified about the upload's progress, may be <code>null</code>
+     */
+    public TusUploadTask(TusClient client, TusUpload upload, TusUploadListener listener) {
+        this.client = client;
+        this.upload = upload;
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the chunk size used by the {@link TusUploader}. Progress is reported and cancellation
+     * is checked once for every chunk.
+     *
+     * @param size The new chunk size
+     * @see TusUploader#setChunkSize(int)
+     */
+    public void setChunkSize(int size) {
+        chunkSize = size;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public TusUpload getUpload() {
+        return upload;
+    }
+
+    /**
+     * Upload the entire file.
+     *
+     * @return Information about the finished upload.
+     * @throws ProtocolException Thrown if the remote server sent an unexpected response.
+     * @throws IOException Thrown if an exception occurs while reading the file or issuing the
+     * HTTP requests, including {@link InterruptedIOException} if the task has been cancelled.
+     */
+    @Override
+    public TusUploadResult call() throws ProtocolException, IOException {
+        try {
+            TusUploadResult result = upload();
+            if(listener != null) {
+                listener.onSuccess(result);
+            }
+            return result;
+        } catch(ProtocolException e) {
+            notifyFailure(e);
+            throw e;
+        } catch(IOException e) {
+            notifyFailure(e);
+            throw e;
+        } catch(RuntimeException e) {
+            notifyFailure(e);
+            throw e;
+        }
+    }
+
+    private TusUploadResult upload() throws ProtocolException, IOException {
+        TusUploader uploader = client.resumeOrCreateUpload(upload);
+        uploader.setChunkSize(chunkSize);
+
+        boolean finished = false;
+        try {
+            while(uploader.uploadChunk() > -1) {
+                if(listener != null) {
+                    listener.onProgress(upload, uploader.getOffset(), upload.getSize());
+                }
+                if(Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("upload has been cancelled at offset " + uploader.getOffset());
+                }
+            }
+            finished = true;
+        } finally {
+            if(finished) {
+                uploader.finish();
+            } else {
+                finishQuietly(uploader);
+            }
+        }
+
+        return new TusUploadResult(upload, uploader.getUploadURL(), uploader.getOffset());
+    }
+
+    /**
+     * Finish a failed or cancelled upload without hiding the original exception.
+     */
+    private void finishQuietly(TusUploader uploader) {
+        try {
+            uploader.finish();
+        } catch(Exception e) {
+            // The original exception is more relevant to the caller.
+        }
+    }
+
+    private void notifyFailure(Exception e) {
+        if(listener != null) {
+            listener.onFailure(upload, e);
+        }
+    }
+}
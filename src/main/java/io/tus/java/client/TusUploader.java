@@ -1,12 +1,17 @@
 package io.tus.java.client;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.ProtocolException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * This class is used for doing the actual upload of the files. Instances are returned by
@@ -20,36 +25,199 @@ import java.net.URLConnection;
  *  <li>Repeat step 1 until the {@link #uploadChunk(int)} returns -1</li>
  *  <li>Close HTTP connection and InputStream using {@link #finish()} to free resources</li>
  * </ol>
+ * <br>
+ * If the data is read from a {@link TusSeekableSource}, including a {@link FileInputStream} of a
+ * regular file or {@link FileChannel} which are read using their channel, the uploader will seek
+ * directly to the offset and transfer the chunks from the source to the HTTP request without
+ * reading them into a chunk-sized buffer. The request's body is a stream, so the data is still
+ * copied through the small buffer of the channel wrapping it.
+ * <br>
+ * If a {@link TusRetryPolicy} is set, failed requests will be retried automatically. Before every
+ * retry, the current offset is fetched from the remote server using a HEAD request and the
+ * upload continues from there by seeking the source or, for streams, by resending the part of
+ * the current chunk which has not been received. Only the bytes in flight are therefore lost.
+ * <br>
+ * By default, all data is sent in a single PATCH request which is only completed by
+ * {@link #finish()}. Since the server may only commit the received data once the request has
+ * ended, {@link #enableBoundedRequests(long, long)} can be used to limit every request to a
+ * number of bytes or a duration, so a failure loses at most one request's data.
+ * <br>
+ * Reading and writing a chunk happen one after another unless read-ahead is enabled using
+ * {@link #enableReadAhead(int)}, which reads the next chunks on a background thread while the
+ * current one is written.
+ * <br>
+ * If a checksum algorithm is set using
+ * {@link TusClient#setChecksumAlgorithm(TusChecksumAlgorithm)}, every chunk is sent in a separate
+ * request with an Upload-Checksum header instead of streaming all chunks in a single request.
  */
 public class TusUploader {
     private URL uploadURL;
     private InputStream input;
+    private TusSeekableSource source;
+    private long sourceBase;
     private long offset;
-    private byte[] buffer;
+    private int chunkSize;
+    private TusBufferPool bufferPool;
+    private AdaptiveChunkSize adaptiveChunkSize;
+    // Time spent writing and flushing the current chunk, excluding reading and retries' delays
+    private long chunkWriteNanos;
+
+    private String fingerprint;
+    private long uploadSize;
+    private TusChecksumAlgorithm checksumAlgorithm;
+    private TusRateLimiter rateLimiter;
+    private boolean sizeDeferred;
+    private boolean outputStreamUsed;
+    private TusRateLimiter clientRateLimiter;
 
+    private long maxRequestBytes;
+    private long maxRequestMillis;
+    // The offset at which the current bounded request ends or -1 if it is unbounded
+    private long requestEnd = -1;
+    private long requestOffset;
+    private boolean requestFixedLength;
+    private long requestBytesPerSecond;
+
+    private TusRetryPolicy retryPolicy;
+    private int retryAttempt;
+    // The most recent chunk read from the input stream, kept for resending it after a failure
+    private byte[] chunkBuffer;
+    private int chunkStart;
+    private long chunkOffset;
+    private int chunkLength;
+    // The buffer borrowed from the pool for the most recent chunk, returned once it has been
+    // replaced by the next one or the request has been finished. Without a retry policy, it is
+    // returned right away.
+    private byte[] borrowedBuffer;
+
+    private int readAheadDepth;
+    private ReadAheadReader readAhead;
+    // The part of a chunk read ahead which has not been written yet since a bounded request
+    // has ended within it
+    private byte[] pendingBuffer;
+    private int pendingStart;
+    private int pendingLength;
+
+    private TusInstrumentation instrumentation;
+    private Object span;
+    private long requestStart;
+
+    private TusClient client;
     private HttpURLConnection connection;
     private OutputStream output;
+    private WritableByteChannel outputChannel;
 
     /**
-     * Begin a new upload request by opening a PATCH request to specified upload URL. After this
-     * method returns a connection will be ready and you can upload chunks of the file.
+     * Begin a new upload request to the specified upload URL. The PATCH request is opened once
+     * the first chunk is uploaded, so no request is sent if no data remains to be uploaded.
      *
      * @param client Used for preparing a request ({@link TusClient#prepareConnection(URLConnection)}
      * @param uploadURL URL to send the request to
      * @param input Stream to read (and seek) from and upload to the remote server
      * @param offset Offset to read from
-     * @throws IOException Thrown if an exception occurs while issuing the HTTP request.
+     * @throws IOException Thrown if the stream ends before the offset has been reached.
      */
     public TusUploader(TusClient client, URL uploadURL, InputStream input, long offset) throws IOException {
         this.uploadURL = uploadURL;
         this.input = input;
         this.offset = offset;
 
-        input.skip(offset);
+        FileChannel channel = TusFileChannelSource.seekableChannel(input);
+        if(channel != null) {
+            // Reading the file's channel directly is equivalent to reading the stream since
+            // both share the same position.
+            source = new TusFileChannelSource(channel);
+            sourceBase = channel.position();
+            source.seek(sourceBase + offset);
+        } else {
+            skipFully(input, offset);
+        }
+
+        init(client);
+    }
+
+    /**
+     * Begin a new upload request to the specified upload URL. The data is
+     * read from the file channel at the channel's current position plus the offset and
+     * transferred to the request without reading it into a chunk-sized buffer first.
+     *
+     * @param client Used for preparing a request ({@link TusClient#prepareConnection(URLConnection)}
+     * @param uploadURL URL to send the request to
+     * @param channel File channel to read from and upload to the remote server
+     * @param offset Offset to read from
+     * @throws IOException Thrown if the channel's position cannot be determined.
+     */
+    public TusUploader(TusClient client, URL uploadURL, FileChannel channel, long offset) throws IOException {
+        this.uploadURL = uploadURL;
+        this.offset = offset;
+
+        source = new TusFileChannelSource(channel);
+        sourceBase = channel.position();
+        source.seek(sourceBase + offset);
+
+        init(client);
+    }
+
+    /**
+     * Begin a new upload request to the specified upload URL. The source will seek directly to
+     * the offset.
+     *
+     * @param client Used for preparing a request ({@link TusClient#prepareConnection(URLConnection)}
+     * @param uploadURL URL to send the request to
+     * @param source Source to seek and read from and upload to the remote server
+     * @param offset Offset to read from
+     * @throws IOException Thrown if an exception occurs while seeking.
+     */
+    public TusUploader(TusClient client, URL uploadURL, TusSeekableSource source, long offset) throws IOException {
+        this.uploadURL = uploadURL;
+        this.source = source;
+        this.offset = offset;
+
+        source.seek(offset);
+
+        init(client);
+    }
+
+    /**
+     * Skip exactly the specified number of bytes of a stream. In contrast to
+     * {@link InputStream#skip(long)}, which may skip fewer bytes for no reason, this method will
+     * continue until all bytes are skipped or the end of the stream is reached.
+     *
+     * @param input The stream to skip
+     * @param count Number of bytes to skip
+     * @throws IOException Thrown if the stream ends before all bytes have been skipped.
+     */
+    static void skipFully(InputStream input, long count) throws IOException {
+        long remaining = count;
+        while(remaining > 0) {
+            long skipped = input.skip(remaining);
+            if(skipped <= 0) {
+                // skip() does not signal the end of the stream, so read a single byte to find out.
+                if(input.read() == -1) {
+                    throw new IOException("unexpected end of stream while skipping to offset " + count + " (" + (count - remaining) + " bytes skipped)");
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
 
+    private void init(TusClient client) {
+        this.client = client;
+        retryPolicy = client.getRetryPolicy();
+        checksumAlgorithm = client.getChecksumAlgorithm();
+        clientRateLimiter = client.getRateLimiter();
+        bufferPool = client.getBufferPool();
+        maxRequestBytes = client.getMaxRequestBytes();
+        maxRequestMillis = client.getMaxRequestMillis();
+        readAheadDepth = client.getReadAheadDepth();
         setChunkSize(2 * 1024 * 1024);
 
-        connection = (HttpURLConnection) uploadURL.openConnection();
+        instrumentation = client.getInstrumentation();
+        span = instrumentation.uploadStarted(uploadURL, offset);
+    }
+
+    private void preparePatchRequest() throws IOException {
         client.prepareConnection(connection);
         connection.setRequestProperty("Upload-Offset", Long.toString(offset));
         connection.setRequestProperty("Content-Type", "application/offset+octet-stream");
@@ -60,10 +228,248 @@ public class TusUploader {
             connection.setRequestMethod("POST");
             connection.setRequestProperty("X-HTTP-Method-Override", "PATCH");
         }
+    }
+
+    /**
+     * Open a PATCH request starting at the current offset.
+     *
+     * @param end Offset at which a bounded request must end or -1 to calculate it
+     */
+    private void openRequest(long end) throws IOException {
+        requestStart = System.nanoTime();
+        requestOffset = offset;
+        requestEnd = -1;
+        requestFixedLength = false;
+        if(maxRequestBytes > 0) {
+            requestEnd = end != -1 ? end : offset + nextRequestLength();
+            // The length can only be declared if the data is known to be available.
+            long size = knownSize();
+            requestFixedLength = size != -1 && requestEnd <= size;
+        }
+
+        connection = client.openConnection(uploadURL);
+        try {
+            preparePatchRequest();
+            instrumentation.requestStarted("PATCH", connection);
+            connection.setDoOutput(true);
+            if(requestFixedLength) {
+                connection.setFixedLengthStreamingMode(requestEnd - offset);
+            } else {
+                connection.setChunkedStreamingMode(0);
+            }
+            output = new ThrottledOutputStream(connection.getOutputStream(), rateLimiter, clientRateLimiter);
+        } catch(IOException e) {
+            client.releaseConnection(connection);
+            throw e;
+        }
+        if(source != null) {
+            outputChannel = Channels.newChannel(output);
+        }
+    }
+
+    /**
+     * Calculate the length of the next bounded request. If a duration is set, the length is
+     * derived from the throughput of the previous request, starting with a single chunk.
+     */
+    private long nextRequestLength() throws IOException {
+        long length = maxRequestBytes;
+        if(maxRequestMillis > 0) {
+            long timedLength = requestBytesPerSecond > 0 ? requestBytesPerSecond * maxRequestMillis / 1000 : chunkSize;
+            length = Math.min(length, Math.max(timedLength, chunkSize));
+        }
+
+        long size = knownSize();
+        if(size != -1 && size > offset) {
+            length = Math.min(length, size - offset);
+        }
+        return length;
+    }
+
+    /**
+     * Get the upload's size if it is known in advance.
+     *
+     * @return The size or -1 if it is unknown.
+     */
+    private long knownSize() throws IOException {
+        if(sizeDeferred || outputStreamUsed) {
+            return -1;
+        }
+        if(source != null) {
+            return source.getSize() - sourceBase;
+        }
+        return uploadSize > 0 ? uploadSize : -1;
+    }
+
+    /**
+     * Complete a bounded request once all of its bytes have been written and measure its
+     * throughput for calculating the length of the next one.
+     */
+    private void finishBoundedRequest() throws IOException {
+        try {
+            finishRequest();
+        } catch(io.tus.java.client.ProtocolException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+
+        long elapsed = System.nanoTime() - requestStart;
+        if(elapsed > 0 && offset > requestOffset) {
+            requestBytesPerSecond = (long) ((offset - requestOffset) * 1e9 / elapsed);
+        }
+        requestEnd = -1;
+    }
+
+    private boolean requestFull() {
+        return output != null && requestEnd != -1 && offset >= requestEnd;
+    }
+
+    /**
+     * Release the connection of the current request. This method does nothing if the connection
+     * has already been released.
+     */
+    private void releaseRequest() {
+        if(connection != null) {
+            client.releaseConnection(connection);
+            connection = null;
+        }
+    }
+
+    /**
+     * Set the fingerprint which will be removed from the client's {@link TusURLStore} once the
+     * upload has been finished completely.
+     */
+    void setFingerprint(String fingerprint, long uploadSize) {
+        this.fingerprint = fingerprint;
+        this.uploadSize = uploadSize;
+    }
+
+    /**
+     * Set the upload's size, which allows bounded requests to declare their length when reading
+     * from a stream.
+     */
+    void setUploadSize(long uploadSize) {
+        this.uploadSize = uploadSize;
+    }
+
+    /**
+     * Set the algorithm used for the Upload-Checksum header, which replaces the client's
+     * algorithm if the server does not support it.
+     */
+    void setChecksumAlgorithm(TusChecksumAlgorithm checksumAlgorithm) {
+        this.checksumAlgorithm = checksumAlgorithm;
+    }
 
-        connection.setDoOutput(true);
-        connection.setChunkedStreamingMode(0);
-        output = connection.getOutputStream();
+    /**
+     * Limit every PATCH request to a number of bytes and, optionally, a duration. Once the limit
+     * has been reached, the request is completed and the next chunk is sent in a new request.
+     * This way, the server commits the received data regularly and a failed request only loses
+     * the data sent since the last completed one.
+     * <br>
+     * HttpURLConnection requires the length of a request with a fixed Content-Length to be known
+     * when it is opened, so the duration is approximated by deriving each request's length from
+     * the throughput of the previous one. The first request contains a single chunk. Requests
+     * are sent with a fixed Content-Length if the upload's size is known and using chunked
+     * encoding otherwise. A request with a fixed length cannot be completed early, so
+     * {@link #finish()} aborts it instead of waiting for its remaining bytes. The server keeps at
+     * most the bytes it has received, which are found out using a HEAD request when resuming.
+     * <br>
+     * This setting has no effect if checksums are enabled since every chunk is sent in its own
+     * request then.
+     *
+     * @param maxBytes Maximum number of bytes sent in a single request
+     * @param maxMillis Duration a single request should take in milliseconds or 0 for no limit
+     */
+    public void enableBoundedRequests(long maxBytes, long maxMillis) {
+        if(maxBytes <= 0 || maxMillis < 0) {
+            throw new IllegalArgumentException("invalid request limits");
+        }
+        maxRequestBytes = maxBytes;
+        maxRequestMillis = maxMillis;
+    }
+
+    /**
+     * Send all remaining data in a single PATCH request. The current request is not affected.
+     *
+     * @see #enableBoundedRequests(long, long)
+     */
+    public void disableBoundedRequests() {
+        maxRequestBytes = 0;
+        maxRequestMillis = 0;
+    }
+
+    /**
+     * Get the current status of bounded requests.
+     *
+     * @return True if enabled using {@link #enableBoundedRequests(long, long)}
+     */
+    public boolean boundedRequestsEnabled() {
+        return maxRequestBytes > 0;
+    }
+
+    /**
+     * Read the next chunks on a background thread while the current one is written to the
+     * request, so reading from slow storage and writing to the network overlap. Up to the given
+     * number of chunks are read ahead, each into a buffer borrowed from the client's
+     * {@link TusBufferPool}.
+     * <br>
+     * Chunks read ahead are copied into buffers even if the data is read from a
+     * {@link TusSeekableSource}, and a failed request can only be resumed within the most recent
+     * chunk, as for streams. Read-ahead must be enabled before the first chunk is uploaded.
+     *
+     * @param depth Maximum number of chunks read ahead, 0 to disable read-ahead
+     */
+    public void enableReadAhead(int depth) {
+        if(depth < 0) {
+            throw new IllegalArgumentException("read-ahead depth must not be negative");
+        }
+        if(readAhead != null) {
+            throw new IllegalStateException("read-ahead has already been started");
+        }
+        readAheadDepth = depth;
+    }
+
+    /**
+     * Get the current status of read-ahead.
+     *
+     * @return True if enabled using {@link #enableReadAhead(int)}
+     */
+    public boolean readAheadEnabled() {
+        return readAheadDepth > 0;
+    }
+
+    public int getReadAheadDepth() {
+        return readAheadDepth;
+    }
+
+    /**
+     * Set the policy used for retrying failed requests. Uploaders returned by {@link TusClient}
+     * use the client's policy (see {@link TusClient#setRetryPolicy(TusRetryPolicy)}) by default.
+     *
+     * @param retryPolicy The new policy or <code>null</code> to disable retries
+     */
+    public void setRetryPolicy(TusRetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public TusRetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Limit the rate at which this uploader writes data. The limit applies in addition to the
+     * client's limiter (see {@link TusClient#setRateLimiter(TusRateLimiter)}) and takes effect
+     * immediately, even within the current chunk.
+     *
+     * @param rateLimiter The limiter or <code>null</code> to only use the client's limiter
+     */
+    public void setRateLimiter(TusRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+        if(output instanceof ThrottledOutputStream) {
+            ((ThrottledOutputStream) output).setUploadLimiter(rateLimiter);
+        }
+    }
+
+    public TusRateLimiter getRateLimiter() {
+        return rateLimiter;
     }
 
     /**
@@ -71,29 +477,79 @@ public class TusUploader {
      * much data is uploaded in a single take. When choosing a value for this parameter you need to
      * consider that uploadChunk() will only return once the specified number of bytes has been
      * sent. For slow internet connections this may take a long time. In addition, a buffer with
-     * the chunk size is allocated and kept in memory.
+     * at least the chunk size is borrowed from the client's {@link TusBufferPool} for every chunk
+     * unless the data is read from a {@link TusSeekableSource} and no checksums are sent.
      *
      * @param size The new chunk size
      */
     public void setChunkSize(int size) {
-        buffer = new byte[size];
+        chunkSize = size;
     }
 
     /**
-     * Returns the current chunk size set using {@link #setChunkSize(int)}.
+     * Returns the current chunk size set using {@link #setChunkSize(int)} or, if adaptive chunk
+     * sizes are enabled, the size calculated for the next chunk.
      *
      * @return Current chunk size
      */
     public int getChunkSize() {
-        return buffer.length;
+        return chunkSize;
+    }
+
+    /**
+     * Enable adjusting the chunk size after every chunk using a target duration of one second per
+     * chunk.
+     *
+     * @param minSize Lower limit for the chunk size in bytes
+     * @param maxSize Upper limit for the chunk size in bytes
+     * @see #enableAdaptiveChunkSize(int, int, long)
+     */
+    public void enableAdaptiveChunkSize(int minSize, int maxSize) {
+        enableAdaptiveChunkSize(minSize, maxSize, 1000);
+    }
+
+    /**
+     * Enable adjusting the chunk size after every chunk based on the measured throughput. The
+     * size is chosen so that writing and flushing a single chunk takes about the target duration
+     * while staying within the given limits. Reading the data is not included, so slow sources do
+     * not shrink the chunks. This reduces the number of writes and flushes on fast connections and
+     * keeps {@link #uploadChunk()} responsive on slow ones. The current chunk size is used for the
+     * first chunk.
+     *
+     * @param minSize Lower limit for the chunk size in bytes
+     * @param maxSize Upper limit for the chunk size in bytes
+     * @param targetMillis Duration a single chunk should take to upload in milliseconds
+     */
+    public void enableAdaptiveChunkSize(int minSize, int maxSize, long targetMillis) {
+        adaptiveChunkSize = new AdaptiveChunkSize(minSize, maxSize, targetMillis, chunkSize);
+        chunkSize = adaptiveChunkSize.getSize();
+    }
+
+    /**
+     * Disable adaptive chunk sizes. The last calculated chunk size will be kept.
+     *
+     * @see #enableAdaptiveChunkSize(int, int, long)
+     */
+    public void disableAdaptiveChunkSize() {
+        adaptiveChunkSize = null;
+    }
+
+    /**
+     * Get the current status of adaptive chunk sizes.
+     *
+     * @return True if enabled using {@link #enableAdaptiveChunkSize(int, int, long)}
+     */
+    public boolean adaptiveChunkSizeEnabled() {
+        return adaptiveChunkSize != null;
     }
 
     /**
      * Upload a part of the file by reading a chunk from the InputStream and writing
      * it to the HTTP request's body. If the number of available bytes is lower than the chunk's
      * size, all available bytes will be uploaded and nothing more.
-     * No new connection will be established when calling this method, instead the connection opened
-     * in the constructor will be used.
+     * The chunk is written to the current PATCH request, which is opened when the first chunk is
+     * uploaded and, if bounded requests are enabled, whenever the previous request has been
+     * completed.
      * The size of the read chunk can be obtained using {@link #getChunkSize()} and changed
      * using {@link #setChunkSize(int)}.
      * In order to obtain the new offset, use {@link #getOffset()} after this method returns.
@@ -103,19 +559,51 @@ public class TusUploader {
      *                      to the HTTP request.
      */
     public int uploadChunk() throws IOException {
-        int bytesRead = input.read(buffer);
+        chunkWriteNanos = 0;
+
+        int bytesRead;
+        if(readAheadDepth > 0) {
+            bytesRead = uploadReadAheadChunk();
+        } else if(checksumAlgorithm != null) {
+            // The chunk's request has been completed once it returns, so the buffer is not
+            // needed afterwards.
+            byte[] buf = bufferPool.acquire(chunkSize);
+            try {
+                bytesRead = uploadChecksummedChunk(buf, chunkSize);
+            } finally {
+                bufferPool.release(buf);
+            }
+        } else if(source != null) {
+            bytesRead = transferChunk(chunkSize);
+        } else {
+            // Chunks do not extend beyond the current bounded request, so every chunk is written
+            // to a single request.
+            int size = requestEnd != -1 && output != null ? (int) Math.min(chunkSize, requestEnd - offset) : chunkSize;
+            byte[] buf = bufferPool.acquire(size);
+            try {
+                bytesRead = writeChunk(buf, size);
+            } finally {
+                // The buffer may be needed for resending the chunk until the request has been
+                // finished, unless nothing has been read into it.
+                if(chunkBuffer == buf) {
+                    keepBorrowedBuffer(buf);
+                } else {
+                    bufferPool.release(buf);
+                }
+            }
+        }
+
         if(bytesRead == -1) {
             // No bytes were read since the input stream is empty
             return -1;
         }
 
-        // Do not write the entire buffer to the stream since the array will
-        // be filled up with 0x00s if the number of read bytes is lower then
-        // the chunk's size.
-        output.write(buffer, 0, bytesRead);
-        output.flush();
-
-        offset += bytesRead;
+        if(adaptiveChunkSize != null) {
+            chunkSize = adaptiveChunkSize.update(bytesRead, chunkWriteNanos);
+            if(readAhead != null) {
+                readAhead.setChunkSize(chunkSize);
+            }
+        }
 
         return bytesRead;
     }
@@ -124,8 +612,7 @@ public class TusUploader {
      * Upload a part of the file by read a chunks specified size from the InputStream and writing
      * it to the HTTP request's body. If the number of available bytes is lower than the chunk's
      * size, all available bytes will be uploaded and nothing more.
-     * No new connection will be established when calling this method, instead the connection opened
-     * in the constructor will be used.
+     * The chunk is written to the current PATCH request as described for {@link #uploadChunk()}.
      * In order to obtain the new offset, use {@link #getOffset()} after this method returns.
      *
      * @deprecated This method is inefficient and has been replaced by {@link #setChunkSize(int)}
@@ -141,26 +628,486 @@ public class TusUploader {
      * @return Number of bytes read and written.
      * @throws IOException  Thrown if an exception occurs while reading from the source or writing
      *                      to the HTTP request.
+     * @throws IllegalStateException Thrown if reading ahead has been enabled using
+     *                               {@link #enableReadAhead(int)} since the chunks already read
+     *                               would be skipped.
      */
     @Deprecated public int uploadChunk(int chunkSize) throws IOException {
-        byte[] buf = new byte[chunkSize];
-        int bytesRead = input.read(buf);
+        if(readAheadDepth > 0) {
+            throw new IllegalStateException("uploadChunk(int) cannot be used while reading ahead, use uploadChunk() instead");
+        }
+
+        if(checksumAlgorithm != null) {
+            return uploadChecksummedChunk(new byte[chunkSize], chunkSize);
+        }
+
+        if(source != null) {
+            return transferChunk(chunkSize);
+        }
+
+        return writeChunk(new byte[chunkSize], chunkSize);
+    }
+
+    /**
+     * Read a chunk from the input stream into a buffer and write it to the HTTP request's body.
+     *
+     * @param buf The buffer to read into
+     * @param size Maximum number of bytes which will be read
+     * @return Number of bytes read and written or -1 if the end of the stream has been reached.
+     * @throws IOException Thrown if an exception occurs while reading from the stream or writing
+     *                     to the HTTP request and the request cannot be retried.
+     */
+    private int writeChunk(byte[] buf, int size) throws IOException {
+        int bytesRead = input.read(buf, 0, size);
         if(bytesRead == -1) {
             // No bytes were read since the input stream is empty
             return -1;
         }
 
-        // Do not write the entire buffer to the stream since the array will
-        // be filled up with 0x00s if the number of read bytes is lower then
-        // the chunk's size.
-        output.write(buf, 0, bytesRead);
-        output.flush();
+        return writeBuffer(buf, 0, bytesRead);
+    }
+
+    /**
+     * Upload the next chunk which has been read ahead, starting the reader on first use. If a
+     * bounded request ends within the chunk, only the part up to its end is written and the rest
+     * is kept for the next call.
+     *
+     * @return Number of bytes written or -1 if the end of the data has been reached.
+     * @throws IOException Thrown if reading the chunk has failed or if an exception occurs while
+     *                     writing to the HTTP request and the request cannot be retried.
+     */
+    private int uploadReadAheadChunk() throws IOException {
+        if(pendingBuffer == null) {
+            if(readAhead == null) {
+                readAhead = new ReadAheadReader(input, source, bufferPool, readAheadDepth, chunkSize);
+                readAhead.start();
+            }
 
-        offset += bytesRead;
+            ReadAheadReader.Chunk chunk = readAhead.take();
+            if(chunk == null) {
+                return -1;
+            }
+            pendingBuffer = chunk.buffer;
+            pendingStart = 0;
+            pendingLength = chunk.length;
+        }
+
+        byte[] buf = pendingBuffer;
+        if(checksumAlgorithm != null) {
+            pendingBuffer = null;
+            try {
+                return uploadBuffer(buf, pendingLength, -1);
+            } finally {
+                bufferPool.release(buf);
+            }
+        }
 
+        int start = pendingStart;
+        int length = pendingLength;
+        if(requestEnd != -1 && output != null) {
+            length = (int) Math.min(length, requestEnd - offset);
+        }
+        pendingStart += length;
+        pendingLength -= length;
+        if(pendingLength == 0) {
+            pendingBuffer = null;
+        }
+
+        try {
+            return writeBuffer(buf, start, length);
+        } finally {
+            keepBorrowedBuffer(buf);
+        }
+    }
+
+    /**
+     * Write a buffer to the HTTP request's body. The buffer is kept for resending it if the
+     * request fails, so it must not be modified until the next chunk has been written.
+     *
+     * @param buf The buffer to write
+     * @param start Position of the first byte in the buffer which will be written
+     * @param bytesRead Number of bytes after the start which will be written
+     * @return Number of bytes written.
+     * @throws IOException Thrown if an exception occurs while writing to the HTTP request and the
+     *                     request cannot be retried.
+     */
+    private int writeBuffer(byte[] buf, int start, int bytesRead) throws IOException {
+        chunkBuffer = buf;
+        chunkStart = start;
+        chunkOffset = offset;
+        chunkLength = bytesRead;
+
+        long end = chunkOffset + bytesRead;
+        while(offset < end) {
+            try {
+                if(output == null) {
+                    openRequest(-1);
+                }
+
+                // Do not write the entire buffer to the stream since the array will
+                // be filled up with 0x00s if the number of read bytes is lower then
+                // the chunk's size. A bounded request may also end within the chunk.
+                int length = (int) (requestEnd != -1 ? Math.min(end, requestEnd) - offset : end - offset);
+                long writeStart = System.nanoTime();
+                output.write(buf, chunkStart + (int) (offset - chunkOffset), length);
+                long flushStart = System.nanoTime();
+                output.flush();
+
+                long flushEnd = System.nanoTime();
+
+                offset += length;
+                chunkWriteNanos += flushEnd - writeStart;
+                instrumentation.chunkUploaded(uploadURL, length, flushStart - writeStart, flushEnd - flushStart);
+            } catch(IOException e) {
+                retryDuringChunk(e, end);
+            }
+
+            if(requestFull()) {
+                finishBoundedRequest();
+            }
+        }
+
+        retryAttempt = 0;
         return bytesRead;
     }
 
+    /**
+     * Keep a buffer borrowed for the most recent chunk and return the one of the previous chunk,
+     * which is not needed for resending data anymore. Without a retry policy, no data is resent,
+     * so the buffer is returned right away unless the rest of the chunk is still pending.
+     */
+    private void keepBorrowedBuffer(byte[] buf) {
+        if(borrowedBuffer != buf) {
+            releaseBorrowedBuffer();
+            borrowedBuffer = buf;
+        }
+        if(retryPolicy == null && buf != pendingBuffer) {
+            releaseBorrowedBuffer();
+        }
+    }
+
+    private void releaseBorrowedBuffer() {
+        if(borrowedBuffer != null) {
+            if(chunkBuffer == borrowedBuffer) {
+                chunkBuffer = null;
+            }
+            bufferPool.release(borrowedBuffer);
+            borrowedBuffer = null;
+        }
+    }
+
+    /**
+     * Transfer a chunk from the source to the HTTP request's body without reading it into
+     * a buffer owned by this uploader. Since the body is a stream wrapped by
+     * {@link Channels#newChannel(OutputStream)}, the source still copies the data through the
+     * channel's own small buffer.
+     *
+     * @param size Maximum number of bytes which will be transferred
+     * @return Number of bytes transferred or -1 if the end of the file has been reached.
+     * @throws IOException Thrown if an exception occurs while reading from the source or
+     *                     writing to the HTTP request.
+     */
+    private int transferChunk(int size) throws IOException {
+        long bytesTransferred;
+        try {
+            if(output == null) {
+                if(source.getPosition() >= source.getSize()) {
+                    // Do not open a request if nothing remains to be uploaded
+                    return -1;
+                }
+                openRequest(-1);
+            }
+
+            long count = requestEnd != -1 ? Math.min(size, requestEnd - offset) : size;
+            long writeStart = System.nanoTime();
+            bytesTransferred = source.transferTo(outputChannel, count);
+            if(bytesTransferred == -1) {
+                // No bytes were transferred since the end of the source is reached
+                return -1;
+            }
+
+            long flushStart = System.nanoTime();
+            output.flush();
+            long flushEnd = System.nanoTime();
+            chunkWriteNanos += flushEnd - writeStart;
+            instrumentation.chunkUploaded(uploadURL, (int) bytesTransferred, flushStart - writeStart, flushEnd - flushStart);
+        } catch(IOException e) {
+            // The source has been repositioned to the server's offset, so the chunk can simply
+            // be transferred again.
+            retryDuringChunk(e, offset);
+            if(requestFull()) {
+                finishBoundedRequest();
+            }
+            return transferChunk(size);
+        }
+
+        offset += bytesTransferred;
+        if(requestFull()) {
+            finishBoundedRequest();
+        }
+
+        retryAttempt = 0;
+        return (int) bytesTransferred;
+    }
+
+    /**
+     * Read a chunk into a buffer and upload it in a separate request whose Upload-Checksum header
+     * contains the chunk's checksum. Failed requests are retried according to the retry policy.
+     * If the server has rejected the checksum, the chunk is sent again immediately. For all other
+     * failures, the server's offset is fetched first since the chunk may have been stored although
+     * the response has been lost.
+     *
+     * @param buf The buffer to read into
+     * @param size Maximum number of bytes which will be read
+     * @return Number of bytes read and uploaded or -1 if the end of the data has been reached.
+     * @throws IOException Thrown if an exception occurs while reading or uploading the chunk and
+     *                     the request cannot be retried.
+     */
+    private int uploadChecksummedChunk(byte[] buf, int size) throws IOException {
+        int bytesRead = source != null ? source.read(buf, 0, size) : input.read(buf, 0, size);
+        if(bytesRead == -1) {
+            return -1;
+        }
+
+        return uploadBuffer(buf, bytesRead, -1);
+    }
+
+    /**
+     * Upload a buffer in a separate request with a fixed length and wait for the server's
+     * response. Failed requests are retried as described for
+     * {@link #uploadChecksummedChunk(byte[], int)}.
+     *
+     * @param buf The buffer to upload
+     * @param bytesRead Number of bytes at the beginning of the buffer which will be uploaded
+     * @param uploadLength Value of the Upload-Length header or -1 to omit it
+     * @return Number of bytes uploaded.
+     * @throws IOException Thrown if the request fails and cannot be retried.
+     */
+    private int uploadBuffer(byte[] buf, int bytesRead, long uploadLength) throws IOException {
+        String checksum = checksumAlgorithm == null ? null : checksumAlgorithm.headerValue(buf, 0, bytesRead);
+        boolean resync = false;
+        while(true) {
+            Exception failure = null;
+            long serverOffset = offset;
+            try {
+                if(resync) {
+                    serverOffset = client.getUploadOffset(uploadURL);
+                }
+                if(serverOffset == offset) {
+                    sendChunk(buf, bytesRead, checksum, uploadLength);
+                }
+            } catch(io.tus.java.client.ProtocolException e) {
+                failure = e;
+            } catch(IOException e) {
+                failure = e;
+            }
+
+            if(failure == null) {
+                if(serverOffset != offset && serverOffset != offset + bytesRead) {
+                    throw new IOException("unable to retry upload: server's offset " + serverOffset + " is outside of the chunk starting at " + offset);
+                }
+
+                offset += bytesRead;
+                retryAttempt = 0;
+                return bytesRead;
+            }
+
+            retryAttempt++;
+            if(retryPolicy == null || !retryPolicy.shouldRetry(retryAttempt, failure)) {
+                if(failure instanceof IOException) {
+                    throw (IOException) failure;
+                }
+                throw new IOException(failure.getMessage(), failure);
+            }
+            sleepBeforeRetry(failure);
+
+            resync = !(failure instanceof io.tus.java.client.ProtocolException &&
+                    ((io.tus.java.client.ProtocolException) failure).getStatusCode() == 460);
+        }
+    }
+
+    /**
+     * Send a single chunk with a fixed length and, if set, Upload-Checksum and Upload-Length
+     * headers and wait for the server's response.
+     */
+    private void sendChunk(byte[] buf, int length, String checksum, long uploadLength) throws io.tus.java.client.ProtocolException, IOException {
+        long start = System.nanoTime();
+        connection = client.openConnection(uploadURL);
+        try {
+            preparePatchRequest();
+            if(checksum != null) {
+                connection.setRequestProperty("Upload-Checksum", checksum);
+            }
+            if(uploadLength >= 0) {
+                connection.setRequestProperty("Upload-Length", Long.toString(uploadLength));
+            }
+            instrumentation.requestStarted("PATCH", connection);
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(length);
+
+            long writeStart = System.nanoTime();
+            OutputStream body = new ThrottledOutputStream(connection.getOutputStream(), rateLimiter, clientRateLimiter);
+            body.write(buf, 0, length);
+            long flushStart = System.nanoTime();
+            body.close();
+            long flushEnd = System.nanoTime();
+            chunkWriteNanos += flushEnd - writeStart;
+            instrumentation.chunkUploaded(uploadURL, length, flushStart - writeStart, flushEnd - flushStart);
+
+            int responseCode = client.readResponseCode(connection, "PATCH", start);
+            if(!(responseCode >= 200 && responseCode < 300)) {
+                throw new io.tus.java.client.ProtocolException("unexpected status code (" + responseCode + ") while uploading chunk", responseCode);
+            }
+        } finally {
+            releaseRequest();
+        }
+    }
+
+    /**
+     * Retry after writing a chunk has failed. Since {@link #uploadChunk()} cannot throw a
+     * {@link io.tus.java.client.ProtocolException}, it will be wrapped in an IOException if the
+     * server responds unexpectedly while retrying.
+     */
+    private void retryDuringChunk(IOException cause, long target) throws IOException {
+        try {
+            retry(cause, target);
+        } catch(io.tus.java.client.ProtocolException e) {
+            throw new IOException("unable to retry upload: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Retry a failed request according to the retry policy. After waiting for the policy's delay,
+     * the offset is fetched from the remote server, the source is repositioned and a new request
+     * is opened. If the server has received fewer bytes than the target offset, the missing bytes
+     * will be sent again, so the upload continues at the target offset once this method returns.
+     *
+     * @param cause The exception which caused the request to fail
+     * @param target Offset which must be reached after resending the missing bytes
+     * @throws io.tus.java.client.ProtocolException Thrown if the failure cannot be retried.
+     * @throws IOException Thrown if the failure cannot be retried.
+     */
+    private void retry(Exception cause, long target) throws io.tus.java.client.ProtocolException, IOException {
+        releaseRequest();
+
+        Exception failure = cause;
+        while(true) {
+            retryAttempt++;
+            if(retryPolicy == null || !retryPolicy.shouldRetry(retryAttempt, failure)) {
+                throwFailure(failure);
+            }
+
+            sleepBeforeRetry(failure);
+
+            long serverOffset;
+            try {
+                serverOffset = client.getUploadOffset(uploadURL);
+            } catch(IOException e) {
+                failure = e;
+                continue;
+            } catch(io.tus.java.client.ProtocolException e) {
+                failure = e;
+                continue;
+            }
+
+            if(!canResumeAt(serverOffset, target)) {
+                throwFailure(cause);
+            }
+
+            try {
+                if(seekable()) {
+                    source.seek(sourceBase + serverOffset);
+                }
+                offset = serverOffset;
+
+                if(maxRequestBytes > 0) {
+                    // Only the missing bytes are sent in a bounded request, so its length is
+                    // known even if it has to be completed immediately afterwards.
+                    if(offset >= target) {
+                        requestEnd = -1;
+                        return;
+                    }
+                    openRequest(target);
+                } else {
+                    openRequest(-1);
+                }
+                resend(target);
+                return;
+            } catch(IOException e) {
+                releaseRequest();
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * Check whether the upload can be continued at the server's offset. Seekable sources can
+     * continue at any offset while streams can only continue within the most recent chunk.
+     */
+    private boolean canResumeAt(long serverOffset, long target) {
+        if(serverOffset < 0) {
+            return false;
+        }
+
+        if(seekable()) {
+            return true;
+        }
+
+        long chunkEnd = chunkOffset + chunkLength;
+        return chunkBuffer != null && serverOffset >= chunkOffset && serverOffset <= chunkEnd && target <= chunkEnd;
+    }
+
+    /**
+     * Check whether the source can be repositioned for retrying. This is not the case while it
+     * is read ahead by another thread.
+     */
+    private boolean seekable() {
+        return source != null && readAhead == null;
+    }
+
+    /**
+     * Write the bytes between the current offset and the target offset to the new request.
+     */
+    private void resend(long target) throws IOException {
+        if(offset >= target) {
+            return;
+        }
+
+        if(seekable()) {
+            while(offset < target) {
+                long bytesTransferred = source.transferTo(outputChannel, Math.min(chunkSize, target - offset));
+                if(bytesTransferred == -1) {
+                    throw new IOException("unexpected end of source while resending data");
+                }
+                offset += bytesTransferred;
+            }
+        } else {
+            output.write(chunkBuffer, chunkStart + (int) (offset - chunkOffset), (int) (target - offset));
+            offset = target;
+        }
+        output.flush();
+    }
+
+    private void sleepBeforeRetry(Exception cause) throws InterruptedIOException {
+        long delay = retryPolicy.getDelay(retryAttempt);
+        instrumentation.retryScheduled(uploadURL, retryAttempt, delay, cause);
+        try {
+            Thread.sleep(delay);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting to retry upload");
+        }
+    }
+
+    private static void throwFailure(Exception e) throws io.tus.java.client.ProtocolException, IOException {
+        if(e instanceof io.tus.java.client.ProtocolException) {
+            throw (io.tus.java.client.ProtocolException) e;
+        } else if(e instanceof IOException) {
+            throw (IOException) e;
+        }
+        throw new RuntimeException(e);
+    }
+
     /**
      * Get the current offset for the upload. This is the number of all bytes uploaded in total and
      * in all requests (not only this one). You can use it in conjunction with
@@ -176,23 +1123,226 @@ public class TusUploader {
         return uploadURL;
     }
 
+    /**
+     * Mark the upload as created using the Upload-Defer-Length header, so its length will be
+     * declared when the stream returned by {@link #getOutputStream()} is closed.
+     */
+    void setSizeDeferred(boolean sizeDeferred) {
+        this.sizeDeferred = sizeDeferred;
+    }
+
+    /**
+     * Get a stream which uploads all data written to it. This allows producers to stream data
+     * directly into the upload instead of providing an InputStream to read from, which is
+     * especially useful for uploads whose size is not known in advance (see
+     * {@link TusUpload#setSizeDeferred(boolean)}).
+     * <br>
+     * The data is collected in buffers of the current chunk size and written to the PATCH
+     * request whenever a buffer is full, so two buffers of the chunk size are borrowed from the
+     * client's {@link TusBufferPool} until the stream is closed.
+     * Closing the stream sends the remaining data in a final PATCH request, which also declares
+     * the upload's length if it has been deferred, and finishes the uploader (see
+     * {@link #finish()}). Do not use {@link #uploadChunk()} while using the stream.
+     * A {@link WritableByteChannel} can be obtained using {@link Channels#newChannel(OutputStream)}.
+     *
+     * @return A new stream uploading to this upload's URL.
+     */
+    public OutputStream getOutputStream() {
+        outputStreamUsed = true;
+        return new UploadOutputStream(chunkSize);
+    }
+
+    /**
+     * Stream returned by {@link #getOutputStream()}. The buffer which has been written most
+     * recently is kept unchanged until the next one is written, so it can be resent if the
+     * request fails.
+     */
+    private class UploadOutputStream extends OutputStream {
+        private final int capacity;
+        private byte[] current;
+        private byte[] previous;
+        private int length;
+        private boolean closed;
+
+        UploadOutputStream(int bufferSize) {
+            capacity = bufferSize;
+            current = bufferPool.acquire(bufferSize);
+            previous = bufferPool.acquire(bufferSize);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureOpen();
+            if(length == capacity) {
+                writeCurrent();
+            }
+            current[length++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ensureOpen();
+            while(len > 0) {
+                // A full buffer is only written once more data arrives, so the final request
+                // created by close() is never empty unless no data has been written at all.
+                if(length == capacity) {
+                    writeCurrent();
+                }
+
+                int n = Math.min(len, capacity - length);
+                System.arraycopy(b, off, current, length, n);
+                length += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        private void writeCurrent() throws IOException {
+            if(checksumAlgorithm != null) {
+                uploadBuffer(current, length, -1);
+            } else {
+                writeBuffer(current, 0, length);
+            }
+
+            byte[] written = current;
+            current = previous;
+            previous = written;
+            length = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if(closed) {
+                return;
+            }
+            closed = true;
+
+            try {
+                if(output != null && checksumAlgorithm == null) {
+                    finishRequest();
+                }
+
+                if(length > 0 || sizeDeferred) {
+                    uploadBuffer(current, length, sizeDeferred ? offset + length : -1);
+                }
+                if(sizeDeferred) {
+                    // The length has been declared, so the upload is complete now.
+                    uploadSize = offset;
+                    sizeDeferred = false;
+                }
+
+                finish();
+            } catch(io.tus.java.client.ProtocolException e) {
+                throw new IOException(e.getMessage(), e);
+            } finally {
+                chunkBuffer = null;
+                bufferPool.release(current);
+                bufferPool.release(previous);
+            }
+        }
+
+        private void ensureOpen() throws IOException {
+            if(closed) {
+                throw new IOException("stream has been closed");
+            }
+        }
+    }
+
     /**
      * Finish the request by closing the HTTP connection and the InputStream.
      * You can call this method even before the entire file has been uploaded. Use this behavior to
      * enable pausing uploads.
+     * If the request fails and a retry policy is set, the bytes not received by the server will be
+     * sent again in a new request before this method returns.
+     * A bounded request with a fixed length which has not been sent entirely is aborted (see
+     * {@link #enableBoundedRequests(long, long)}), and the offset is reset to the request's start.
      *
      * @throws io.tus.java.client.ProtocolException Thrown if the server sends an unexpected status
      * code
      * @throws IOException  Thrown if an exception occurs while cleaning up.
      */
     public void finish() throws io.tus.java.client.ProtocolException, IOException {
-        input.close();
-        output.close();
-        int responseCode = connection.getResponseCode();
+        Exception failure = null;
+        try {
+            // No request has been opened if no chunk has been uploaded. With checksums, every
+            // chunk has already been sent in a completed request.
+            if(checksumAlgorithm == null && output != null) {
+                if(requestFixedLength && offset < requestEnd) {
+                    abortRequest();
+                } else {
+                    finishRequest();
+                }
+            }
+        } catch(io.tus.java.client.ProtocolException e) {
+            failure = e;
+            throw e;
+        } catch(IOException e) {
+            failure = e;
+            throw e;
+        } finally {
+            if(readAhead != null) {
+                readAhead.close();
+            }
+            pendingBuffer = null;
+            releaseBorrowedBuffer();
+            try {
+                if(input != null) {
+                    input.close();
+                } else if(source != null) {
+                    source.close();
+                }
+            } finally {
+                instrumentation.uploadFinished(span, uploadURL, offset, failure);
+            }
+        }
+
+        // The size of a deferred upload is unknown until it has been declared, so the upload
+        // cannot be complete before.
+        if(fingerprint != null && !sizeDeferred && offset >= uploadSize) {
+            client.uploadFinished(fingerprint);
+        }
+    }
+
+    /**
+     * Abort a bounded request with a fixed length before all of its bytes have been sent by
+     * closing the connection. Since the server may have discarded the request's data, the offset
+     * is reset to the request's start.
+     */
+    private void abortRequest() {
         connection.disconnect();
+        releaseRequest();
+        output = null;
+        outputChannel = null;
+        offset = requestOffset;
+        requestEnd = -1;
+    }
+
+    private void finishRequest() throws io.tus.java.client.ProtocolException, IOException {
+        // A retry may not open a new request if the server has already received all data.
+        while(output != null) {
+            Exception failure;
+            try {
+                int responseCode;
+                try {
+                    output.close();
+                    responseCode = client.readResponseCode(connection, "PATCH", requestStart);
+                } finally {
+                    releaseRequest();
+                    output = null;
+                    outputChannel = null;
+                }
+
+                if(responseCode >= 200 && responseCode < 300) {
+                    retryAttempt = 0;
+                    return;
+                }
+
+                failure = new io.tus.java.client.ProtocolException("unexpected status code (" + responseCode + ") while uploading chunk", responseCode);
+            } catch(IOException e) {
+                failure = e;
+            }
 
-        if(!(responseCode >= 200 && responseCode < 300)) {
-            throw new io.tus.java.client.ProtocolException("unexpected status code (" + responseCode + ") while uploading chunk");
+            retry(failure, offset);
         }
     }
 }
@@ -0,0 +1,46 @@
+package io.tus.java.client;
+
+import junit.framework.TestCase;
+
+public class TestAdaptiveChunkSize extends TestCase {
+    public void testGrowsOnFastConnections() {
+        AdaptiveChunkSize adaptive = new AdaptiveChunkSize(1024, 64 * 1024, 1000, 4096);
+        assertEquals(4096, adaptive.getSize());
+
+        // 4 KiB in 1ms means the target of 1s would allow far more than the maximum.
+        assertEquals(8192, adaptive.update(4096, 1000000L));
+        assertEquals(16384, adaptive.update(8192, 1000000L));
+        assertEquals(32768, adaptive.update(16384, 1000000L));
+        assertEquals(65536, adaptive.update(32768, 1000000L));
+        assertEquals(65536, adaptive.update(65536, 1000000L));
+    }
+
+    public void testShrinksOnSlowConnections() {
+        AdaptiveChunkSize adaptive = new AdaptiveChunkSize(1024, 64 * 1024, 1000, 16384);
+
+        // 16 KiB in 10s is too slow for the target duration.
+        assertEquals(8192, adaptive.update(16384, 10000000000L));
+        assertEquals(4096, adaptive.update(8192, 10000000000L));
+        assertEquals(2048, adaptive.update(4096, 10000000000L));
+        assertEquals(1024, adaptive.update(2048, 10000000000L));
+        assertEquals(1024, adaptive.update(1024, 10000000000L));
+    }
+
+    public void testShortChunks() {
+        AdaptiveChunkSize adaptive = new AdaptiveChunkSize(1024, 64 * 1024, 1000, 16384);
+
+        // 1 KiB in 1s is measured as 1 KiB/s even though the chunk was cut short.
+        assertEquals(8192, adaptive.update(1024, 1000000000L));
+        assertEquals(8192, adaptive.update(0, 1000000L));
+        assertEquals(8192, adaptive.update(8192, 0));
+    }
+
+    public void testInvalidLimits() {
+        try {
+            new AdaptiveChunkSize(2048, 1024, 1000, 1024);
+            fail("expected IllegalArgumentException");
+        } catch(IllegalArgumentException e) {
+            assertEquals("invalid chunk size limits: 2048 to 1024", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package io.tus.java.client;
+
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+
+public class TestTusBufferPool extends TestCase {
+    public void testSizeClasses() {
+        TusBufferPool pool = new TusBufferPool(16, 64, 1024);
+
+        assertEquals(16, pool.acquire(1).length);
+        assertEquals(16, pool.acquire(16).length);
+        assertEquals(32, pool.acquire(17).length);
+        assertEquals(64, pool.acquire(64).length);
+        // Larger buffers are allocated with the exact size.
+        assertEquals(100, pool.acquire(100).length);
+        assertEquals(5, pool.getAcquireCount());
+        assertEquals(5, pool.getAllocationCount());
+        assertEquals(16 + 16 + 32 + 64 + 100, pool.getBytesInUse());
+    }
+
+    public void testReuse() {
+        TusBufferPool pool = new TusBufferPool(16, 64, 1024);
+
+        byte[] buffer = pool.acquire(20);
+        pool.release(buffer);
+        assertEquals(0, pool.getBytesInUse());
+        assertEquals(32, pool.getRetainedBytes());
+
+        assertSame(buffer, pool.acquire(32));
+        assertEquals(1, pool.getAllocationCount());
+        assertEquals(2, pool.getAcquireCount());
+        assertEquals(0, pool.getRetainedBytes());
+        assertEquals(32, pool.getPeakBytesInUse());
+    }
+
+    public void testRetainedLimit() {
+        TusBufferPool pool = new TusBufferPool(16, 64, 64);
+
+        byte[] first = pool.acquire(64);
+        byte[] second = pool.acquire(64);
+        byte[] large = pool.acquire(128);
+        pool.release(first);
+        pool.release(second);
+        pool.release(large);
+
+        assertEquals(64, pool.getRetainedBytes());
+        assertEquals(2, pool.getDiscardCount());
+        assertEquals(192 + 64, pool.getPeakBytesInUse());
+    }
+
+    public void testDirectBuffers() {
+        TusBufferPool pool = new TusBufferPool(16, 64, 1024);
+
+        ByteBuffer buffer = pool.acquireDirect(40);
+        assertTrue(buffer.isDirect());
+        assertEquals(64, buffer.capacity());
+        buffer.put((byte) 1).flip();
+        pool.releaseDirect(buffer);
+
+        // Direct buffers are kept separately from arrays.
+        assertEquals(32, pool.acquire(32).length);
+        ByteBuffer reused = pool.acquireDirect(64);
+        assertSame(buffer, reused);
+        assertEquals(0, reused.position());
+        assertEquals(64, reused.limit());
+    }
+
+    public void testInvalidSizes() {
+        try {
+            new TusBufferPool(10, 64, 1024);
+            fail("expected IllegalArgumentException");
+        } catch(IllegalArgumentException e) {
+            // Expected since the size is not a power of two.
+        }
+    }
+}
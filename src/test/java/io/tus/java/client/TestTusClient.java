@@ -1,17 +1,30 @@
 package io.tus.java.client;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockserver.client.server.MockServerClient;
+import org.mockserver.matchers.Times;
+import org.mockserver.model.Delay;
 import org.mockserver.model.HttpRequest;
 import org.mockserver.model.HttpResponse;
 import org.mockserver.socket.PortFactory;
@@ -101,6 +114,175 @@ public class TestTusClient extends TestCase {
         assertEquals(uploader.getUploadURL(), new URL(mockServerURL + "/foo"));
     }
 
+    @Test
+    public void testCreateUploadWithUpload() throws IOException, ProtocolException {
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files")
+                .withHeader("Upload-Length", "11")
+                .withHeader("Content-Type", "application/offset+octet-stream")
+                .withBody("hello".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Location", mockServerURL + "/foo")
+                        .withHeader("Upload-Offset", "3"));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "3")
+                .withBody("lo world".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        client.enableCreationWithUpload(5);
+        assertTrue(client.creationWithUploadEnabled());
+
+        TusUpload upload = new TusUpload();
+        upload.setSize(11);
+        upload.setInputStream(new ByteArrayInputStream("hello world".getBytes()));
+        TusUploader uploader = client.createUpload(upload);
+        assertEquals(3, uploader.getOffset());
+
+        while(uploader.uploadChunk() > -1) {}
+        uploader.finish();
+        assertEquals(11, uploader.getOffset());
+    }
+
+    @Test
+    public void testCreateUploadWithEntireUpload() throws IOException, ProtocolException {
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files")
+                .withHeader("Upload-Length", "11")
+                .withBody("hello world".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Location", mockServerURL + "/foo")
+                        .withHeader("Upload-Offset", "11"));
+
+        TusBufferPool pool = new TusBufferPool(1024, 4096, 4096);
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        client.setBufferPool(pool);
+        client.enableCreationWithUpload(1024);
+
+        TusUpload upload = new TusUpload();
+        upload.setSize(11);
+        upload.setSource(new TusRandomAccessFileSource(createTempFile("hello world".getBytes())));
+        TusUploader uploader = client.createUpload(upload);
+        assertEquals(11, uploader.getOffset());
+
+        // The buffer for the initial data has been borrowed from the client's pool.
+        assertEquals(1, pool.getAcquireCount());
+        assertEquals(0, pool.getBytesInUse());
+
+        // No PATCH request is expected by the server.
+        assertEquals(-1, uploader.uploadChunk());
+        uploader.finish();
+    }
+
+    private static File createTempFile(byte[] content) throws IOException {
+        File file = File.createTempFile("tus-client-test", ".tmp");
+        file.deleteOnExit();
+        OutputStream output = new FileOutputStream(file);
+        output.write(content);
+        output.close();
+        return file;
+    }
+
+    @Test
+    public void testDeferredSize() throws IOException, ProtocolException {
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files")
+                .withHeader("Upload-Defer-Length", "1"))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Location", mockServerURL + "/foo"));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "0")
+                .withBody("hello worl".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "10")
+                .withHeader("Upload-Length", "11")
+                .withBody("d".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+
+        TusURLStore store = new TusURLMemoryStore();
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        client.enableResuming(store);
+        client.enableRemoveFingerprintOnSuccess();
+
+        TusUpload upload = new TusUpload();
+        upload.setSizeDeferred(true);
+        upload.setFingerprint("fingerprint");
+        TusUploader uploader = client.createUpload(upload);
+        uploader.setChunkSize(5);
+
+        OutputStream output = uploader.getOutputStream();
+        output.write("hello worl".getBytes());
+        output.flush();
+
+        // The upload is not complete before its length has been declared.
+        assertNotNull(store.get("fingerprint"));
+
+        output.write("d".getBytes());
+        output.close();
+        assertEquals(11, uploader.getOffset());
+        assertNull(store.get("fingerprint"));
+    }
+
+    @Test
+    public void testDeferredSizeFinishedEarly() throws IOException, ProtocolException {
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files")
+                .withHeader("Upload-Defer-Length", "1"))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Location", mockServerURL + "/foo"));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "0")
+                .withBody("hello".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+
+        TusURLStore store = new TusURLMemoryStore();
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        client.enableResuming(store);
+        client.enableRemoveFingerprintOnSuccess();
+
+        TusUpload upload = new TusUpload();
+        upload.setSizeDeferred(true);
+        upload.setFingerprint("fingerprint");
+        upload.setInputStream(new ByteArrayInputStream("hello".getBytes()));
+        TusUploader uploader = client.createUpload(upload);
+
+        while(uploader.uploadChunk() > -1) {}
+        uploader.finish();
+
+        // The upload's length has never been declared, so it can only be resumed.
+        assertEquals(5, uploader.getOffset());
+        assertEquals(new URL(mockServerURL + "/foo"), store.get("fingerprint"));
+    }
+
     @Test
     public void testCreateUploadWithMissingLocationHeader() throws IOException, Exception {
         mockServer.when(new HttpRequest()
@@ -206,4 +388,410 @@ public class TestTusClient extends TestCase {
 
         assertEquals(connection.getRequestProperty("Tus-Resumable"), TusClient.TUS_VERSION);
     }
+
+    @Test
+    public void testRemoveFingerprintOnSuccess() throws IOException, ProtocolException {
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files")
+                .withHeader("Upload-Length", "10"))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Location", mockServerURL + "/foo")
+                        .withHeader("Upload-Expires", "Wed, 25 Jun 2064 16:00:00 GMT"));
+        mockServer.when(new HttpRequest()
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "0"))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        TusURLMemoryStore store = new TusURLMemoryStore();
+        client.enableResuming(store);
+        client.enableRemoveFingerprintOnSuccess();
+        assertTrue(client.removeFingerprintOnSuccessEnabled());
+
+        TusUpload upload = new TusUpload();
+        upload.setSize(10);
+        upload.setInputStream(new ByteArrayInputStream(new byte[10]));
+        upload.setFingerprint("test-fingerprint");
+
+        TusUploader uploader = client.createUpload(upload);
+        assertEquals(new URL(mockServerURL + "/foo"), store.get("test-fingerprint"));
+
+        while(uploader.uploadChunk() > -1) {}
+        uploader.finish();
+        assertNull(store.get("test-fingerprint"));
+    }
+
+    @Test
+    public void testParseDate() {
+        assertEquals(2855404800000L, TusClient.parseDate("Wed, 25 Jun 2060 16:00:00 GMT").getTime());
+        assertNull(TusClient.parseDate("tomorrow"));
+        assertNull(TusClient.parseDate(null));
+    }
+
+    @Test
+    public void testInstrumentation() throws IOException, ProtocolException {
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files"))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Location", mockServerURL + "/foo")
+                        .withDelay(new Delay(TimeUnit.MILLISECONDS, 100)));
+        mockServer.when(new HttpRequest()
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "0")
+                .withHeader("X-Trace", "trace-id"))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        RecordingInstrumentation instrumentation = new RecordingInstrumentation();
+        client.setInstrumentation(instrumentation);
+
+        TusUpload upload = new TusUpload();
+        upload.setSize(11);
+        upload.setInputStream(new ByteArrayInputStream("hello world".getBytes()));
+
+        TusUploader uploader = client.createUpload(upload);
+        uploader.setChunkSize(5);
+        while(uploader.uploadChunk() > -1) {}
+        uploader.finish();
+
+        assertEquals(Arrays.asList(
+                "started POST",
+                "completed POST 201",
+                "upload started 0",
+                "started PATCH",
+                "chunk 5",
+                "chunk 5",
+                "chunk 1",
+                "completed PATCH 204",
+                "upload finished 11 null"), instrumentation.events);
+
+        // The server has delayed the response to the POST request.
+        long[] timings = instrumentation.postTimings;
+        assertTrue(timings[2] >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(timings[1] >= timings[2]);
+        // HttpURLConnection reports the response once the headers have been received.
+        assertEquals(timings[0], timings[1]);
+    }
+
+    private static class RecordingInstrumentation extends TusInstrumentation {
+        private List<String> events = new ArrayList<String>();
+        private long[] postTimings;
+
+        @Override
+        public void requestStarted(String method, HttpURLConnection connection) {
+            connection.setRequestProperty("X-Trace", "trace-id");
+            events.add("started " + method);
+        }
+
+        @Override
+        public void requestCompleted(String method, URL url, int statusCode, long durationNanos, long timeToFirstByteNanos, long responseWaitNanos) {
+            if(method.equals("POST")) {
+                postTimings = new long[] { durationNanos, timeToFirstByteNanos, responseWaitNanos };
+            }
+            events.add("completed " + method + " " + statusCode);
+        }
+
+        @Override
+        public void chunkUploaded(URL uploadURL, int bytes, long writeNanos, long flushNanos) {
+            events.add("chunk " + bytes);
+        }
+
+        @Override
+        public Object uploadStarted(URL uploadURL, long offset) {
+            events.add("upload started " + offset);
+            return this;
+        }
+
+        @Override
+        public void uploadFinished(Object span, URL uploadURL, long offset, Exception failure) {
+            assertSame(this, span);
+            events.add("upload finished " + offset + " " + failure);
+        }
+    }
+
+    @Test
+    public void testTransport() throws IOException, ProtocolException {
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files")
+                .withHeader("Tus-Resumable", TusClient.TUS_VERSION)
+                .withHeader("Upload-Length", "10"))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Tus-Resumable", TusClient.TUS_VERSION)
+                        .withHeader("Location", mockServerURL + "/foo"));
+        mockServer.when(new HttpRequest()
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "0"))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Tus-Resumable", TusClient.TUS_VERSION));
+
+        CountingTransport transport = new CountingTransport();
+        TusClient client = new TusClient();
+        assertTrue(client.getTransport() instanceof TusKeepAliveTransport);
+        client.setTransport(transport);
+        assertEquals(client.getTransport(), transport);
+        client.setUploadCreationURL(mockServerURL);
+
+        TusUpload upload = new TusUpload();
+        upload.setSize(10);
+        upload.setInputStream(new ByteArrayInputStream(new byte[10]));
+        TusUploader uploader = client.createUpload(upload);
+        while(uploader.uploadChunk() > -1) {}
+        uploader.finish();
+
+        assertEquals(2, transport.opened);
+        assertEquals(2, transport.released);
+    }
+
+    @Test
+    public void testServerCapabilities() throws IOException, ProtocolException {
+        mockServer.when(new HttpRequest()
+                .withMethod("OPTIONS")
+                .withPath("/files"))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Tus-Version", "1.0.0,0.2.2")
+                        .withHeader("Tus-Extension", "creation, checksum,concatenation")
+                        .withHeader("Tus-Max-Size", "1073741824")
+                        .withHeader("Tus-Checksum-Algorithm", "sha1,md5,crc32c"));
+
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        TusServerCapabilities capabilities = client.getServerCapabilities();
+
+        assertTrue(capabilities.isDiscovered());
+        assertEquals(Arrays.asList("1.0.0", "0.2.2"), capabilities.getVersions());
+        assertTrue(capabilities.supportsVersion(TusClient.TUS_VERSION));
+        assertTrue(capabilities.supportsExtension("concatenation"));
+        assertFalse(capabilities.supportsExtension("creation-with-upload"));
+        assertEquals(1073741824L, capabilities.getMaxSize());
+        assertTrue(capabilities.supportsChecksumAlgorithm(TusChecksumAlgorithm.MD5));
+        assertEquals(TusChecksumAlgorithm.CRC32C, capabilities.getFastestChecksumAlgorithm());
+    }
+
+    @Test
+    public void testServerCapabilitiesUnknown() throws IOException, ProtocolException {
+        mockServer.when(new HttpRequest()
+                .withMethod("OPTIONS")
+                .withPath("/files"))
+                .respond(new HttpResponse()
+                        .withStatusCode(405));
+
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        TusServerCapabilities capabilities = client.getServerCapabilities();
+
+        assertFalse(capabilities.isDiscovered());
+        assertEquals(-1, capabilities.getMaxSize());
+        assertNull(capabilities.getFastestChecksumAlgorithm());
+    }
+
+    @Test
+    public void testCapabilityDiscoveryCache() throws IOException, ProtocolException {
+        mockServer.when(new HttpRequest()
+                .withMethod("OPTIONS")
+                .withPath("/files"), Times.once())
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Tus-Version", "1.0.0")
+                        .withHeader("Tus-Extension", "creation"));
+        // A second discovery would announce a limit which the uploads exceed.
+        mockServer.when(new HttpRequest()
+                .withMethod("OPTIONS")
+                .withPath("/files"))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Tus-Version", "1.0.0")
+                        .withHeader("Tus-Extension", "creation")
+                        .withHeader("Tus-Max-Size", "1"));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files")
+                .withHeader("Upload-Length", "11"))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Location", mockServerURL + "/foo")
+                        .withHeader("Upload-Offset", "11"));
+
+        TusCapabilityCache cache = new TusCapabilityCache(60 * 1000);
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        client.enableCapabilityDiscovery(cache);
+        assertTrue(client.capabilityDiscoveryEnabled());
+        // The server does not support creation-with-upload, so no data is sent while creating.
+        client.enableCreationWithUpload(5);
+
+        for(int i = 0; i < 2; i++) {
+            TusUpload upload = new TusUpload();
+            upload.setSize(11);
+            upload.setInputStream(new ByteArrayInputStream("hello world".getBytes()));
+            TusUploader uploader = client.createUpload(upload);
+            assertEquals(0, uploader.getOffset());
+        }
+        assertNotNull(cache.get(mockServerURL));
+
+        client.disableCapabilityDiscovery();
+        assertFalse(client.capabilityDiscoveryEnabled());
+    }
+
+    @Test
+    public void testCapabilityDiscoverySingleFlight() throws Exception {
+        mockServer.when(new HttpRequest()
+                .withMethod("OPTIONS")
+                .withPath("/files"), Times.once())
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Tus-Version", "1.0.0")
+                        .withHeader("Tus-Extension", "creation")
+                        .withDelay(new Delay(TimeUnit.MILLISECONDS, 300)));
+        // A second discovery would not find the server's capabilities.
+        mockServer.when(new HttpRequest()
+                .withMethod("OPTIONS")
+                .withPath("/files"))
+                .respond(new HttpResponse()
+                        .withStatusCode(405));
+
+        final TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        client.enableCapabilityDiscovery(new TusCapabilityCache(60 * 1000));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<TusServerCapabilities>> futures = new ArrayList<Future<TusServerCapabilities>>();
+            for(int i = 0; i < 4; i++) {
+                futures.add(executor.submit(new Callable<TusServerCapabilities>() {
+                    @Override
+                    public TusServerCapabilities call() throws Exception {
+                        return client.getServerCapabilities();
+                    }
+                }));
+            }
+            for(Future<TusServerCapabilities> future : futures) {
+                assertTrue(future.get().isDiscovered());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCapabilityDiscoveryChecksumFallback() throws IOException, ProtocolException {
+        byte[] content = "hello world".getBytes();
+        mockServer.when(new HttpRequest()
+                .withMethod("OPTIONS")
+                .withPath("/files"))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Tus-Version", "1.0.0")
+                        .withHeader("Tus-Extension", "creation,checksum")
+                        .withHeader("Tus-Checksum-Algorithm", "crc32c"));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files")
+                .withHeader("Upload-Length", "11"))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Location", mockServerURL + "/foo"));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "0")
+                .withHeader("Upload-Checksum", TusChecksumAlgorithm.CRC32C.headerValue(content, 0, content.length)))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Upload-Offset", "11"));
+
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        client.enableCapabilityDiscovery(new TusCapabilityCache(60 * 1000));
+        // The server does not support SHA-1, so the uploader falls back to CRC32C.
+        client.setChecksumAlgorithm(TusChecksumAlgorithm.SHA1);
+
+        TusUpload upload = new TusUpload();
+        upload.setSize(11);
+        upload.setInputStream(new ByteArrayInputStream(content));
+        TusUploader uploader = client.createUpload(upload);
+        assertEquals(11, uploader.uploadChunk());
+        uploader.finish();
+        assertEquals(TusChecksumAlgorithm.SHA1, client.getChecksumAlgorithm());
+    }
+
+    @Test
+    public void testCapabilityDiscoveryMaxSize() throws IOException {
+        mockServer.when(new HttpRequest()
+                .withMethod("OPTIONS")
+                .withPath("/files"))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Tus-Version", "1.0.0")
+                        .withHeader("Tus-Extension", "creation")
+                        .withHeader("Tus-Max-Size", "10"));
+
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        client.enableCapabilityDiscovery(new TusCapabilityCache(60 * 1000));
+
+        TusUpload upload = new TusUpload();
+        upload.setSize(11);
+        upload.setInputStream(new ByteArrayInputStream("hello world".getBytes()));
+        try {
+            client.createUpload(upload);
+            fail("expected ProtocolException");
+        } catch(ProtocolException e) {
+            assertTrue(e.getMessage().contains("maximum size"));
+        }
+
+        upload.setSizeDeferred(true);
+        try {
+            client.createUpload(upload);
+            fail("expected ProtocolException");
+        } catch(ProtocolException e) {
+            assertTrue(e.getMessage().contains("creation-defer-length"));
+        }
+    }
+
+    @Test
+    public void testCapabilityCacheExpiry() throws MalformedURLException, ProtocolException {
+        TusCapabilityCache cache = new TusCapabilityCache(0);
+        cache.put(mockServerURL, new TusServerCapabilities("1.0.0", null, null, null));
+        assertNull(cache.get(mockServerURL));
+
+        cache = new TusCapabilityCache(60 * 1000);
+        cache.put(mockServerURL, new TusServerCapabilities("1.0.0", null, null, null));
+        assertNotNull(cache.get(mockServerURL));
+        cache.remove(mockServerURL);
+        assertNull(cache.get(mockServerURL));
+    }
+
+    private class CountingTransport extends TusKeepAliveTransport {
+        private int opened;
+        private int released;
+
+        public CountingTransport() {
+            super(1);
+        }
+
+        @Override
+        public HttpURLConnection openConnection(URL url) throws IOException {
+            opened++;
+            return super.openConnection(url);
+        }
+
+        @Override
+        public void releaseConnection(HttpURLConnection connection) {
+            released++;
+            super.releaseConnection(connection);
+        }
+    }
 }
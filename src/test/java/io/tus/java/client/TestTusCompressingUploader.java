@@ -0,0 +1,223 @@
+package io.tus.java.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.client.server.MockServerClient;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.socket.PortFactory;
+
+import junit.framework.TestCase;
+
+import static org.mockserver.integration.ClientAndServer.startClientAndServer;
+
+public class TestTusCompressingUploader extends TestCase {
+    private MockServerClient mockServer;
+    private URL mockServerURL;
+
+    @Before
+    protected void setUp() throws Exception {
+        super.setUp();
+        int port = PortFactory.findFreePort();
+        mockServerURL = new URL("http://localhost:" + port + "/files");
+        mockServer = startClientAndServer(port);
+    }
+
+    @After
+    protected void tearDown() {
+        mockServer.stop();
+    }
+
+    @Test
+    public void testGzipStream() throws IOException {
+        byte[] data = createData(300 * 1000);
+        byte[] compressed = compress(data, TusCompressionCodec.GZIP, 64 * 1024, null);
+
+        assertTrue(compressed.length < data.length / 4);
+        assertTrue(Arrays.equals(data, readAll(new GZIPInputStream(new ByteArrayInputStream(compressed)))));
+    }
+
+    @Test
+    public void testDeflateStream() throws IOException {
+        byte[] data = createData(100 * 1000);
+        byte[] compressed = compress(data, TusCompressionCodec.DEFLATE, 16 * 1024, null);
+
+        assertTrue(Arrays.equals(data, readAll(new InflaterInputStream(new ByteArrayInputStream(compressed)))));
+    }
+
+    @Test
+    public void testEmptyStream() throws IOException {
+        byte[] compressed = compress(new byte[0], TusCompressionCodec.GZIP, 1024, null);
+
+        assertEquals(0, readAll(new GZIPInputStream(new ByteArrayInputStream(compressed))).length);
+    }
+
+    @Test
+    public void testParallelCompression() throws IOException {
+        byte[] data = createData(500 * 1000);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            byte[] sequential = compress(data, TusCompressionCodec.GZIP, 32 * 1024, null);
+            byte[] parallel = compress(data, TusCompressionCodec.GZIP, 32 * 1024, executor);
+
+            // Resuming depends on the compressed bytes being the same for every attempt.
+            assertTrue(Arrays.equals(sequential, parallel));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testUncompressedOffset() throws IOException {
+        byte[] data = createData(100 * 1000);
+        CompressingInputStream stream = new CompressingInputStream(new ByteArrayInputStream(data), null, TusCompressionCodec.GZIP, new TusBufferPool(1024, 1024 * 1024, 0), 40 * 1000, null, 1);
+        byte[] compressed = readAll(stream);
+
+        assertEquals(data.length, stream.getUncompressedLength());
+        assertEquals(compressed.length, stream.getCompressedLength());
+        assertEquals(0, stream.uncompressedOffset(0));
+        assertEquals(0, stream.uncompressedOffset(10));
+        assertEquals(data.length, stream.uncompressedOffset(compressed.length));
+
+        // The second block ends somewhere between the header and the trailer.
+        long offset = stream.uncompressedOffset(compressed.length - 9);
+        assertEquals(80 * 1000, offset);
+    }
+
+    @Test
+    public void testIdentity() {
+        // The identity covers the compression level and the compressor's output.
+        String identity = TusCompressionCodec.GZIP.getIdentity();
+        assertTrue(identity.startsWith("gzip-default-"));
+        assertEquals(identity, TusCompressionCodec.gzip(Deflater.DEFAULT_COMPRESSION).getIdentity());
+        assertFalse(identity.equals(TusCompressionCodec.gzip(1).getIdentity()));
+        assertTrue(TusCompressionCodec.DEFLATE.getIdentity().startsWith("deflate-default-"));
+    }
+
+    @Test
+    public void testUpload() throws Exception {
+        byte[] data = createData(50 * 1000);
+        byte[] compressed = compress(data, TusCompressionCodec.GZIP, 16 * 1024, null);
+
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files")
+                .withHeader("Tus-Resumable", TusClient.TUS_VERSION)
+                .withHeader("Upload-Defer-Length", "1"))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Location", mockServerURL + "/foo"));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "0")
+                .withHeader("Upload-Length", Integer.toString(compressed.length))
+                .withBody(compressed))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Upload-Offset", Integer.toString(compressed.length)));
+
+        TusURLMemoryStore store = new TusURLMemoryStore();
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        client.enableResuming(store);
+
+        TusUpload upload = new TusUpload();
+        upload.setSize(data.length);
+        upload.setFingerprint("fingerprint");
+        upload.setInputStream(new ByteArrayInputStream(data));
+
+        TusCompressingUploader uploader = new TusCompressingUploader(client, upload, TusCompressionCodec.GZIP);
+        uploader.setBlockSize(16 * 1024);
+        uploader.setParallelism(3);
+        URL uploadURL = uploader.upload();
+
+        assertEquals(new URL(mockServerURL + "/foo"), uploadURL);
+        assertEquals(compressed.length, uploader.getOffset());
+        assertEquals(data.length, uploader.getUncompressedOffset());
+        assertEquals(uploadURL, store.get("fingerprint-" + TusCompressionCodec.GZIP.getIdentity() + "-16384"));
+    }
+
+    @Test
+    public void testResume() throws Exception {
+        byte[] data = createData(50 * 1000);
+        byte[] compressed = compress(data, TusCompressionCodec.GZIP, 16 * 1024, null);
+        byte[] remaining = Arrays.copyOfRange(compressed, 100, compressed.length);
+
+        mockServer.when(new HttpRequest()
+                .withMethod("HEAD")
+                .withPath("/files/foo"))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Upload-Offset", "100"));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "100")
+                .withHeader("Upload-Length", Integer.toString(compressed.length))
+                .withBody(remaining))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Upload-Offset", Integer.toString(compressed.length)));
+
+        TusURLMemoryStore store = new TusURLMemoryStore();
+        store.set("fingerprint-" + TusCompressionCodec.GZIP.getIdentity() + "-16384", new URL(mockServerURL + "/foo"));
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        client.enableResuming(store);
+
+        TusUpload upload = new TusUpload();
+        upload.setSize(data.length);
+        upload.setFingerprint("fingerprint");
+        upload.setInputStream(new ByteArrayInputStream(data));
+
+        TusCompressingUploader uploader = new TusCompressingUploader(client, upload, TusCompressionCodec.GZIP);
+        uploader.setBlockSize(16 * 1024);
+        uploader.upload();
+
+        assertEquals(compressed.length, uploader.getOffset());
+    }
+
+    private byte[] compress(byte[] data, TusCompressionCodec codec, int blockSize, ExecutorService executor) throws IOException {
+        InputStream stream = new CompressingInputStream(new ByteArrayInputStream(data), null, codec, TusBufferPool.getDefault(), blockSize, executor, 8);
+        try {
+            return readAll(stream);
+        } finally {
+            stream.close();
+        }
+    }
+
+    private byte[] readAll(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while((read = input.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+
+    private byte[] createData(int length) {
+        byte[] line = "2026-01-01 12:00:00 INFO upload progressed\n".getBytes();
+        byte[] data = new byte[length];
+        for(int i = 0; i < length; i++) {
+            data[i] = (byte) (line[i % line.length] + (i / 997) % 3);
+        }
+        return data;
+    }
+}
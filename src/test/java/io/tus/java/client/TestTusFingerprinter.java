@@ -0,0 +1,114 @@
+package io.tus.java.client;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class TestTusFingerprinter extends TestCase {
+    public void testSampledFingerprint() throws IOException {
+        byte[] content = randomBytes(100 * 1024);
+        TusFingerprinter fingerprinter = new TusSampledFingerprinter(1024);
+
+        String first = fingerprinter.fingerprint(createFile(content));
+        // Moving the file must not change its fingerprint.
+        assertEquals(first, fingerprinter.fingerprint(createFile(content)));
+
+        content[0] ^= 1;
+        assertFalse(first.equals(fingerprinter.fingerprint(createFile(content))));
+
+        // Bytes outside of the sampled blocks are not considered.
+        content[0] ^= 1;
+        content[10 * 1024] ^= 1;
+        assertEquals(first, fingerprinter.fingerprint(createFile(content)));
+    }
+
+    public void testSampledFingerprintSmallFile() throws IOException {
+        TusFingerprinter fingerprinter = new TusSampledFingerprinter(1024);
+        byte[] content = randomBytes(2000);
+
+        String first = fingerprinter.fingerprint(createFile(content));
+        content[1500] ^= 1;
+        assertFalse(first.equals(fingerprinter.fingerprint(createFile(content))));
+    }
+
+    public void testContentFingerprint() throws IOException {
+        byte[] content = randomBytes(100 * 1024);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            TusFingerprinter sequential = new TusContentFingerprinter(null, 4096);
+            TusFingerprinter parallel = new TusContentFingerprinter(executor, 4096);
+
+            File file = createFile(content);
+            String first = sequential.fingerprint(file);
+            assertEquals(first, parallel.fingerprint(file));
+            assertEquals(first, parallel.fingerprint(createFile(content)));
+
+            content[10 * 1024] ^= 1;
+            assertFalse(first.equals(parallel.fingerprint(createFile(content))));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testEmptyFile() throws IOException {
+        File file = createFile(new byte[0]);
+        assertNotNull(new TusContentFingerprinter().fingerprint(file));
+        assertNotNull(new TusSampledFingerprinter().fingerprint(file));
+    }
+
+    public void testCache() throws IOException {
+        CountingFingerprinter fingerprinter = new CountingFingerprinter();
+        File file = createFile(randomBytes(10));
+
+        fingerprinter.fingerprint(file);
+        fingerprinter.fingerprint(file);
+        assertEquals(1, fingerprinter.calculations);
+
+        assertTrue(file.setLastModified(file.lastModified() - 10000));
+        fingerprinter.fingerprint(file);
+        assertEquals(2, fingerprinter.calculations);
+    }
+
+    public void testTusUpload() throws IOException {
+        byte[] content = randomBytes(1024);
+        TusFingerprinter fingerprinter = new TusSampledFingerprinter();
+
+        TusUpload upload = new TusUpload(createFile(content), fingerprinter);
+        TusUpload moved = new TusUpload(createFile(content), fingerprinter);
+        assertEquals(upload.getFingerprint(), moved.getFingerprint());
+        assertEquals(1024, upload.getSize());
+        upload.getInputStream().close();
+        moved.getInputStream().close();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] content = new byte[length];
+        new Random(42).nextBytes(content);
+        return content;
+    }
+
+    private static File createFile(byte[] content) throws IOException {
+        File file = File.createTempFile("tus-fingerprint-test", ".tmp");
+        file.deleteOnExit();
+        OutputStream output = new FileOutputStream(file);
+        output.write(content);
+        output.close();
+        return file;
+    }
+
+    private static class CountingFingerprinter extends TusFingerprinter {
+        private int calculations;
+
+        @Override
+        protected String calculate(File file) throws IOException {
+            calculations++;
+            return "fingerprint-" + calculations;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package io.tus.java.client;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.client.server.MockServerClient;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.socket.PortFactory;
+
+import junit.framework.TestCase;
+
+import static org.mockserver.integration.ClientAndServer.startClientAndServer;
+
+public class TestTusKeepAliveTransport extends TestCase {
+    private MockServerClient mockServer;
+    private URL mockServerURL;
+
+    @Before
+    protected void setUp() throws Exception {
+        super.setUp();
+        int port = PortFactory.findFreePort();
+        mockServerURL = new URL("http://localhost:" + port + "/files");
+        mockServer = startClientAndServer(port);
+    }
+
+    @After
+    protected void tearDown() {
+        mockServer.stop();
+    }
+
+    @Test
+    public void testReleaseErrorResponse() throws IOException {
+        mockServer.when(new HttpRequest()
+                .withMethod("HEAD")
+                .withPath("/files/foo"))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+
+        TusKeepAliveTransport transport = new TusKeepAliveTransport(1);
+        HttpURLConnection connection = transport.openConnection(new URL(mockServerURL + "/missing"));
+        assertEquals(404, connection.getResponseCode());
+        transport.releaseConnection(connection);
+
+        // The permit has been returned, so opening another connection does not block.
+        connection = transport.openConnection(new URL(mockServerURL + "/foo"));
+        connection.setRequestMethod("HEAD");
+        assertEquals(204, connection.getResponseCode());
+        transport.releaseConnection(connection);
+    }
+
+    @Test
+    public void testReleaseUnconnected() throws IOException {
+        TusKeepAliveTransport transport = new TusKeepAliveTransport(1);
+        HttpURLConnection connection = transport.openConnection(mockServerURL);
+        transport.releaseConnection(connection);
+
+        connection = transport.openConnection(mockServerURL);
+        transport.releaseConnection(connection);
+    }
+
+    @Test
+    public void testChangeMaxConnectionsPerHost() throws Exception {
+        final TusKeepAliveTransport transport = new TusKeepAliveTransport(1);
+        HttpURLConnection first = transport.openConnection(mockServerURL);
+
+        transport.setMaxConnectionsPerHost(2);
+        final HttpURLConnection[] second = new HttpURLConnection[1];
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    second[0] = transport.openConnection(mockServerURL);
+                } catch(IOException e) {
+                    // The assertion below fails.
+                }
+            }
+        });
+        thread.start();
+        thread.join(5000);
+        thread.interrupt();
+
+        assertNotNull(second[0]);
+        transport.releaseConnection(first);
+        transport.releaseConnection(second[0]);
+    }
+}
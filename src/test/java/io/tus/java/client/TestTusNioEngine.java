@@ -0,0 +1,287 @@
+package io.tus.java.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.client.server.MockServerClient;
+import org.mockserver.matchers.Times;
+import org.mockserver.model.Delay;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.socket.PortFactory;
+
+import junit.framework.TestCase;
+
+import static org.mockserver.integration.ClientAndServer.startClientAndServer;
+
+public class TestTusNioEngine extends TestCase {
+    private MockServerClient mockServer;
+    private URL mockServerURL;
+    private TusNioEngine engine;
+
+    @Before
+    protected void setUp() throws Exception {
+        super.setUp();
+        int port = PortFactory.findFreePort();
+        mockServerURL = new URL("http://localhost:" + port + "/files");
+        mockServer = startClientAndServer(port);
+        engine = new TusNioEngine(2);
+    }
+
+    @After
+    protected void tearDown() {
+        engine.close();
+        mockServer.stop();
+    }
+
+    @Test
+    public void testCreateAndUpload() throws Exception {
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files")
+                .withHeader("Tus-Resumable", TusClient.TUS_VERSION)
+                .withHeader("Upload-Length", "11"))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Location", "/files/foo")
+                        .withDelay(new Delay(TimeUnit.MILLISECONDS, 100)));
+        mockServer.when(new HttpRequest()
+                .withMethod("PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "0")
+                .withHeader("Content-Type", "application/offset+octet-stream")
+                .withBody("hello world".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Upload-Offset", "11"));
+
+        TusURLMemoryStore store = new TusURLMemoryStore();
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        client.enableResuming(store);
+        final long[] postTimings = new long[3];
+        client.setInstrumentation(new TusInstrumentation() {
+            @Override
+            public void requestCompleted(String method, URL url, int statusCode, long durationNanos, long timeToFirstByteNanos, long responseWaitNanos) {
+                if(method.equals("POST")) {
+                    postTimings[0] = durationNanos;
+                    postTimings[1] = timeToFirstByteNanos;
+                    postTimings[2] = responseWaitNanos;
+                }
+            }
+        });
+
+        TusUpload upload = new TusUpload();
+        upload.setSize(11);
+        upload.setFingerprint("fingerprint");
+        upload.setInputStream(new ByteArrayInputStream("hello world".getBytes()));
+
+        RecordingListener listener = new RecordingListener();
+        engine.setBufferSize(4);
+        TusUploadResult result = engine.submit(client, upload, listener).get(10, TimeUnit.SECONDS);
+
+        URL uploadURL = new URL(mockServerURL, "/files/foo");
+        assertEquals(uploadURL, result.getUploadURL());
+        assertEquals(11, result.getOffset());
+        assertEquals(uploadURL, store.get("fingerprint"));
+        assertEquals(11L, (long) listener.progress.get(listener.progress.size() - 1));
+        assertTrue(listener.succeeded);
+        assertEquals(0, engine.getActiveUploads());
+
+        // The server has delayed the response to the POST request.
+        assertTrue(postTimings[2] >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(postTimings[1] >= postTimings[2]);
+        assertTrue(postTimings[0] >= postTimings[1]);
+    }
+
+    @Test
+    public void testResumeFile() throws Exception {
+        mockServer.when(new HttpRequest()
+                .withMethod("HEAD")
+                .withPath("/files/foo"))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Upload-Offset", "6"));
+        mockServer.when(new HttpRequest()
+                .withMethod("PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "6")
+                .withBody("world".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Upload-Offset", "11"));
+
+        File file = createTempFile("hello world");
+        TusUpload upload = new TusUpload(file);
+
+        TusURLMemoryStore store = new TusURLMemoryStore();
+        store.set(upload.getFingerprint(), new URL(mockServerURL + "/foo"));
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        client.enableResuming(store);
+        client.enableRemoveFingerprintOnSuccess();
+
+        TusUploadResult result = engine.submit(client, upload, null).get(10, TimeUnit.SECONDS);
+        assertEquals(11, result.getOffset());
+        assertNull(store.get(upload.getFingerprint()));
+    }
+
+    @Test
+    public void testRetry() throws Exception {
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files"))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Location", mockServerURL + "/foo"));
+        mockServer.when(new HttpRequest()
+                .withMethod("PATCH")
+                .withPath("/files/foo"), Times.once())
+                .respond(new HttpResponse()
+                        .withStatusCode(503));
+        mockServer.when(new HttpRequest()
+                .withMethod("HEAD")
+                .withPath("/files/foo"))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Upload-Offset", "0"));
+        mockServer.when(new HttpRequest()
+                .withMethod("PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "0")
+                .withBody("hello world".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Upload-Offset", "11"));
+
+        TusRetryPolicy policy = new TusRetryPolicy(2);
+        policy.setDelays(10, 10, 1);
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        client.setRetryPolicy(policy);
+
+        // The data is sent again after the failed request, so it must be read from a file.
+        TusUpload upload = new TusUpload(createTempFile("hello world"));
+        TusUploadResult result = engine.submit(client, upload, null).get(10, TimeUnit.SECONDS);
+        assertEquals(11, result.getOffset());
+    }
+
+    @Test
+    public void testCreateFailure() throws Exception {
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files"))
+                .respond(new HttpResponse()
+                        .withStatusCode(400));
+
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+
+        TusUpload upload = new TusUpload();
+        upload.setSize(11);
+        upload.setInputStream(new ByteArrayInputStream("hello world".getBytes()));
+
+        RecordingListener listener = new RecordingListener();
+        Future<TusUploadResult> future = engine.submit(client, upload, listener);
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("expected ExecutionException");
+        } catch(ExecutionException e) {
+            ProtocolException cause = (ProtocolException) e.getCause();
+            assertEquals(400, cause.getStatusCode());
+        }
+        assertNotNull(listener.failure);
+    }
+
+    @Test
+    public void testSubmitAfterClose() throws Exception {
+        engine.close();
+
+        TusUpload upload = new TusUpload();
+        upload.setSize(11);
+        upload.setInputStream(new ByteArrayInputStream("hello world".getBytes()));
+
+        RecordingListener listener = new RecordingListener();
+        Future<TusUploadResult> future = engine.submit(new TusClient(), upload, listener);
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("expected ExecutionException");
+        } catch(ExecutionException e) {
+            assertEquals("engine has been closed", e.getCause().getMessage());
+        }
+        assertEquals("engine has been closed", listener.failure.getMessage());
+        assertEquals(0, engine.getActiveUploads());
+    }
+
+    @Test
+    public void testManyUploads() throws Exception {
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files"))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Location", mockServerURL + "/foo"));
+        mockServer.when(new HttpRequest()
+                .withMethod("PATCH")
+                .withPath("/files/foo"))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Upload-Offset", "11"));
+
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+
+        List<Future<TusUploadResult>> futures = new ArrayList<Future<TusUploadResult>>();
+        for(int i = 0; i < 50; i++) {
+            TusUpload upload = new TusUpload();
+            upload.setSize(11);
+            upload.setInputStream(new ByteArrayInputStream("hello world".getBytes()));
+            futures.add(engine.submit(client, upload, null));
+        }
+
+        for(Future<TusUploadResult> future : futures) {
+            assertEquals(11, future.get(10, TimeUnit.SECONDS).getOffset());
+        }
+    }
+
+    private File createTempFile(String content) throws IOException {
+        File file = File.createTempFile("tus-nio-", ".txt");
+        file.deleteOnExit();
+        FileOutputStream output = new FileOutputStream(file);
+        output.write(content.getBytes());
+        output.close();
+        return file;
+    }
+
+    private static class RecordingListener implements TusUploadListener {
+        private List<Long> progress = new ArrayList<Long>();
+        private boolean succeeded;
+        private Exception failure;
+
+        @Override
+        public void onProgress(TusUpload upload, long bytesUploaded, long bytesTotal) {
+            progress.add(bytesUploaded);
+        }
+
+        @Override
+        public void onSuccess(TusUploadResult result) {
+            succeeded = true;
+        }
+
+        @Override
+        public void onFailure(TusUpload upload, Exception e) {
+            failure = e;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package io.tus.java.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.client.server.MockServerClient;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.socket.PortFactory;
+
+import junit.framework.TestCase;
+
+import static org.mockserver.integration.ClientAndServer.startClientAndServer;
+
+public class TestTusPackUploader extends TestCase {
+    private MockServerClient mockServer;
+    private URL mockServerURL;
+
+    @Before
+    protected void setUp() throws Exception {
+        super.setUp();
+        int port = PortFactory.findFreePort();
+        mockServerURL = new URL("http://localhost:" + port + "/files");
+        mockServer = startClientAndServer(port);
+    }
+
+    @After
+    protected void tearDown() {
+        mockServer.stop();
+    }
+
+    @Test
+    public void testIndex() throws IOException {
+        List<TusUpload> uploads = createUploads("hello", "", "world");
+        byte[] index = TusPackUploader.buildIndex(uploads);
+
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(index));
+        byte[] magic = new byte[8];
+        input.readFully(magic);
+        assertEquals("TUSPACK1", new String(magic, "US-ASCII"));
+        assertEquals(3, input.readInt());
+        assertEquals(index.length - 16, input.readInt());
+
+        long offset = index.length;
+        for(TusUpload upload : uploads) {
+            assertEquals(offset, input.readLong());
+            assertEquals(upload.getSize(), input.readLong());
+            byte[] metadata = new byte[input.readUnsignedShort()];
+            input.readFully(metadata);
+            assertEquals(upload.getEncodedMetadata(), new String(metadata, "UTF-8"));
+            offset += upload.getSize();
+        }
+        assertEquals(0, input.available());
+    }
+
+    @Test
+    public void testSource() throws IOException {
+        List<TusUpload> uploads = createUploads("hello", "", "world", "!");
+        byte[] expected = container(uploads, "helloworld!");
+
+        // Small windows require remapping within a file.
+        TusPackUploader.PackSource source = new TusPackUploader.PackSource(uploads, 2);
+        assertEquals(expected.length, source.getSize());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        while(source.transferTo(Channels.newChannel(output), 3) != -1) {
+            // Transfer the entire container in small steps.
+        }
+        assertTrue(Arrays.equals(expected, output.toByteArray()));
+
+        // Reads end with the mapped region, so the seek starts a new one within the entry.
+        byte[] buffer = new byte[4];
+        source.seek(expected.length - 5);
+        assertEquals(2, source.read(buffer, 0, 4));
+        assertEquals("or", new String(buffer, 0, 2));
+        assertEquals(2, source.read(buffer, 0, 4));
+        assertEquals("ld", new String(buffer, 0, 2));
+        assertEquals(1, source.read(buffer, 0, 4));
+        assertEquals(-1, source.read(buffer, 0, 4));
+        source.close();
+    }
+
+    @Test
+    public void testUpload() throws Exception {
+        List<TusUpload> uploads = createUploads("hello", "world");
+        byte[] expected = container(uploads, "helloworld");
+
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files")
+                .withHeader("Upload-Length", Integer.toString(expected.length)))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Location", mockServerURL + "/pack"));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/pack")
+                .withHeader("Upload-Offset", "0")
+                .withBody(expected))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+
+        TusURLMemoryStore store = new TusURLMemoryStore();
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        client.enableResuming(store);
+
+        TusPackUploader packer = new TusPackUploader(client);
+        for(TusUpload upload : uploads) {
+            packer.add(upload);
+        }
+
+        URL uploadURL = packer.upload();
+        assertEquals(new URL(mockServerURL + "/pack"), uploadURL);
+        assertEquals(expected.length, packer.getOffset());
+    }
+
+    public void testAddStreamUpload() {
+        TusPackUploader packer = new TusPackUploader(new TusClient());
+        TusUpload upload = new TusUpload();
+        upload.setInputStream(new ByteArrayInputStream(new byte[1]));
+        try {
+            packer.add(upload);
+            fail("expected IllegalArgumentException");
+        } catch(IllegalArgumentException e) {
+            // Expected since streams cannot be read at any offset.
+        }
+    }
+
+    private List<TusUpload> createUploads(String... contents) throws IOException {
+        List<TusUpload> uploads = new ArrayList<TusUpload>();
+        for(String content : contents) {
+            File file = File.createTempFile("tus-pack-", ".txt");
+            file.deleteOnExit();
+            FileOutputStream output = new FileOutputStream(file);
+            output.write(content.getBytes());
+            output.close();
+            uploads.add(new TusUpload(file));
+        }
+        return uploads;
+    }
+
+    private byte[] container(List<TusUpload> uploads, String contents) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write(TusPackUploader.buildIndex(uploads));
+        output.write(contents.getBytes());
+        return output.toByteArray();
+    }
+}
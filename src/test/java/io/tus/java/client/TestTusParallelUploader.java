@@ -0,0 +1,207 @@
+package io.tus.java.client;
+
+import junit.framework.TestCase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.mockserver.client.server.MockServerClient;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.socket.PortFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+
+import static org.mockserver.integration.ClientAndServer.startClientAndServer;
+
+public class TestTusParallelUploader extends TestCase {
+    private MockServerClient mockServer;
+    public URL mockServerURL;
+
+    @Before
+    protected void setUp() throws Exception {
+        super.setUp();
+        int port = PortFactory.findFreePort();
+        mockServerURL = new URL("http://localhost:" + port + "/files");
+        mockServer = startClientAndServer(port);
+    }
+
+    @After
+    protected void tearDown() {
+        mockServer.stop();
+    }
+
+    public void testParallelUpload() throws IOException, ProtocolException {
+        File file = File.createTempFile("tus-parallel-test", ".tmp");
+        OutputStream output = new FileOutputStream(file);
+        output.write("hello world".getBytes());
+        output.close();
+
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files")
+                .withHeader("Upload-Concat", "partial")
+                .withHeader("Upload-Length", "6"))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Location", mockServerURL + "/part1"));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files")
+                .withHeader("Upload-Concat", "partial")
+                .withHeader("Upload-Length", "5"))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Location", mockServerURL + "/part2"));
+        mockServer.when(new HttpRequest()
+                .withPath("/files/part1")
+                .withHeader("Upload-Offset", "0")
+                .withBody("hello ".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+        mockServer.when(new HttpRequest()
+                .withPath("/files/part2")
+                .withHeader("Upload-Offset", "0")
+                .withBody("world".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files")
+                .withHeader("Upload-Concat", "final;" + mockServerURL + "/part1 " + mockServerURL + "/part2"))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Location", mockServerURL + "/final"));
+
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        TusURLStore store = new TusURLMemoryStore();
+        client.enableResuming(store);
+
+        TusUpload upload = new TusUpload(file);
+        TusParallelUploader uploader = new TusParallelUploader(client, upload, 2);
+        assertEquals(2, uploader.getParallelUploads());
+
+        assertEquals(new URL(mockServerURL + "/final"), uploader.upload());
+        assertEquals(11, uploader.getOffset());
+        assertNull(store.get(upload.getFingerprint() + "-part-0-of-2"));
+    }
+
+    public void testResumeParallelUpload() throws IOException, ProtocolException {
+        File file = File.createTempFile("tus-parallel-test", ".tmp");
+        OutputStream output = new FileOutputStream(file);
+        output.write("hello world".getBytes());
+        output.close();
+
+        mockServer.when(new HttpRequest()
+                .withMethod("HEAD")
+                .withPath("/files/part1"))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Upload-Offset", "3"));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/part1")
+                .withHeader("Upload-Offset", "3")
+                .withBody("lo ".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files")
+                .withHeader("Upload-Concat", "partial")
+                .withHeader("Upload-Length", "5"))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Location", mockServerURL + "/part2"));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/part2")
+                .withHeader("Upload-Offset", "0")
+                .withBody("world".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files")
+                .withHeader("Upload-Concat", "final;" + mockServerURL + "/part1 " + mockServerURL + "/part2"))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Location", mockServerURL + "/final"));
+
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        TusURLStore store = new TusURLMemoryStore();
+        client.enableResuming(store);
+
+        // The first part has been partially uploaded by a previous attempt.
+        TusUpload upload = new TusUpload(file);
+        store.set(upload.getFingerprint() + "-part-0-of-2", new URL(mockServerURL + "/part1"));
+
+        TusParallelUploader uploader = new TusParallelUploader(client, upload, 2);
+        assertEquals(new URL(mockServerURL + "/final"), uploader.upload());
+        assertEquals(11, uploader.getOffset());
+        assertNull(store.get(upload.getFingerprint() + "-part-0-of-2"));
+        assertNull(store.get(upload.getFingerprint() + "-part-1-of-2"));
+    }
+
+    public void testFallbackToSingleUpload() throws IOException, ProtocolException {
+        File file = File.createTempFile("tus-parallel-test", ".tmp");
+        OutputStream output = new FileOutputStream(file);
+        output.write("hello world".getBytes());
+        output.close();
+
+        mockServer.when(new HttpRequest()
+                .withMethod("OPTIONS")
+                .withPath("/files"))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Tus-Version", "1.0.0")
+                        .withHeader("Tus-Extension", "creation"));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files")
+                .withHeader("Upload-Length", "11"))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Location", mockServerURL + "/single"));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/single")
+                .withHeader("Upload-Offset", "0")
+                .withBody("hello world".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Upload-Offset", "11"));
+
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        client.enableCapabilityDiscovery(new TusCapabilityCache(60 * 1000));
+        TusURLStore store = new TusURLMemoryStore();
+        client.enableResuming(store);
+
+        // The server does not support concatenation, so the file is uploaded at once.
+        TusUpload upload = new TusUpload(file);
+        TusParallelUploader uploader = new TusParallelUploader(client, upload, 2);
+        assertEquals(new URL(mockServerURL + "/single"), uploader.upload());
+        assertEquals(11, uploader.getOffset());
+        // The upload is resumed using the file's fingerprint instead of those of the parts.
+        assertEquals(new URL(mockServerURL + "/single"), store.get(upload.getFingerprint()));
+    }
+
+    public void testParallelUploadRequiresFile() {
+        TusUpload upload = new TusUpload();
+        try {
+            new TusParallelUploader(new TusClient(), upload, 2);
+            fail("expected IllegalArgumentException");
+        } catch(IllegalArgumentException e) {
+            assertEquals("parallel uploads require a TusUpload created from a File", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package io.tus.java.client;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TestTusRateLimiter extends TestCase {
+    public void testRate() throws Exception {
+        TusRateLimiter limiter = new TusRateLimiter(100 * 1024, 10 * 1024);
+
+        long start = System.nanoTime();
+        // The initial burst is available immediately.
+        limiter.acquire(10 * 1024);
+        assertTrue(System.nanoTime() - start < 100000000L);
+
+        for(int i = 0; i < 5; i++) {
+            limiter.acquire(10 * 1024);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+        assertTrue("elapsed " + elapsedMillis, elapsedMillis >= 450);
+    }
+
+    public void testUnlimited() throws Exception {
+        TusRateLimiter limiter = new TusRateLimiter(0);
+
+        long start = System.nanoTime();
+        for(int i = 0; i < 1000; i++) {
+            limiter.acquire(1024 * 1024);
+        }
+        assertTrue(System.nanoTime() - start < 1000000000L);
+    }
+
+    public void testSetRate() throws Exception {
+        final TusRateLimiter limiter = new TusRateLimiter(1, 1);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    limiter.acquire(1);
+                    limiter.acquire(1000);
+                } catch(InterruptedIOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        thread.start();
+        Thread.sleep(100);
+        assertTrue(thread.isAlive());
+
+        // Raising the rate applies to the waiting thread immediately.
+        limiter.setRate(0);
+        thread.join(1000);
+        assertFalse(thread.isAlive());
+    }
+
+    public void testInterrupt() throws Exception {
+        TusRateLimiter limiter = new TusRateLimiter(1, 1);
+        limiter.acquire(1);
+
+        Thread.currentThread().interrupt();
+        try {
+            limiter.acquire(1);
+            fail("expected InterruptedIOException");
+        } catch(InterruptedIOException e) {
+            assertTrue(Thread.interrupted());
+        }
+    }
+
+    public void testFairSharing() throws Exception {
+        final TusRateLimiter limiter = new TusRateLimiter(1024 * 1024, 1024);
+        final AtomicLong[] counts = new AtomicLong[] {new AtomicLong(), new AtomicLong()};
+        final long deadline = System.nanoTime() + 300000000L;
+
+        Thread[] threads = new Thread[2];
+        for(int i = 0; i < threads.length; i++) {
+            final AtomicLong count = counts[i];
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while(System.nanoTime() < deadline) {
+                            limiter.acquire(1024);
+                            count.addAndGet(1024);
+                        }
+                    } catch(InterruptedIOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+
+        long min = Math.min(counts[0].get(), counts[1].get());
+        long max = Math.max(counts[0].get(), counts[1].get());
+        assertTrue(counts[0] + " / " + counts[1], max <= min * 2);
+    }
+
+    public void testThrottledOutputStream() throws Exception {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        TusRateLimiter uploadLimiter = new TusRateLimiter(1024 * 1024);
+        TusRateLimiter clientLimiter = new TusRateLimiter(200 * 1024, 16 * 1024);
+        ThrottledOutputStream output = new ThrottledOutputStream(target, uploadLimiter, clientLimiter);
+
+        long start = System.nanoTime();
+        output.write(new byte[80 * 1024]);
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        assertEquals(80 * 1024, target.size());
+        // The client's limiter is the slower one, 64 KiB exceed its burst.
+        assertTrue("elapsed " + elapsedMillis, elapsedMillis >= 250);
+    }
+}
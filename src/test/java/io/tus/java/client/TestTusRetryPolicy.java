@@ -0,0 +1,39 @@
+package io.tus.java.client;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+
+public class TestTusRetryPolicy extends TestCase {
+    public void testShouldRetry() {
+        TusRetryPolicy policy = new TusRetryPolicy(2);
+
+        assertTrue(policy.shouldRetry(1, new IOException("connection reset")));
+        assertTrue(policy.shouldRetry(2, new SocketTimeoutException()));
+        assertFalse(policy.shouldRetry(3, new IOException("connection reset")));
+        assertFalse(policy.shouldRetry(1, new InterruptedIOException()));
+
+        assertTrue(policy.shouldRetry(1, new ProtocolException("server error", 503)));
+        assertFalse(policy.shouldRetry(1, new ProtocolException("not found", 404)));
+        assertFalse(policy.shouldRetry(1, new ProtocolException("missing header")));
+    }
+
+    public void testDelay() {
+        TusRetryPolicy policy = new TusRetryPolicy(10);
+        policy.setDelays(100, 1000, 2);
+        policy.setJitter(0);
+
+        assertEquals(100, policy.getDelay(1));
+        assertEquals(200, policy.getDelay(2));
+        assertEquals(400, policy.getDelay(3));
+        assertEquals(1000, policy.getDelay(5));
+
+        policy.setJitter(0.5);
+        for(int i = 0; i < 100; i++) {
+            long delay = policy.getDelay(2);
+            assertTrue(delay >= 100 && delay <= 200);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package io.tus.java.client;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+public class TestTusSeekableSource extends TestCase {
+    private File file;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        file = File.createTempFile("tus-source-test", ".tmp");
+        OutputStream output = new FileOutputStream(file);
+        output.write("hello world".getBytes());
+        output.close();
+    }
+
+    public void testFileChannelSource() throws IOException {
+        assertSource(new TusFileChannelSource(new FileInputStream(file).getChannel()));
+    }
+
+    public void testFileChannelSourceRange() throws IOException {
+        FileInputStream input = new FileInputStream(file);
+        input.getChannel().position(5);
+        // The source covers "llo wor" and ignores the channel's former position.
+        TusSeekableSource source = new TusFileChannelSource(input.getChannel(), 2, 7);
+        assertEquals(7, source.getSize());
+        assertEquals(0, source.getPosition());
+
+        source.seek(4);
+        byte[] buffer = new byte[5];
+        assertEquals(3, source.read(buffer, 0, buffer.length));
+        assertEquals("wor", new String(buffer, 0, 3));
+        assertEquals(-1, source.read(buffer, 0, buffer.length));
+
+        source.seek(1);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(output);
+        while(source.transferTo(channel, 4) != -1) {
+            // Transfer until the range's end.
+        }
+        assertEquals("lo wor", output.toString());
+        assertEquals(7, source.getPosition());
+
+        source.close();
+    }
+
+    public void testRandomAccessFileSource() throws IOException {
+        assertSource(new TusRandomAccessFileSource(file));
+    }
+
+    public void testMappedFileSource() throws IOException {
+        assertSource(new TusMappedFileSource(file));
+        // A window smaller than the chunks forces the source to remap while reading.
+        assertSource(new TusMappedFileSource(new FileInputStream(file).getChannel(), 4));
+    }
+
+    private void assertSource(TusSeekableSource source) throws IOException {
+        assertEquals(11, source.getSize());
+
+        source.seek(6);
+        assertEquals(6, source.getPosition());
+        byte[] buffer = new byte[5];
+        int bytesRead = 0;
+        while(bytesRead < buffer.length) {
+            bytesRead += source.read(buffer, bytesRead, buffer.length - bytesRead);
+        }
+        assertEquals("world", new String(buffer));
+        assertEquals(-1, source.read(buffer, 0, buffer.length));
+
+        source.seek(3);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(output);
+        long transferred;
+        while((transferred = source.transferTo(channel, 5)) != -1) {
+            assertTrue(transferred <= 5);
+        }
+        assertEquals("lo world", output.toString());
+        assertEquals(11, source.getPosition());
+
+        source.close();
+    }
+
+    public void testSeekableChannel() throws IOException {
+        FileInputStream input = new FileInputStream(file);
+        input.read();
+        assertNotNull(TusFileChannelSource.seekableChannel(input));
+        // Checking the channel must not move the stream.
+        assertEquals('e', input.read());
+        input.close();
+
+        assertNull(TusFileChannelSource.seekableChannel(new ByteArrayInputStream(new byte[1])));
+
+        File device = new File("/dev/zero");
+        if(device.exists()) {
+            FileInputStream deviceInput = new FileInputStream(device);
+            assertNull(TusFileChannelSource.seekableChannel(deviceInput));
+            deviceInput.close();
+        }
+    }
+
+    public void testSkipFully() throws IOException {
+        ByteArrayInputStream input = new ByteArrayInputStream("hello world".getBytes());
+        TusUploader.skipFully(input, 6);
+        assertEquals('w', input.read());
+
+        try {
+            TusUploader.skipFully(input, 10);
+            fail("expected IOException");
+        } catch(IOException e) {
+            assertEquals("unexpected end of stream while skipping to offset 10 (4 bytes skipped)", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package io.tus.java.client;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URL;
+
+public class TestTusURLFileStore extends TestCase {
+    private File file;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        file = File.createTempFile("tus-url-store", ".log");
+        file.delete();
+    }
+
+    protected void tearDown() throws Exception {
+        file.delete();
+    }
+
+    public void testStore() throws IOException {
+        TusURLFileStore store = new TusURLFileStore(file);
+        URL url = new URL("https://master.tus.io/files/hello");
+        String fingerprint = "foo";
+        store.set(fingerprint, url);
+
+        assertEquals(store.get(fingerprint), url);
+
+        store.remove(fingerprint);
+
+        assertEquals(store.get(fingerprint), null);
+        store.close();
+    }
+
+    public void testPersistence() throws IOException {
+        TusURLFileStore store = new TusURLFileStore(file);
+        store.set("foo", new URL("https://master.tus.io/files/foo"));
+        store.set("bar", new URL("https://master.tus.io/files/bar"));
+        store.set("foo", new URL("https://master.tus.io/files/foo2"));
+        store.remove("bar");
+        store.close();
+
+        store = new TusURLFileStore(file);
+        assertEquals(1, store.size());
+        assertEquals(new URL("https://master.tus.io/files/foo2"), store.get("foo"));
+        assertNull(store.get("bar"));
+        store.close();
+    }
+
+    public void testIncompleteRecord() throws IOException {
+        TusURLFileStore store = new TusURLFileStore(file);
+        store.set("foo", new URL("https://master.tus.io/files/foo"));
+        store.set("bar", new URL("https://master.tus.io/files/bar"));
+        store.close();
+
+        // Simulate a crash while the last record was being written.
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        long length = raf.length();
+        raf.setLength(length - 5);
+        raf.close();
+
+        store = new TusURLFileStore(file);
+        assertEquals(new URL("https://master.tus.io/files/foo"), store.get("foo"));
+        assertNull(store.get("bar"));
+        store.set("bar", new URL("https://master.tus.io/files/bar"));
+        store.close();
+
+        store = new TusURLFileStore(file);
+        assertEquals(new URL("https://master.tus.io/files/bar"), store.get("bar"));
+        store.close();
+    }
+
+    public void testCorruptedRecord() throws IOException {
+        TusURLFileStore store = new TusURLFileStore(file);
+        store.set("foo", new URL("https://master.tus.io/files/foo"));
+        long fooEnd = file.length();
+        store.set("bar", new URL("https://master.tus.io/files/bar"));
+        long barEnd = file.length();
+        store.set("baz", new URL("https://master.tus.io/files/baz"));
+        store.close();
+        long length = file.length();
+
+        // Corrupt the URL of the record in the middle.
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.seek(barEnd - 10);
+        raf.write('x');
+        raf.close();
+
+        store = new TusURLFileStore(file);
+        assertEquals(new URL("https://master.tus.io/files/foo"), store.get("foo"));
+        assertNull(store.get("bar"));
+        assertEquals(new URL("https://master.tus.io/files/baz"), store.get("baz"));
+        store.close();
+        // Only an incomplete record at the end of the file is discarded.
+        assertEquals(length, file.length());
+
+        // The length of a corrupted record cannot be used to skip it, so the store searches for
+        // the next intact record.
+        raf = new RandomAccessFile(file, "rw");
+        raf.seek(fooEnd);
+        raf.writeInt(3);
+        raf.close();
+
+        store = new TusURLFileStore(file);
+        assertEquals(new URL("https://master.tus.io/files/foo"), store.get("foo"));
+        assertEquals(new URL("https://master.tus.io/files/baz"), store.get("baz"));
+        store.close();
+        assertEquals(length, file.length());
+    }
+
+    public void testScheduledSync() throws IOException, InterruptedException {
+        TusURLFileStore store = new TusURLFileStore(file);
+        store.setSyncInterval(50);
+        store.set("foo", new URL("https://master.tus.io/files/foo"));
+        store.set("bar", new URL("https://master.tus.io/files/bar"));
+        assertTrue(store.isDirty());
+
+        // The last record is synchronized without another change.
+        for(int i = 0; i < 100 && store.isDirty(); i++) {
+            Thread.sleep(20);
+        }
+        assertFalse(store.isDirty());
+        store.close();
+    }
+
+    public void testCompaction() throws IOException {
+        TusURLFileStore store = new TusURLFileStore(file);
+        store.setSyncInterval(60000);
+        for(int i = 0; i < 30000; i++) {
+            store.set("fingerprint-" + (i % 2000), new URL("https://master.tus.io/files/" + i));
+            if(i % 3 == 0) {
+                store.remove("fingerprint-" + ((i + 7) % 2000));
+            }
+        }
+
+        // The log would exceed 3 MB without compaction.
+        assertTrue(file.length() < 1024 * 1024);
+
+        int expected = 0;
+        for(int i = 0; i < 2000; i++) {
+            if(store.get("fingerprint-" + i) != null) {
+                expected++;
+            }
+        }
+        assertEquals(expected, store.size());
+        assertEquals(new URL("https://master.tus.io/files/29999"), store.get("fingerprint-" + (29999 % 2000)));
+        store.close();
+
+        store = new TusURLFileStore(file);
+        assertEquals(expected, store.size());
+        assertEquals(new URL("https://master.tus.io/files/29999"), store.get("fingerprint-" + (29999 % 2000)));
+        store.close();
+    }
+
+    public void testRestoreBackup() throws IOException {
+        TusURLFileStore store = new TusURLFileStore(file);
+        store.set("foo", new URL("https://master.tus.io/files/foo"));
+        store.close();
+
+        // Simulate a crash after the old file has been moved away during compaction.
+        File backup = new File(file.getPath() + ".bak");
+        assertTrue(file.renameTo(backup));
+
+        store = new TusURLFileStore(file);
+        assertEquals(new URL("https://master.tus.io/files/foo"), store.get("foo"));
+        assertFalse(backup.exists());
+        store.close();
+    }
+}
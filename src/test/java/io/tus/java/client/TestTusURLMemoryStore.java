@@ -2,6 +2,7 @@ package io.tus.java.client;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Date;
 
 import org.junit.Test;
 
@@ -22,4 +23,61 @@ public class TestTusURLMemoryStore extends TestCase {
 
         assertEquals(store.get(fingerprint), null);
     }
+
+    @Test
+    public void testMaxEntries() throws MalformedURLException {
+        TusURLMemoryStore store = new TusURLMemoryStore(100, 0);
+        for(int i = 0; i < 1000; i++) {
+            store.set("fingerprint-" + i, new URL("https://master.tus.io/files/" + i));
+        }
+
+        assertTrue(store.size() <= 100);
+        assertEquals(new URL("https://master.tus.io/files/999"), store.get("fingerprint-999"));
+        assertNull(store.get("fingerprint-0"));
+    }
+
+    @Test
+    public void testExpiration() throws MalformedURLException, InterruptedException {
+        TusURLMemoryStore store = new TusURLMemoryStore(0, 50);
+        URL url = new URL("https://master.tus.io/files/hello");
+
+        store.set("foo", url);
+        store.set("bar", url, new Date(System.currentTimeMillis() - 1000));
+        assertEquals(url, store.get("foo"));
+        assertNull(store.get("bar"));
+
+        Thread.sleep(100);
+        assertEquals(1, store.size());
+        store.removeExpired();
+        assertEquals(0, store.size());
+        assertNull(store.get("foo"));
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final TusURLMemoryStore store = new TusURLMemoryStore(1000, 0);
+        final URL url = new URL("https://master.tus.io/files/hello");
+        Thread[] threads = new Thread[8];
+        for(int t = 0; t < threads.length; t++) {
+            final int offset = t * 10000;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for(int i = 0; i < 10000; i++) {
+                        store.set("fingerprint-" + (offset + i), url);
+                        store.get("fingerprint-" + (offset + i / 2));
+                        if(i % 2 == 0) {
+                            store.remove("fingerprint-" + (offset + i));
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(store.size() <= 1000);
+    }
 }
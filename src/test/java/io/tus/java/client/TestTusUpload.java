@@ -39,4 +39,50 @@ public class TestTusUpload extends TestCase {
         assertEquals(upload.getInputStream().read(readContent), content.length());
         assertEquals(new String(readContent), content);
     }
+
+    public void testEncodedMetadataCache() {
+        Map<String, String> metadata = new LinkedHashMap<String, String>();
+        metadata.put("foo", "hello");
+
+        TusUpload upload = new TusUpload();
+        upload.setMetadata(metadata);
+        String encoded = upload.getEncodedMetadata();
+        assertEquals("foo aGVsbG8=", encoded);
+        assertSame(encoded, upload.getEncodedMetadata());
+
+        // Setting the modified map again invalidates the cached value.
+        metadata.put("bar", "world");
+        upload.setMetadata(metadata);
+        assertEquals("foo aGVsbG8=,bar d29ybGQ=", upload.getEncodedMetadata());
+
+        Map<String, String> other = new LinkedHashMap<String, String>();
+        other.put("null", null);
+        other.put("empty", "");
+        other.put("unicode", "\u00e4\u00f6\u00fc");
+        upload.setMetadata(other);
+        assertEquals("null,empty,unicode w6TDtsO8", upload.getEncodedMetadata());
+    }
+
+    public void testInvalidMetadataKey() {
+        TusUpload upload = new TusUpload();
+        for(String key : new String[] {"", "foo bar", "foo,bar"}) {
+            Map<String, String> metadata = new LinkedHashMap<String, String>();
+            metadata.put(key, "value");
+            try {
+                upload.setMetadata(metadata);
+                fail("expected IllegalArgumentException for key '" + key + "'");
+            } catch(IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    public void testBase64Encode() {
+        assertEquals("", TusUpload.base64Encode("".getBytes()));
+        assertEquals("Zg==", TusUpload.base64Encode("f".getBytes()));
+        assertEquals("Zm8=", TusUpload.base64Encode("fo".getBytes()));
+        assertEquals("Zm9v", TusUpload.base64Encode("foo".getBytes()));
+        assertEquals("Zm9vYg==", TusUpload.base64Encode("foob".getBytes()));
+        assertEquals("/+8=", TusUpload.base64Encode(new byte[] {(byte) 0xFF, (byte) 0xEF}));
+    }
 }
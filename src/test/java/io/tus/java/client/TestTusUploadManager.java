@@ -0,0 +1,152 @@
+package io.tus.java.client;
+
+import junit.framework.TestCase;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class TestTusUploadManager extends TestCase {
+    private RecordingExecutor executor;
+    private TusClient client;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        executor = new RecordingExecutor();
+        client = clientFor("http://master.tus.io/files");
+    }
+
+    public void testConcurrencyLimit() {
+        TusUploadManager manager = new TusUploadManager(client, 2);
+
+        Future<TusUploadResult> first = manager.submit(new TusUpload(), null);
+        Future<TusUploadResult> second = manager.submit(new TusUpload(), null);
+        Future<TusUploadResult> third = manager.submit(new TusUpload(), null);
+
+        assertEquals(2, manager.getRunningCount());
+        assertEquals(1, manager.getPendingCount());
+        assertSame(first, executor.started.get(0));
+        assertSame(second, executor.started.get(1));
+
+        // The limits are only released once the cancelled upload has exited.
+        first.cancel(true);
+        assertEquals(2, manager.getRunningCount());
+        assertEquals(1, manager.getPendingCount());
+        assertEquals(2, executor.started.size());
+
+        executor.started.get(0).run();
+        assertEquals(2, manager.getRunningCount());
+        assertEquals(0, manager.getPendingCount());
+        assertSame(third, executor.started.get(2));
+    }
+
+    public void testCancelPending() {
+        TusUploadManager manager = new TusUploadManager(client, 1);
+
+        manager.submit(new TusUpload(), null);
+        Future<TusUploadResult> cancelled = manager.submit(new TusUpload(), null);
+        Future<TusUploadResult> last = manager.submit(new TusUpload(), null);
+
+        cancelled.cancel(false);
+        assertEquals(1, manager.getPendingCount());
+
+        executor.started.get(0).run();
+        assertSame(last, executor.started.get(1));
+        assertEquals(0, manager.getPendingCount());
+    }
+
+    public void testPriority() {
+        TusUploadManager manager = new TusUploadManager(client, 1);
+
+        Future<TusUploadResult> running = manager.submit(client, new TusUpload(), 0, null);
+        Future<TusUploadResult> low = manager.submit(client, new TusUpload(), 1, null);
+        Future<TusUploadResult> high = manager.submit(client, new TusUpload(), 5, null);
+
+        running.cancel(true);
+        executor.started.get(0).run();
+        assertSame(high, executor.started.get(1));
+        high.cancel(true);
+        executor.started.get(1).run();
+        assertSame(low, executor.started.get(2));
+    }
+
+    public void testPerHostLimit() throws Exception {
+        TusClient otherClient = clientFor("http://other.tus.io/files");
+        TusUploadManager manager = new TusUploadManager(client, 10);
+        manager.setMaxUploadsPerHost(1);
+
+        manager.submit(client, new TusUpload(), 0, null);
+        Future<TusUploadResult> prioritized = manager.submit(client, new TusUpload(), 10, null);
+        Future<TusUploadResult> other = manager.submit(otherClient, new TusUpload(), 0, null);
+
+        // The second upload to the first host has to wait although it has a higher priority.
+        assertEquals(2, manager.getRunningCount());
+        assertEquals(1, manager.getPendingCount());
+        assertSame(other, executor.started.get(1));
+
+        // Once the first upload has exited, its host is ready again.
+        executor.started.get(0).run();
+        assertEquals(2, manager.getRunningCount());
+        assertEquals(0, manager.getPendingCount());
+        assertSame(prioritized, executor.started.get(2));
+    }
+
+    public void testMemoryLimit() {
+        TusUploadManager manager = new TusUploadManager(client, 10);
+        manager.setChunkSize(1024);
+        manager.setMemoryLimit(2048);
+
+        manager.submit(new TusUpload(), null);
+        manager.submit(new TusUpload(), null);
+        manager.submit(new TusUpload(), null);
+
+        assertEquals(2, manager.getRunningCount());
+        assertEquals(1, manager.getPendingCount());
+    }
+
+    private TusClient clientFor(String url) throws Exception {
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(new URL(url));
+        client.setExecutor(executor);
+        return client;
+    }
+
+    /**
+     * Records the started uploads without running them.
+     */
+    private static class RecordingExecutor extends AbstractExecutorService {
+        private List<Runnable> started = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            started.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return started;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package io.tus.java.client;
+
+import junit.framework.TestCase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.mockserver.client.server.MockServerClient;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.socket.PortFactory;
+
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static org.mockserver.integration.ClientAndServer.startClientAndServer;
+
+public class TestTusUploadTask extends TestCase {
+    private MockServerClient mockServer;
+    public URL mockServerURL;
+
+    @Before
+    protected void setUp() throws Exception {
+        super.setUp();
+        int port = PortFactory.findFreePort();
+        mockServerURL = new URL("http://localhost:" + port + "/files");
+        mockServer = startClientAndServer(port);
+    }
+
+    @After
+    protected void tearDown() {
+        mockServer.stop();
+    }
+
+    public void testUploadAsync() throws Exception {
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files")
+                .withHeader("Upload-Length", "11"))
+                .respond(new HttpResponse()
+                        .withStatusCode(201)
+                        .withHeader("Location", mockServerURL + "/foo"));
+        mockServer.when(new HttpRequest()
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "0")
+                .withBody("hello world".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        TusUpload upload = new TusUpload();
+        upload.setSize(11);
+        upload.setInputStream(new ByteArrayInputStream("hello world".getBytes()));
+
+        RecordingListener listener = new RecordingListener();
+        Future<TusUploadResult> future = client.uploadAsync(upload, listener);
+        TusUploadResult result = future.get();
+
+        assertEquals(new URL(mockServerURL + "/foo"), result.getUploadURL());
+        assertEquals(11, result.getOffset());
+        assertEquals(upload, result.getUpload());
+        assertEquals(11, listener.progress);
+        assertEquals(result, listener.result);
+        assertNull(listener.failure);
+    }
+
+    public void testUploadAsyncFailure() throws Exception {
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withPath("/files"))
+                .respond(new HttpResponse()
+                        .withStatusCode(500));
+
+        TusClient client = new TusClient();
+        client.setUploadCreationURL(mockServerURL);
+        TusUpload upload = new TusUpload();
+        upload.setSize(11);
+        upload.setInputStream(new ByteArrayInputStream("hello world".getBytes()));
+
+        RecordingListener listener = new RecordingListener();
+        try {
+            client.uploadAsync(upload, listener).get();
+            fail("expected ExecutionException");
+        } catch(ExecutionException e) {
+            assertTrue(e.getCause() instanceof ProtocolException);
+            assertEquals(e.getCause(), listener.failure);
+        }
+        assertNull(listener.result);
+    }
+
+    private static class RecordingListener implements TusUploadListener {
+        private long progress;
+        private TusUploadResult result;
+        private Exception failure;
+
+        @Override
+        public void onProgress(TusUpload upload, long bytesUploaded, long bytesTotal) {
+            progress = bytesUploaded;
+        }
+
+        @Override
+        public void onSuccess(TusUploadResult result) {
+            this.result = result;
+        }
+
+        @Override
+        public void onFailure(TusUpload upload, Exception e) {
+            failure = e;
+        }
+    }
+}
@@ -5,13 +5,18 @@ import junit.framework.TestCase;
 import org.junit.After;
 import org.junit.Before;
 import org.mockserver.client.server.MockServerClient;
+import org.mockserver.matchers.Times;
 import org.mockserver.model.HttpRequest;
 import org.mockserver.model.HttpResponse;
 import org.mockserver.socket.PortFactory;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
 import java.util.Arrays;
 
@@ -63,4 +68,487 @@ public class TestTusUploader extends TestCase {
         assertEquals(11, uploader.getOffset());
         uploader.finish();
     }
+
+    public void testTusUploaderFileChannel() throws IOException, ProtocolException {
+        byte[] content = "hello world".getBytes();
+
+        File file = File.createTempFile("tus-uploader-test", ".tmp");
+        OutputStream output = new FileOutputStream(file);
+        output.write(content);
+        output.close();
+
+        mockServer.when(new HttpRequest()
+                .withPath("/files/foo")
+                .withHeader("Tus-Resumable", TusClient.TUS_VERSION)
+                .withHeader("Upload-Offset", "3")
+                .withHeader("Content-Type", "application/offset+octet-stream")
+                .withBody(Arrays.copyOfRange(content, 3, 11)))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Tus-Resumable", TusClient.TUS_VERSION));
+
+        TusClient client = new TusClient();
+        URL uploadUrl = new URL(mockServerURL + "/foo");
+        FileInputStream input = new FileInputStream(file);
+
+        TusUploader uploader = new TusUploader(client, uploadUrl, input.getChannel(), 3);
+
+        uploader.setChunkSize(5);
+        assertEquals(uploader.getChunkSize(), 5);
+
+        assertEquals(5, uploader.uploadChunk());
+        assertEquals(3, uploader.uploadChunk());
+        assertEquals(-1, uploader.uploadChunk());
+        assertEquals(11, uploader.getOffset());
+        uploader.finish();
+    }
+
+    public void testTusUploaderRetry() throws IOException, ProtocolException {
+        byte[] content = "hello world".getBytes();
+
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo"), Times.once())
+                .respond(new HttpResponse()
+                        .withStatusCode(503));
+        mockServer.when(new HttpRequest()
+                .withMethod("HEAD")
+                .withPath("/files/foo"))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Upload-Offset", "5"));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "5")
+                .withBody(Arrays.copyOfRange(content, 5, 11)))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+
+        TusClient client = new TusClient();
+        TusRetryPolicy policy = new TusRetryPolicy(1);
+        policy.setDelays(0, 0, 1);
+        client.setRetryPolicy(policy);
+
+        URL uploadUrl = new URL(mockServerURL + "/foo");
+        TusUploader uploader = new TusUploader(client, uploadUrl, new ByteArrayInputStream(content), 3);
+        assertEquals(policy, uploader.getRetryPolicy());
+
+        uploader.setChunkSize(8);
+        assertEquals(8, uploader.uploadChunk());
+        assertEquals(-1, uploader.uploadChunk());
+        uploader.finish();
+        assertEquals(11, uploader.getOffset());
+    }
+
+    public void testTusUploaderBufferPool() throws IOException, ProtocolException {
+        byte[] content = "hello world".getBytes();
+
+        mockServer.when(new HttpRequest()
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "0")
+                .withBody(content))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+
+        TusBufferPool pool = new TusBufferPool(4, 16, 1024);
+        TusClient client = new TusClient();
+        client.setBufferPool(pool);
+        assertSame(pool, client.getBufferPool());
+        client.setRetryPolicy(new TusRetryPolicy(1));
+
+        URL uploadUrl = new URL(mockServerURL + "/foo");
+        TusUploader uploader = new TusUploader(client, uploadUrl, new ByteArrayInputStream(content), 0);
+        uploader.setChunkSize(4);
+
+        assertEquals(4, uploader.uploadChunk());
+        assertEquals(4, uploader.uploadChunk());
+        // Only the most recent chunk is kept for resending it.
+        assertEquals(4, pool.getBytesInUse());
+        assertEquals(3, uploader.uploadChunk());
+        assertEquals(-1, uploader.uploadChunk());
+        uploader.finish();
+
+        assertEquals(11, uploader.getOffset());
+        assertEquals(0, pool.getBytesInUse());
+        assertEquals(2, pool.getAllocationCount());
+    }
+
+    public void testTusUploaderBufferPoolWithoutRetries() throws IOException, ProtocolException {
+        byte[] content = "hello world".getBytes();
+
+        mockServer.when(new HttpRequest()
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "0")
+                .withBody(content))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+
+        TusBufferPool pool = new TusBufferPool(4, 16, 1024);
+        TusClient client = new TusClient();
+        client.setBufferPool(pool);
+
+        URL uploadUrl = new URL(mockServerURL + "/foo");
+        TusUploader uploader = new TusUploader(client, uploadUrl, new ByteArrayInputStream(content), 0);
+        uploader.setChunkSize(4);
+
+        // Without a retry policy, no chunk is resent, so every buffer is returned right away.
+        assertEquals(4, uploader.uploadChunk());
+        assertEquals(0, pool.getBytesInUse());
+        assertEquals(4, uploader.uploadChunk());
+        assertEquals(0, pool.getBytesInUse());
+        assertEquals(3, uploader.uploadChunk());
+        assertEquals(-1, uploader.uploadChunk());
+        uploader.finish();
+
+        assertEquals(11, uploader.getOffset());
+        assertEquals(1, pool.getAllocationCount());
+    }
+
+    public void testTusUploaderBoundedRequests() throws IOException, ProtocolException {
+        byte[] content = "hello world".getBytes();
+
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "0")
+                .withHeader("Content-Length", "4")
+                .withBody("hell".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "4")
+                .withHeader("Content-Length", "4")
+                .withBody("o wo".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "8")
+                .withHeader("Content-Length", "3")
+                .withBody("rld".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+
+        TusClient client = new TusClient();
+        client.enableBoundedRequests(4, 0);
+        URL uploadUrl = new URL(mockServerURL + "/foo");
+        TusUploader uploader = new TusUploader(client, uploadUrl, new ByteArrayInputStream(content), 0);
+        uploader.setUploadSize(11);
+        assertTrue(uploader.boundedRequestsEnabled());
+
+        uploader.setChunkSize(3);
+        // Chunks end with the request they are sent in.
+        assertEquals(3, uploader.uploadChunk());
+        assertEquals(1, uploader.uploadChunk());
+        assertEquals(3, uploader.uploadChunk());
+        assertEquals(1, uploader.uploadChunk());
+        assertEquals(3, uploader.uploadChunk());
+        assertEquals(-1, uploader.uploadChunk());
+        uploader.finish();
+        assertEquals(11, uploader.getOffset());
+    }
+
+    public void testTusUploaderBoundedRequestsFinish() throws IOException, ProtocolException {
+        mockServer.when(new HttpRequest()
+                .withMethod("HEAD")
+                .withPath("/files/foo"))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Upload-Offset", "0"));
+
+        File file = File.createTempFile("tus-uploader-test", ".tmp");
+        OutputStream output = new FileOutputStream(file);
+        output.write("hello world".getBytes());
+        output.close();
+
+        TusClient client = new TusClient();
+        client.setTransport(new TusKeepAliveTransport(1));
+        URL uploadUrl = new URL(mockServerURL + "/foo");
+        TusUploader uploader = new TusUploader(client, uploadUrl, new FileInputStream(file).getChannel(), 0);
+        uploader.enableBoundedRequests(8, 0);
+        uploader.setChunkSize(5);
+
+        assertEquals(5, uploader.uploadChunk());
+        // The request cannot be completed early since its length is fixed, so it is aborted
+        // without sending its remaining bytes.
+        uploader.finish();
+        assertEquals(0, uploader.getOffset());
+
+        // The aborted request's connection has been released, so the offset can be fetched.
+        assertEquals(0, client.getUploadOffset(uploadUrl));
+    }
+
+    public void testTusUploaderBoundedRequestsRetry() throws IOException, ProtocolException {
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo"), Times.once())
+                .respond(new HttpResponse()
+                        .withStatusCode(503));
+        mockServer.when(new HttpRequest()
+                .withMethod("HEAD")
+                .withPath("/files/foo"))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Upload-Offset", "0"));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "0")
+                .withBody("hello ".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "6")
+                .withBody("world".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+
+        File file = File.createTempFile("tus-uploader-test", ".tmp");
+        OutputStream output = new FileOutputStream(file);
+        output.write("hello world".getBytes());
+        output.close();
+
+        TusClient client = new TusClient();
+        TusRetryPolicy policy = new TusRetryPolicy(1);
+        policy.setDelays(0, 0, 1);
+        client.setRetryPolicy(policy);
+        client.enableBoundedRequests(6, 0);
+
+        URL uploadUrl = new URL(mockServerURL + "/foo");
+        TusUploader uploader = new TusUploader(client, uploadUrl, new FileInputStream(file).getChannel(), 0);
+        uploader.setChunkSize(11);
+
+        // The first request fails once it is completed and is sent again entirely.
+        assertEquals(6, uploader.uploadChunk());
+        assertEquals(5, uploader.uploadChunk());
+        assertEquals(-1, uploader.uploadChunk());
+        uploader.finish();
+        assertEquals(11, uploader.getOffset());
+    }
+
+    public void testTusUploaderReadAhead() throws IOException, ProtocolException {
+        byte[] content = "hello world".getBytes();
+
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "0")
+                .withBody(content))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+
+        TusBufferPool pool = new TusBufferPool(4, 16, 1024);
+        TusClient client = new TusClient();
+        client.setBufferPool(pool);
+        client.enableReadAhead(2);
+
+        URL uploadUrl = new URL(mockServerURL + "/foo");
+        TusUploader uploader = new TusUploader(client, uploadUrl, new ByteArrayInputStream(content), 0);
+        assertEquals(2, uploader.getReadAheadDepth());
+        uploader.setChunkSize(4);
+
+        assertEquals(4, uploader.uploadChunk());
+        assertEquals(4, uploader.uploadChunk());
+        assertEquals(3, uploader.uploadChunk());
+        assertEquals(-1, uploader.uploadChunk());
+        uploader.finish();
+
+        assertEquals(11, uploader.getOffset());
+        assertEquals(0, pool.getBytesInUse());
+    }
+
+    public void testTusUploaderReadAheadFixedChunk() throws IOException {
+        TusClient client = new TusClient();
+        client.enableReadAhead(2);
+
+        URL uploadUrl = new URL(mockServerURL + "/foo");
+        TusUploader uploader = new TusUploader(client, uploadUrl, new ByteArrayInputStream("hello".getBytes()), 0);
+        try {
+            uploader.uploadChunk(5);
+            fail("expected IllegalStateException");
+        } catch(IllegalStateException e) {
+            // expected
+        }
+    }
+
+    public void testTusUploaderReadAheadBoundedRequests() throws IOException, ProtocolException {
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "0")
+                .withHeader("Content-Length", "6")
+                .withBody("hello ".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "6")
+                .withHeader("Content-Length", "5")
+                .withBody("world".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+
+        File file = File.createTempFile("tus-uploader-test", ".tmp");
+        OutputStream output = new FileOutputStream(file);
+        output.write("hello world".getBytes());
+        output.close();
+
+        TusClient client = new TusClient();
+        client.enableBoundedRequests(6, 0);
+        URL uploadUrl = new URL(mockServerURL + "/foo");
+        TusUploader uploader = new TusUploader(client, uploadUrl, new FileInputStream(file).getChannel(), 0);
+        uploader.enableReadAhead(1);
+        uploader.setChunkSize(4);
+
+        // The second chunk is split between both requests.
+        assertEquals(4, uploader.uploadChunk());
+        assertEquals(2, uploader.uploadChunk());
+        assertEquals(2, uploader.uploadChunk());
+        assertEquals(3, uploader.uploadChunk());
+        assertEquals(-1, uploader.uploadChunk());
+        uploader.finish();
+        assertEquals(11, uploader.getOffset());
+    }
+
+    public void testTusUploaderReadAheadRetry() throws IOException, ProtocolException {
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo"), Times.once())
+                .respond(new HttpResponse()
+                        .withStatusCode(503));
+        mockServer.when(new HttpRequest()
+                .withMethod("HEAD")
+                .withPath("/files/foo"))
+                .respond(new HttpResponse()
+                        .withStatusCode(204)
+                        .withHeader("Upload-Offset", "4"));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "4")
+                .withBody("o world".getBytes()))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+
+        File file = File.createTempFile("tus-uploader-test", ".tmp");
+        OutputStream output = new FileOutputStream(file);
+        output.write("hello world".getBytes());
+        output.close();
+
+        TusClient client = new TusClient();
+        TusRetryPolicy policy = new TusRetryPolicy(1);
+        policy.setDelays(0, 0, 1);
+        client.setRetryPolicy(policy);
+
+        URL uploadUrl = new URL(mockServerURL + "/foo");
+        TusUploader uploader = new TusUploader(client, uploadUrl, new FileInputStream(file).getChannel(), 0);
+        uploader.enableReadAhead(2);
+        uploader.setChunkSize(11);
+
+        // The missing bytes are resent from the chunk's buffer instead of seeking the source.
+        assertEquals(11, uploader.uploadChunk());
+        assertEquals(-1, uploader.uploadChunk());
+        uploader.finish();
+        assertEquals(11, uploader.getOffset());
+    }
+
+    public void testTusUploaderChecksum() throws IOException, ProtocolException {
+        byte[] content = "hello world".getBytes();
+        String[] checksums = new String[] {
+                "sha1 qvTGHdzF6KLavt4PO0gs2a6pQ00=",
+                "sha1 g8mKNb1WiZVEvxktsM4cWeb6FvU=",
+                "sha1 PDY4Ns9OFmZmaaJdooChhlwtKHQ="
+        };
+
+        for(int i = 0; i < 3; i++) {
+            mockServer.when(new HttpRequest()
+                    .withMethod("POST")
+                    .withHeader("X-HTTP-Method-Override", "PATCH")
+                    .withPath("/files/foo")
+                    .withHeader("Upload-Offset", Integer.toString(i * 5))
+                    .withHeader("Upload-Checksum", checksums[i])
+                    .withBody(Arrays.copyOfRange(content, i * 5, Math.min(i * 5 + 5, 11))))
+                    .respond(new HttpResponse()
+                            .withStatusCode(204));
+        }
+
+        TusClient client = new TusClient();
+        client.setChecksumAlgorithm(TusChecksumAlgorithm.SHA1);
+
+        URL uploadUrl = new URL(mockServerURL + "/foo");
+        TusUploader uploader = new TusUploader(client, uploadUrl, new ByteArrayInputStream(content), 0);
+
+        uploader.setChunkSize(5);
+        assertEquals(5, uploader.uploadChunk());
+        assertEquals(5, uploader.uploadChunk());
+        assertEquals(1, uploader.uploadChunk());
+        assertEquals(-1, uploader.uploadChunk());
+        uploader.finish();
+        assertEquals(11, uploader.getOffset());
+    }
+
+    public void testTusUploaderChecksumMismatch() throws IOException, ProtocolException {
+        byte[] content = "hello world".getBytes();
+
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo"), Times.once())
+                .respond(new HttpResponse()
+                        .withStatusCode(460));
+        mockServer.when(new HttpRequest()
+                .withMethod("POST")
+                .withHeader("X-HTTP-Method-Override", "PATCH")
+                .withPath("/files/foo")
+                .withHeader("Upload-Offset", "0")
+                .withHeader("Upload-Checksum", "crc32c yZRlqg==")
+                .withBody(content))
+                .respond(new HttpResponse()
+                        .withStatusCode(204));
+
+        TusClient client = new TusClient();
+        client.setChecksumAlgorithm(TusChecksumAlgorithm.CRC32C);
+        TusRetryPolicy policy = new TusRetryPolicy(1);
+        policy.setDelays(0, 0, 1);
+        client.setRetryPolicy(policy);
+
+        URL uploadUrl = new URL(mockServerURL + "/foo");
+        TusUploader uploader = new TusUploader(client, uploadUrl, new ByteArrayInputStream(content), 0);
+
+        assertEquals(11, uploader.uploadChunk());
+        uploader.finish();
+        assertEquals(11, uploader.getOffset());
+    }
+
+    public void testCrc32c() {
+        Crc32c crc = new Crc32c();
+        crc.update("123456789".getBytes(), 0, 9);
+        assertEquals(0xE3069283L, crc.getValue());
+
+        crc.reset();
+        for(byte b : "123456789".getBytes()) {
+            crc.update(b);
+        }
+        assertEquals(0xE3069283L, crc.getValue());
+    }
 }